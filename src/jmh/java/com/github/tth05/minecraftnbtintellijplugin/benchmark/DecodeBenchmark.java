@@ -0,0 +1,84 @@
+package com.github.tth05.minecraftnbtintellijplugin.benchmark;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTag;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTCompression;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTEncoder;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFormat;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTReader;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSource;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTTreeDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a file of the corpus from its compressed bytes, like opening it in the editor does
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+	@Param
+	public NBTCorpus corpus;
+	@Param
+	public NBTFormat format;
+	@Param({"NONE", "GZIP"})
+	public NBTCompression compression;
+
+	private byte[] data;
+
+	@Setup
+	public void setUp() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		NBTEncoder.encode(NBTTag.of(this.corpus.create()), this.format, this.compression, out);
+		this.data = out.toByteArray();
+	}
+
+	@Benchmark
+	public NBTTagTreeNode decode() throws IOException {
+		return decode(false);
+	}
+
+	/**
+	 * Only decodes the children of the root, everything below them is skipped over
+	 */
+	@Benchmark
+	public NBTTagTreeNode decodeLazy() throws IOException {
+		NBTTagTreeNode root = decode(true);
+		root.getChildCount();
+		return root;
+	}
+
+	private NBTTagTreeNode decode(boolean lazy) throws IOException {
+		byte[] bytes;
+		try (InputStream in = this.compression.decompress(new ByteArrayInputStream(this.data))) {
+			bytes = in.readAllBytes();
+		}
+
+		NBTSource source = new NBTSource(ByteBuffer.wrap(bytes), this.format);
+		NBTReader reader = source.open(0);
+		int type = reader.readUnsignedByte();
+		String name = reader.readString();
+		return new NBTTreeDecoder(source, lazy, null).createNode(type, name, reader);
+	}
+}
@@ -0,0 +1,85 @@
+package com.github.tth05.minecraftnbtintellijplugin.benchmark;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTag;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTCompression;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTEncoder;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFormat;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTReader;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSource;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTTreeDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a file of the corpus, like saving it from the editor does
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodeBenchmark {
+
+	@Param
+	public NBTCorpus corpus;
+	@Param
+	public NBTFormat format;
+	@Param({"NONE", "GZIP"})
+	public NBTCompression compression;
+
+	/**
+	 * A tree which was created from scratch, every tag has to be encoded
+	 */
+	private NBTTag created;
+	/**
+	 * A tree which was decoded and not changed, its payloads are copied
+	 */
+	private NBTTag decoded;
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	@Setup
+	public void setUp() throws IOException {
+		this.created = NBTTag.of(this.corpus.create());
+
+		ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		NBTEncoder.encode(this.created, this.format, NBTCompression.NONE, encoded);
+		NBTSource source = new NBTSource(ByteBuffer.wrap(encoded.toByteArray()), this.format);
+		NBTReader reader = source.open(0);
+		int type = reader.readUnsignedByte();
+		String name = reader.readString();
+		NBTTagTreeNode root = new NBTTreeDecoder(source, true, null).createNode(type, name, reader);
+		this.decoded = NBTTag.of(root);
+	}
+
+	@Benchmark
+	public int encode() throws IOException {
+		return encode(this.created);
+	}
+
+	@Benchmark
+	public int encodeUnchanged() throws IOException {
+		return encode(this.decoded);
+	}
+
+	private int encode(NBTTag tag) throws IOException {
+		this.out.reset();
+		NBTEncoder.encode(tag, this.format, this.compression, this.out);
+		return this.out.size();
+	}
+}
@@ -0,0 +1,184 @@
+package com.github.tth05.minecraftnbtintellijplugin.benchmark;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+
+import java.util.Random;
+
+/**
+ * Generates the data the benchmarks run on. Every kind of file is generated from a fixed seed, so the results of
+ * different runs and releases can be compared.
+ */
+public enum NBTCorpus {
+
+	/**
+	 * A player file with a full inventory and ender chest of enchanted and named items
+	 */
+	PLAYER {
+		@Override
+		NBTTagTreeNode create(Random random) {
+			NBTTagTreeNode root = compound("");
+			root.add(value(NBTTagType.INT, "DataVersion", 3700));
+			root.add(value(NBTTagType.FLOAT, "Health", 20F));
+			root.add(doubles("Pos", random.nextDouble() * 1000, 64, random.nextDouble() * 1000));
+			root.add(doubles("Motion", 0, -0.0784, 0));
+			root.add(items("Inventory", random, 36));
+			root.add(items("EnderItems", random, 27));
+			return root;
+		}
+	},
+	/**
+	 * A chunk with 24 sections, each with a block palette and the packed block states
+	 */
+	CHUNK {
+		@Override
+		NBTTagTreeNode create(Random random) {
+			NBTTagTreeNode root = compound("");
+			root.add(value(NBTTagType.INT, "xPos", random.nextInt(1000)));
+			root.add(value(NBTTagType.INT, "zPos", random.nextInt(1000)));
+			root.add(value(NBTTagType.STRING, "Status", "minecraft:full"));
+
+			NBTTagTreeNode sections = list("sections");
+			for (int y = -4; y < 20; y++) {
+				NBTTagTreeNode section = compound("[" + (y + 4) + "]");
+				section.add(value(NBTTagType.BYTE, "Y", (byte) y));
+
+				NBTTagTreeNode blockStates = compound("block_states");
+				NBTTagTreeNode palette = list("palette");
+				for (int i = 0; i < 16; i++) {
+					NBTTagTreeNode block = compound("[" + i + "]");
+					block.add(value(NBTTagType.STRING, "Name", BLOCKS[random.nextInt(BLOCKS.length)]));
+					if (random.nextBoolean()) {
+						NBTTagTreeNode properties = compound("Properties");
+						properties.add(value(NBTTagType.STRING, "facing", "north"));
+						properties.add(value(NBTTagType.STRING, "waterlogged", "false"));
+						block.add(properties);
+					}
+					palette.add(block);
+				}
+				blockStates.add(palette);
+				blockStates.add(longs(random, "data", 256));
+				section.add(blockStates);
+				section.add(bytes(random, "BlockLight", 2048));
+				section.add(bytes(random, "SkyLight", 2048));
+				sections.add(section);
+			}
+			root.add(sections);
+
+			NBTTagTreeNode heightmaps = compound("Heightmaps");
+			heightmaps.add(longs(random, "MOTION_BLOCKING", 37));
+			heightmaps.add(longs(random, "WORLD_SURFACE", 37));
+			root.add(heightmaps);
+			return root;
+		}
+	},
+	/**
+	 * Few tags with millions of array elements
+	 */
+	HUGE_ARRAYS {
+		@Override
+		NBTTagTreeNode create(Random random) {
+			NBTTagTreeNode root = compound("");
+			root.add(bytes(random, "bytes", 4_000_000));
+
+			int[] ints = new int[1_000_000];
+			for (int i = 0; i < ints.length; i++)
+				ints[i] = random.nextInt() >> random.nextInt(32);
+			root.add(value(NBTTagType.INT_ARRAY, "ints", ints));
+			root.add(longs(random, "longs", 500_000));
+			return root;
+		}
+	},
+	/**
+	 * A long list of compounds made up of short strings, like the entities of a structure file
+	 */
+	SMALL_STRINGS {
+		@Override
+		NBTTagTreeNode create(Random random) {
+			NBTTagTreeNode root = compound("");
+			NBTTagTreeNode entries = list("entries");
+			for (int i = 0; i < 50_000; i++) {
+				NBTTagTreeNode entry = compound("[" + i + "]");
+				entry.add(value(NBTTagType.STRING, "id", BLOCKS[random.nextInt(BLOCKS.length)]));
+				entry.add(value(NBTTagType.STRING, "name", "entry" + random.nextInt(1000)));
+				entry.add(value(NBTTagType.STRING, "owner", random.nextInt(10) == 0 ? "Jürgen" : "Steve"));
+				entries.add(entry);
+			}
+			root.add(entries);
+			return root;
+		}
+	};
+
+	private static final String[] BLOCKS = {"minecraft:stone", "minecraft:dirt", "minecraft:grass_block",
+			"minecraft:oak_log", "minecraft:oak_planks", "minecraft:water", "minecraft:deepslate", "minecraft:air"};
+	private static final String[] ITEMS = {"minecraft:diamond_sword", "minecraft:cobblestone", "minecraft:torch",
+			"minecraft:bread", "minecraft:iron_pickaxe", "minecraft:oak_planks", "minecraft:arrow"};
+
+	abstract NBTTagTreeNode create(Random random);
+
+	/**
+	 * @return The same tree every time it is called
+	 */
+	public NBTTagTreeNode create() {
+		return create(new Random(ordinal()));
+	}
+
+	private static NBTTagTreeNode items(String name, Random random, int count) {
+		NBTTagTreeNode items = list(name);
+		for (int slot = 0; slot < count; slot++) {
+			NBTTagTreeNode item = compound("[" + slot + "]");
+			item.add(value(NBTTagType.BYTE, "Slot", (byte) slot));
+			item.add(value(NBTTagType.STRING, "id", ITEMS[random.nextInt(ITEMS.length)]));
+			item.add(value(NBTTagType.BYTE, "Count", (byte) (1 + random.nextInt(64))));
+
+			NBTTagTreeNode tag = compound("tag");
+			tag.add(value(NBTTagType.INT, "Damage", random.nextInt(250)));
+			NBTTagTreeNode display = compound("display");
+			display.add(value(NBTTagType.STRING, "Name", "{\"text\":\"Item " + random.nextInt(100) + "\"}"));
+			tag.add(display);
+			NBTTagTreeNode enchantments = list("Enchantments");
+			for (int i = random.nextInt(4); i > 0; i--) {
+				NBTTagTreeNode enchantment = compound("[" + enchantments.getChildCount() + "]");
+				enchantment.add(value(NBTTagType.STRING, "id", "minecraft:unbreaking"));
+				enchantment.add(value(NBTTagType.SHORT, "lvl", (short) (1 + random.nextInt(3))));
+				enchantments.add(enchantment);
+			}
+			tag.add(enchantments);
+			item.add(tag);
+			items.add(item);
+		}
+		return items;
+	}
+
+	private static NBTTagTreeNode compound(String name) {
+		return new NBTTagTreeNode(NBTTagType.COMPOUND, name, null);
+	}
+
+	private static NBTTagTreeNode list(String name) {
+		return new NBTTagTreeNode(NBTTagType.LIST, name, null);
+	}
+
+	private static NBTTagTreeNode value(NBTTagType type, String name, Object value) {
+		return new NBTTagTreeNode(type, name, value);
+	}
+
+	private static NBTTagTreeNode doubles(String name, double... values) {
+		NBTTagTreeNode list = list(name);
+		for (int i = 0; i < values.length; i++)
+			list.add(value(NBTTagType.DOUBLE, "[" + i + "]", values[i]));
+		return list;
+	}
+
+	private static NBTTagTreeNode bytes(Random random, String name, int length) {
+		byte[] bytes = new byte[length];
+		random.nextBytes(bytes);
+		return value(NBTTagType.BYTE_ARRAY, name, bytes);
+	}
+
+	private static NBTTagTreeNode longs(Random random, String name, int length) {
+		long[] longs = new long[length];
+		for (int i = 0; i < length; i++)
+			longs[i] = random.nextLong();
+		return value(NBTTagType.LONG_ARRAY, name, longs);
+	}
+}
@@ -0,0 +1,57 @@
+package com.github.tth05.minecraftnbtintellijplugin;
+
+/**
+ * A lightweight child of a {@link NBTTagType#BYTE_ARRAY}, {@link NBTTagType#INT_ARRAY} or
+ * {@link NBTTagType#LONG_ARRAY} node. It only knows its index, the value is read from and written to the backing
+ * array of the parent.
+ */
+class NBTArrayElementTreeNode extends NBTTagTreeNode {
+
+	private int index;
+
+	NBTArrayElementTreeNode(NBTTagType type, int index) {
+		super(type);
+		this.index = index;
+	}
+
+	void setIndex(int index) {
+		this.index = index;
+	}
+
+	int getElementIndex() {
+		return this.index;
+	}
+
+	@Override
+	public String getName() {
+		return "[" + this.index + "]";
+	}
+
+	@Override
+	public void setName(String name) {
+		throw new UnsupportedOperationException("Array elements cannot be renamed");
+	}
+
+	@Override
+	public void setType(NBTTagType type) {
+		throw new UnsupportedOperationException("The type of array elements cannot be changed");
+	}
+
+	@Override
+	public Object getValue() {
+		return ((NBTTagTreeNode) this.parent).getArrayElement(this.index);
+	}
+
+	@Override
+	public void setValue(Object value) {
+		((NBTTagTreeNode) this.parent).setArrayElement(this.index, value);
+	}
+
+	/**
+	 * Not cached, the value can be changed through the parent without this node noticing
+	 */
+	@Override
+	public String getLabel() {
+		return getName() + ": " + getValueAsString();
+	}
+}
@@ -10,6 +10,7 @@ public class NBTFileTypeOverrider implements FileTypeOverrider {
 	@Nullable
 	@Override
 	public FileType getOverriddenFileType(@NotNull VirtualFile file) {
-		return "nbt".equals(file.getExtension()) ? NBTFileType.INSTANCE : null;
+		String extension = file.getExtension();
+		return "nbt".equals(extension) || "mca".equals(extension) || "mcr".equals(extension) ? NBTFileType.INSTANCE : null;
 	}
 }
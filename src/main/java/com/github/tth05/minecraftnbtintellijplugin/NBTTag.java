@@ -0,0 +1,163 @@
+package com.github.tth05.minecraftnbtintellijplugin;
+
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFormat;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTReader;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSource;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.tree.TreeNode;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * An immutable copy of a {@link NBTTagTreeNode} and everything below it. Snapshots are taken on the EDT and can then
+ * be encoded on any thread while the tree keeps being edited.
+ */
+public final class NBTTag {
+
+	private final NBTTagType type;
+	private final String name;
+	/**
+	 * The boxed value for primitive types, a copy of the backing array for array types and {@code null} for lists
+	 * and compounds
+	 */
+	private final Object value;
+	private final List<NBTTag> children;
+
+	/**
+	 * Set if the payload of the node did not change since it was decoded, it is then taken from the source as is
+	 */
+	@Nullable
+	private final NBTSource source;
+	private final int payloadOffset;
+	private final int payloadLength;
+
+	private NBTTag(NBTTagType type, String name, Object value, List<NBTTag> children) {
+		this(type, name, value, children, null, 0, 0);
+	}
+
+	private NBTTag(NBTTagType type, String name, Object value, List<NBTTag> children, @Nullable NBTSource source, int payloadOffset, int payloadLength) {
+		this.type = type;
+		this.name = name;
+		this.value = value;
+		this.children = children;
+		this.source = source;
+		this.payloadOffset = payloadOffset;
+		this.payloadLength = payloadLength;
+	}
+
+	/**
+	 * Takes a snapshot of the given node and everything below it. Unchanged subtrees, including the ones which were
+	 * not loaded yet, only reference their encoded payload and are neither copied nor decoded by this.
+	 * <p>
+	 * Snapshots are remembered by the nodes until they change, so consecutive snapshots share every subtree which did
+	 * not change in between. Taking another snapshot after an edit only copies the nodes on the path to the edit,
+	 * which makes snapshots cheap enough to take for every save.
+	 */
+	public static NBTTag of(NBTTagTreeNode node) {
+		NBTTag snapshot = node.getSnapshot();
+		if (snapshot == null) {
+			snapshot = copy(node);
+			node.setSnapshot(snapshot);
+		}
+		return snapshot;
+	}
+
+	private static NBTTag copy(NBTTagTreeNode node) {
+		NBTTagType type = node.getType();
+		//The names of list elements are their positions, which are not part of the payload and change with siblings
+		String name = node.isListElement() ? "" : node.getName();
+		if (node.hasUnchangedPayload()) {
+			return new NBTTag(type, name, null, Collections.emptyList(),
+					node.getSource(), node.getPayloadOffset(), node.getPayloadLength());
+		}
+
+		switch (type) {
+			case BYTE_ARRAY:
+				return new NBTTag(type, name, ((byte[]) node.getValue()).clone(), Collections.emptyList());
+			case INT_ARRAY:
+				return new NBTTag(type, name, ((int[]) node.getValue()).clone(), Collections.emptyList());
+			case LONG_ARRAY:
+				return new NBTTag(type, name, ((long[]) node.getValue()).clone(), Collections.emptyList());
+			case LIST:
+			case COMPOUND:
+				List<NBTTag> children = new ArrayList<>(node.getChildCount());
+				Enumeration<TreeNode> enumeration = node.children();
+				while (enumeration.hasMoreElements())
+					children.add(of((NBTTagTreeNode) enumeration.nextElement()));
+				return new NBTTag(type, name, null, Collections.unmodifiableList(children));
+			default:
+				return new NBTTag(type, name, node.getValue(), Collections.emptyList());
+		}
+	}
+
+	/**
+	 * @return A copy of this tag with a different name, used for roots whose name is not part of the tree
+	 */
+	public NBTTag withName(String name) {
+		return new NBTTag(this.type, name, this.value, this.children, this.source, this.payloadOffset, this.payloadLength);
+	}
+
+	public NBTTagType getType() {
+		return this.type;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public Object getValue() {
+		return this.value;
+	}
+
+	/**
+	 * @return The children of a list or compound, empty for encoded tags
+	 */
+	public List<NBTTag> getChildren() {
+		return this.children;
+	}
+
+	/**
+	 * @return {@code true} if the payload of this tag is still encoded in its source
+	 */
+	public boolean isEncoded() {
+		return this.source != null;
+	}
+
+	/**
+	 * @return The source containing the payload of an encoded tag
+	 */
+	public NBTSource getEncodedSource() {
+		return getSource();
+	}
+
+	/**
+	 * @return The format the payload of an encoded tag is in
+	 */
+	public NBTFormat getEncodedFormat() {
+		return getSource().getFormat();
+	}
+
+	/**
+	 * @return The payload of an encoded tag
+	 */
+	public ByteBuffer getEncodedPayload() {
+		return getSource().slice(this.payloadOffset, this.payloadLength);
+	}
+
+	/**
+	 * @return A reader positioned at the payload of an encoded tag
+	 */
+	public NBTReader openEncodedPayload() {
+		return getSource().open(this.payloadOffset);
+	}
+
+	private NBTSource getSource() {
+		if (this.source == null)
+			throw new IllegalStateException("Not an encoded tag: " + this.name);
+		return this.source;
+	}
+}
@@ -1,43 +1,577 @@
 package com.github.tth05.minecraftnbtintellijplugin;
 
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTNumberFormat;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSource;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTTreeDecoder;
+
 import javax.swing.tree.DefaultMutableTreeNode;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.Vector;
 
 public class NBTTagTreeNode extends DefaultMutableTreeNode {
 
-	private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat();
-	static {
-		DECIMAL_FORMAT.setGroupingUsed(false);
-		DecimalFormatSymbols symbols = DECIMAL_FORMAT.getDecimalFormatSymbols();
-		symbols.setDecimalSeparator('.');
-		DECIMAL_FORMAT.setDecimalFormatSymbols(symbols);
-	}
-
 	private NBTTagType type;
 	private String name;
+	/**
+	 * The boxed value for primitive types and the backing {@code byte[]}, {@code int[]} or {@code long[]} for array
+	 * types
+	 */
 	private Object value;
+	/**
+	 * The text shown in the tree, {@code null} until the tree asks for it for the first time and after the name or
+	 * value changed
+	 */
+	private String label;
+	/**
+	 * The index of this node in its parent the last time it was looked up. It is checked before it is used, so it
+	 * does not have to be updated when siblings are inserted or removed.
+	 */
+	private int indexHint;
+
+	/**
+	 * The source and location of the payload of this node, as long as the node was decoded from a source. The
+	 * payload in there is only up to date while the node is not {@link #dirty}.
+	 */
+	private NBTSource source;
+	private int payloadOffset;
+	private int payloadLength;
+	/**
+	 * Set if this node or anything below it was changed since it was decoded. Nodes which were not decoded from a
+	 * source are always dirty.
+	 */
+	private boolean dirty = true;
+	/**
+	 * The last snapshot of this node, {@code null} after this node or anything below it changed. Unchanged subtrees
+	 * keep their snapshots, so a new snapshot of a changed tree only copies the path to the change.
+	 */
+	private NBTTag snapshot;
+
+	/**
+	 * The amount of children which will be decoded from the source once they are accessed, {@code -1} if they were
+	 * decoded already
+	 */
+	private volatile int lazyChildCount = -1;
+	/**
+	 * Set while the children of a lazy node are decoded, adding them does not change the node
+	 */
+	private boolean loading;
 
 	public NBTTagTreeNode(NBTTagType type, String name, Object value) {
 		super();
 		this.type = type;
 		this.name = name;
 		this.value = value;
+		markDirty();
+	}
+
+	/**
+	 * Used by {@link NBTArrayElementTreeNode} which neither stores a name nor a value
+	 */
+	NBTTagTreeNode(NBTTagType type) {
+		super(null, false);
+		this.type = type;
+	}
+
+	/**
+	 * Remembers where the payload of this node is encoded and marks the node as unchanged. Until the node becomes
+	 * dirty again, its payload can be copied from there instead of encoding it again.
+	 *
+	 * @param source The source containing the payload of this node
+	 * @param offset The offset of the payload in the source
+	 * @param length The length of the encoded payload
+	 */
+	public void setEncodedPayload(NBTSource source, int offset, int length) {
+		this.source = source;
+		this.payloadOffset = offset;
+		this.payloadLength = length;
+		this.dirty = false;
+		this.snapshot = null;
+	}
+
+	/**
+	 * Defers decoding the children of this node until they are accessed for the first time. The children are
+	 * decoded from the payload set by {@link #setEncodedPayload(NBTSource, int, int)}.
+	 *
+	 * @param childCount The amount of children this node will have after decoding
+	 */
+	public void setLazyChildren(int childCount) {
+		this.lazyChildCount = childCount;
+	}
+
+	public boolean isLoaded() {
+		return this.lazyChildCount < 0;
+	}
+
+	/**
+	 * Marks this node and all of its parents as changed, so their payloads are encoded again when saving
+	 */
+	public void markDirty() {
+		this.dirty = true;
+		clearSnapshots();
+		for (TreeNode node = this.parent; node instanceof NBTTagTreeNode; node = node.getParent()) {
+			NBTTagTreeNode tagNode = (NBTTagTreeNode) node;
+			//All parents of a dirty node are already dirty
+			if (tagNode.dirty)
+				return;
+			tagNode.dirty = true;
+		}
+	}
+
+	/**
+	 * Drops the snapshots of this node and all of its parents, they contain the outdated snapshot of this node. The
+	 * parents of a dirty node can still have snapshots, so unlike {@link #markDirty()} this always walks up to the root.
+	 */
+	private void clearSnapshots() {
+		for (TreeNode node = this; node instanceof NBTTagTreeNode; node = node.getParent())
+			((NBTTagTreeNode) node).snapshot = null;
+	}
+
+	NBTTag getSnapshot() {
+		return this.snapshot;
+	}
+
+	void setSnapshot(NBTTag snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Marks this node and everything below it as unchanged after it has been written somewhere else than its source.
+	 * Changed nodes lose their source, as the payload in there is outdated, and are encoded again when saving. Nodes
+	 * changed after the snapshot which was written are therefore still saved with the next change.
+	 */
+	public void markSaved() {
+		if (!this.dirty)
+			return;
+		this.dirty = false;
+		//Nodes which were not loaded yet still need their source to decode their children
+		if (isLoaded())
+			this.source = null;
+		//Array elements do not have a state of their own
+		if (this.children != null && !isArray()) {
+			for (TreeNode child : this.children)
+				((NBTTagTreeNode) child).markSaved();
+		}
+	}
+
+	boolean isDirty() {
+		return this.dirty;
+	}
+
+	/**
+	 * @return {@code true} if the payload of this node can be copied from its source without encoding it again
+	 */
+	boolean hasUnchangedPayload() {
+		return this.source != null && !this.dirty;
+	}
+
+	NBTSource getSource() {
+		return this.source;
+	}
+
+	int getPayloadOffset() {
+		return this.payloadOffset;
+	}
+
+	int getPayloadLength() {
+		return this.payloadLength;
+	}
+
+	private synchronized void ensureLoaded() {
+		if (isArray()) {
+			//The element nodes are only created once they are accessed, until then their slots are null
+			if (this.children == null && getArrayLength() > 0)
+				this.children = new Vector<>(Collections.nCopies(getArrayLength(), null));
+			return;
+		}
+
+		if (this.lazyChildCount < 0)
+			return;
+
+		this.lazyChildCount = -1;
+		this.loading = true;
+		try {
+			decodeLazyChildren();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not decode children of " + this.name, e);
+		} finally {
+			this.loading = false;
+		}
+	}
+
+	/**
+	 * Decodes the children of a lazy node and adds them to it. Called once when the children are accessed for the
+	 * first time.
+	 */
+	protected void decodeLazyChildren() throws IOException {
+		//Reading a mapping of a file which was truncated in the meantime would crash
+		if (!this.source.checkFile())
+			throw new IOException("The file was changed by another program");
+		NBTTreeDecoder.loadChildren(this, this.source, this.payloadOffset);
+	}
+
+	@Override
+	public boolean isLeaf() {
+		if (isArray())
+			return getArrayLength() == 0;
+		if (this.lazyChildCount >= 0)
+			return this.lazyChildCount == 0;
+		return super.isLeaf();
+	}
+
+	@Override
+	public int getChildCount() {
+		ensureLoaded();
+		return super.getChildCount();
+	}
+
+	@Override
+	public TreeNode getChildAt(int index) {
+		ensureLoaded();
+		if (!isArray() || this.children == null)
+			return super.getChildAt(index);
+
+		TreeNode child = this.children.get(index);
+		if (child == null) {
+			NBTArrayElementTreeNode element = new NBTArrayElementTreeNode(getElementType(), index);
+			element.setParent(this);
+			this.children.set(index, element);
+			child = element;
+		}
+		return child;
+	}
+
+	@Override
+	public int getIndex(TreeNode node) {
+		ensureLoaded();
+		if (node instanceof NBTArrayElementTreeNode && node.getParent() == this)
+			return ((NBTArrayElementTreeNode) node).getElementIndex();
+		if (!(node instanceof NBTTagTreeNode) || node.getParent() != this || this.children == null)
+			return super.getIndex(node);
+
+		NBTTagTreeNode child = (NBTTagTreeNode) node;
+		if (child.indexHint >= this.children.size() || this.children.get(child.indexHint) != child) {
+			//Siblings were inserted or removed, the hints of all children are refreshed at once
+			for (int i = 0; i < this.children.size(); i++)
+				((NBTTagTreeNode) this.children.get(i)).indexHint = i;
+		}
+		return this.children.get(child.indexHint) == child ? child.indexHint : -1;
+	}
+
+	@Override
+	public Enumeration<TreeNode> children() {
+		ensureLoaded();
+		if (!isArray() || this.children == null)
+			return super.children();
+
+		//Creates the element nodes which were not accessed yet
+		return new Enumeration<>() {
+			private int index;
+
+			@Override
+			public boolean hasMoreElements() {
+				return this.index < getChildCount();
+			}
+
+			@Override
+			public TreeNode nextElement() {
+				if (!hasMoreElements())
+					throw new NoSuchElementException();
+				return getChildAt(this.index++);
+			}
+		};
+	}
+
+	/**
+	 * Inserting into an array node only copies the value of {@code newChild} into the backing array, the node
+	 * which ends up at {@code childIndex} is a new element node.
+	 */
+	@Override
+	public void insert(MutableTreeNode newChild, int childIndex) {
+		ensureLoaded();
+		if (!this.loading)
+			markDirty();
+		if (!isArray()) {
+			super.insert(newChild, childIndex);
+			return;
+		}
+
+		Object element = ((NBTTagTreeNode) newChild).getValue();
+		int length = getArrayLength();
+		Object array = newArray(length + 1);
+		System.arraycopy(this.value, 0, array, 0, childIndex);
+		System.arraycopy(this.value, childIndex, array, childIndex + 1, length - childIndex);
+		this.value = array;
+		setArrayElement(childIndex, element);
+
+		super.insert(new NBTArrayElementTreeNode(getElementType(), childIndex), childIndex);
+		updateElementIndices(childIndex + 1);
+		update();
+	}
+
+	@Override
+	public void remove(int childIndex) {
+		ensureLoaded();
+		markDirty();
+		super.remove(childIndex);
+		if (!isArray())
+			return;
+
+		int length = getArrayLength();
+		Object array = newArray(length - 1);
+		System.arraycopy(this.value, 0, array, 0, childIndex);
+		System.arraycopy(this.value, childIndex + 1, array, childIndex, length - childIndex - 1);
+		this.value = array;
+
+		updateElementIndices(childIndex);
+		update();
+	}
+
+	/**
+	 * Removes several children in a single pass over the remaining ones, instead of shifting them once per removed
+	 * child
+	 *
+	 * @param childIndices The indices of the children to remove, in ascending order
+	 */
+	public void removeChildren(int[] childIndices) {
+		if (childIndices.length == 0)
+			return;
+		ensureLoaded();
+		markDirty();
+
+		int length = this.children.size();
+		int write = childIndices[0];
+		for (int i = 0; i < childIndices.length; i++) {
+			TreeNode child = this.children.get(childIndices[i]);
+			if (child != null)
+				((MutableTreeNode) child).setParent(null);
+			int end = i + 1 < childIndices.length ? childIndices[i + 1] : length;
+			for (int j = childIndices[i] + 1; j < end; j++)
+				this.children.set(write++, this.children.get(j));
+		}
+		this.children.setSize(write);
+		if (!isArray())
+			return;
+
+		Object array = newArray(write);
+		System.arraycopy(this.value, 0, array, 0, childIndices[0]);
+		write = childIndices[0];
+		for (int i = 0; i < childIndices.length; i++) {
+			int end = i + 1 < childIndices.length ? childIndices[i + 1] : length;
+			System.arraycopy(this.value, childIndices[i] + 1, array, write, end - childIndices[i] - 1);
+			write += end - childIndices[i] - 1;
+		}
+		this.value = array;
+
+		updateElementIndices(childIndices[0]);
+		update();
+	}
+
+	/**
+	 * Inserts several children in a single pass, the counterpart of {@link #removeChildren(int[])}. Like with
+	 * {@link #insert(MutableTreeNode, int)}, only the values of the children are copied into arrays.
+	 *
+	 * @param childIndices The indices the children end up at, in ascending order
+	 * @param newChildren  The children which are not part of any other node
+	 */
+	public void insertChildren(int[] childIndices, NBTTagTreeNode[] newChildren) {
+		if (childIndices.length == 0)
+			return;
+		ensureLoaded();
+		markDirty();
+
+		if (isArray()) {
+			int length = getArrayLength() + childIndices.length;
+			Object array = newArray(length);
+			Object oldArray = this.value;
+			this.value = array;
+			for (int i = 0, read = 0, inserted = 0; i < length; i++) {
+				if (inserted < childIndices.length && childIndices[inserted] == i)
+					setArrayElement(i, newChildren[inserted++].getValue());
+				else
+					System.arraycopy(oldArray, read++, array, i, 1);
+			}
+			//The element nodes are created again on demand
+			if (this.children != null) {
+				detachElements();
+				this.children = null;
+			}
+			update();
+			return;
+		}
+
+		int length = getChildCount() + childIndices.length;
+		Vector<TreeNode> children = new Vector<>(length);
+		for (int i = 0, read = 0, inserted = 0; i < length; i++) {
+			if (inserted < childIndices.length && childIndices[inserted] == i) {
+				NBTTagTreeNode child = newChildren[inserted++];
+				child.setParent(this);
+				children.add(child);
+			} else {
+				children.add(this.children.get(read++));
+			}
+		}
+		this.children = children;
+	}
+
+	@Override
+	public void removeAllChildren() {
+		if (!isArray()) {
+			super.removeAllChildren();
+			return;
+		}
+
+		if (this.children != null) {
+			detachElements();
+			this.children.clear();
+		}
+		this.value = newArray(0);
+		markDirty();
 		update();
 	}
 
-	private void update() {
-		setUserObject(this.name + ": " + getValueAsString());
+	private void updateElementIndices(int from) {
+		for (int i = from; i < this.children.size(); i++) {
+			NBTArrayElementTreeNode element = (NBTArrayElementTreeNode) this.children.get(i);
+			if (element != null)
+				element.setIndex(i);
+		}
+	}
+
+	private void detachElements() {
+		for (TreeNode child : this.children) {
+			if (child != null)
+				((MutableTreeNode) child).setParent(null);
+		}
+	}
+
+	public boolean isArray() {
+		return this.type == NBTTagType.BYTE_ARRAY || this.type == NBTTagType.INT_ARRAY ||
+				this.type == NBTTagType.LONG_ARRAY;
+	}
+
+	public int getArrayLength() {
+		switch (this.type) {
+			case BYTE_ARRAY:
+				return ((byte[]) this.value).length;
+			case INT_ARRAY:
+				return ((int[]) this.value).length;
+			case LONG_ARRAY:
+				return ((long[]) this.value).length;
+			default:
+				throw new IllegalStateException("Not an array: " + this.type);
+		}
+	}
+
+	Object getArrayElement(int index) {
+		switch (this.type) {
+			case BYTE_ARRAY:
+				return ((byte[]) this.value)[index];
+			case INT_ARRAY:
+				return ((int[]) this.value)[index];
+			case LONG_ARRAY:
+				return ((long[]) this.value)[index];
+			default:
+				throw new IllegalStateException("Not an array: " + this.type);
+		}
+	}
+
+	void setArrayElement(int index, Object element) {
+		markDirty();
+		switch (this.type) {
+			case BYTE_ARRAY:
+				((byte[]) this.value)[index] = (Byte) element;
+				break;
+			case INT_ARRAY:
+				((int[]) this.value)[index] = (Integer) element;
+				break;
+			case LONG_ARRAY:
+				((long[]) this.value)[index] = (Long) element;
+				break;
+			default:
+				throw new IllegalStateException("Not an array: " + this.type);
+		}
+	}
+
+	private NBTTagType getElementType() {
+		switch (this.type) {
+			case BYTE_ARRAY:
+				return NBTTagType.BYTE;
+			case INT_ARRAY:
+				return NBTTagType.INT;
+			case LONG_ARRAY:
+				return NBTTagType.LONG;
+			default:
+				throw new IllegalStateException("Not an array: " + this.type);
+		}
+	}
+
+	private Object newArray(int length) {
+		switch (this.type) {
+			case BYTE_ARRAY:
+				return new byte[length];
+			case INT_ARRAY:
+				return new int[length];
+			case LONG_ARRAY:
+				return new long[length];
+			default:
+				throw new IllegalStateException("Not an array: " + this.type);
+		}
+	}
+
+	/**
+	 * Drops the cached label of this node, it is created again the next time the tree shows the node
+	 */
+	protected void update() {
+		this.label = null;
+	}
+
+	/**
+	 * @return The text shown in the tree, made up of the name and the value
+	 */
+	public String getLabel() {
+		//The index of list elements changes without them noticing
+		if (isListElement())
+			return getName() + ": " + getValueAsString();
+
+		String label = this.label;
+		if (label == null)
+			this.label = label = getName() + ": " + getValueAsString();
+		return label;
+	}
+
+	@Override
+	public Object getUserObject() {
+		return getLabel();
+	}
+
+	@Override
+	public String toString() {
+		return getLabel();
 	}
 
 	public NBTTagType getType() {
 		return this.type;
 	}
 
+	/**
+	 * @return The name of the tag, or the index for elements of a list, which have no name
+	 */
 	public String getName() {
+		if (isListElement())
+			return "[" + this.parent.getIndex(this) + "]";
 		return this.name;
 	}
 
+	public boolean isListElement() {
+		return this.parent instanceof NBTTagTreeNode && ((NBTTagTreeNode) this.parent).type == NBTTagType.LIST;
+	}
+
 	public Object getValue() {
 		return this.value;
 	}
@@ -49,22 +583,35 @@ public class NBTTagTreeNode extends DefaultMutableTreeNode {
 
 	public void setName(String name) {
 		this.name = name;
+		//The name is encoded in the payload of the parent
+		if (this.parent != null)
+			((NBTTagTreeNode) this.parent).markDirty();
+		clearSnapshots();
 		update();
 	}
 
 	public void setValue(Object value) {
+		if (isArray() && this.children != null) {
+			//Element nodes of the old array are recreated on demand
+			detachElements();
+			this.children = null;
+		}
 		this.value = value;
+		markDirty();
 		update();
 	}
 
 	public String getValueAsString() {
+		Object value = getValue();
 		String stringValue = "Unknown value type";
-		if (this.value == null)
+		if (value == null)
 			stringValue = "";
-		else if (this.value instanceof String)
-			stringValue = "\"" + this.value + "\"";
-		else if (this.value instanceof Number)
-			stringValue = DECIMAL_FORMAT.format(this.value);
+		else if (value instanceof String)
+			stringValue = "\"" + value + "\"";
+		else if (value instanceof Number)
+			stringValue = NBTNumberFormat.format((Number) value);
+		else if (isArray())
+			stringValue = "\"" + getArrayLength() + " elements\"";
 		return stringValue;
 	}
 }
@@ -7,9 +7,9 @@ import java.util.function.Function;
 
 public enum NBTTagType {
 
-	COMPOUND((byte) 10, IconLoader.getIcon("/icons/TAG_Compound.png", NBTTagType.class), true, false, null, null, null),
-	LIST((byte) 9, IconLoader.getIcon("/icons/TAG_List.png", NBTTagType.class), true, false, null, null, null),
-	BYTE((byte) 1, IconLoader.getIcon("/icons/TAG_Byte.png", NBTTagType.class), false, true, (byte) 0, (v) -> {
+	COMPOUND((byte) 10, "/icons/TAG_Compound.png", true, false, null, null, null),
+	LIST((byte) 9, "/icons/TAG_List.png", true, false, null, null, null),
+	BYTE((byte) 1, "/icons/TAG_Byte.png", false, true, (byte) 0, (v) -> {
 		try {
 			Byte.parseByte(v);
 			return true;
@@ -17,7 +17,7 @@ public enum NBTTagType {
 			return false;
 		}
 	}, Byte::parseByte),
-	SHORT((byte) 2, IconLoader.getIcon("/icons/TAG_Short.png", NBTTagType.class), false, true, (short) 0, (v) -> {
+	SHORT((byte) 2, "/icons/TAG_Short.png", false, true, (short) 0, (v) -> {
 		try {
 			Short.parseShort(v);
 			return true;
@@ -25,7 +25,7 @@ public enum NBTTagType {
 			return false;
 		}
 	}, Short::parseShort),
-	FLOAT((byte) 5, IconLoader.getIcon("/icons/TAG_Float.png", NBTTagType.class), false, true, 0.0F, (v) -> {
+	FLOAT((byte) 5, "/icons/TAG_Float.png", false, true, 0.0F, (v) -> {
 		try {
 			Float.parseFloat(v);
 			return true;
@@ -33,7 +33,7 @@ public enum NBTTagType {
 			return false;
 		}
 	}, Float::parseFloat),
-	INT((byte) 3, IconLoader.getIcon("/icons/TAG_Int.png", NBTTagType.class), false, true, 0, (v) -> {
+	INT((byte) 3, "/icons/TAG_Int.png", false, true, 0, (v) -> {
 		try {
 			Integer.parseInt(v);
 			return true;
@@ -41,7 +41,7 @@ public enum NBTTagType {
 			return false;
 		}
 	}, Integer::parseInt),
-	LONG((byte) 4, IconLoader.getIcon("/icons/TAG_Long.png", NBTTagType.class), false, true, 0L, (v) -> {
+	LONG((byte) 4, "/icons/TAG_Long.png", false, true, 0L, (v) -> {
 		try {
 			Long.parseLong(v);
 			return true;
@@ -49,7 +49,7 @@ public enum NBTTagType {
 			return false;
 		}
 	}, Long::parseLong),
-	DOUBLE((byte) 6, IconLoader.getIcon("/icons/TAG_Double.png", NBTTagType.class), false, true, 0.0D, (v) -> {
+	DOUBLE((byte) 6, "/icons/TAG_Double.png", false, true, 0.0D, (v) -> {
 		try {
 			Double.parseDouble(v);
 			return true;
@@ -57,18 +57,22 @@ public enum NBTTagType {
 			return false;
 		}
 	}, Double::parseDouble),
-	BYTE_ARRAY((byte) 7, IconLoader.getIcon("/icons/TAG_Byte_Array.png", NBTTagType.class), true, false, null, null,
-			null),
-	INT_ARRAY((byte) 11, IconLoader.getIcon("/icons/TAG_Int_Array.png", NBTTagType.class), true, false, null, null,
-			null),
-	LONG_ARRAY((byte) 12, IconLoader.getIcon("/icons/TAG_Int_Array.png", NBTTagType.class), true, false, null, null,
-			null),
-	STRING((byte) 8, IconLoader.getIcon("/icons/TAG_String.png", NBTTagType.class), false, true, "",
+	BYTE_ARRAY((byte) 7, "/icons/TAG_Byte_Array.png", true, false, new byte[0],
+			null, null),
+	INT_ARRAY((byte) 11, "/icons/TAG_Int_Array.png", true, false, new int[0],
+			null, null),
+	LONG_ARRAY((byte) 12, "/icons/TAG_Int_Array.png", true, false, new long[0],
+			null, null),
+	STRING((byte) 8, "/icons/TAG_String.png", false, true, "",
 			(v) -> v != null && v.length() < 32767,
 			(s) -> s);
 
 	private final byte id;
-	private final Icon icon;
+	private final String iconPath;
+	/**
+	 * Loaded when it is needed for the first time, so decoding and encoding work without the IDE
+	 */
+	private Icon icon;
 	private final boolean allowsChildren;
 	private final boolean hasValue;
 	private final Object defaultValue;
@@ -76,14 +80,14 @@ public enum NBTTagType {
 	private final Function<String, Object> stringToValueConverter;
 
 	NBTTagType(byte id,
-	           Icon icon,
+	           String iconPath,
 	           boolean allowsChildren,
 	           boolean hasValue,
 	           Object defaultValue,
 	           Function<String, Boolean> valueValidator,
 	           Function<String, Object> stringToValueConverter) {
 		this.id = id;
-		this.icon = icon;
+		this.iconPath = iconPath;
 		this.allowsChildren = allowsChildren;
 		this.hasValue = hasValue;
 		this.defaultValue = defaultValue;
@@ -104,7 +108,9 @@ public enum NBTTagType {
 	}
 
 	public Icon getIcon() {
-		return icon;
+		if (this.icon == null)
+			this.icon = IconLoader.getIcon(this.iconPath, NBTTagType.class);
+		return this.icon;
 	}
 
 	public Object getDefaultValue() {
@@ -0,0 +1,134 @@
+package com.github.tth05.minecraftnbtintellijplugin;
+
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTReader;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSource;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTTreeDecoder;
+import com.github.tth05.minecraftnbtintellijplugin.util.RegionFile;
+import com.intellij.openapi.util.text.StringUtil;
+
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * The root compound of a chunk inside of a region file. The chunk is only read and decompressed once its children
+ * are accessed for the first time.
+ */
+public class RegionChunkTreeNode extends NBTTagTreeNode {
+
+	private final RegionFile region;
+	private final int index;
+	/**
+	 * The name of the root tag of the chunk, which is usually empty
+	 */
+	private String rootName = "";
+	private String error;
+	/**
+	 * The result of {@link #prepare()}, until the children are accessed
+	 */
+	private volatile Decoded prepared;
+
+	public RegionChunkTreeNode(RegionFile region, int index) {
+		super(NBTTagType.COMPOUND, "Chunk [" + region.getChunkX(index) + ", " + region.getChunkZ(index) + "]", null);
+		this.region = region;
+		this.index = index;
+		setLazyChildren(0);
+	}
+
+	/**
+	 * Decodes the chunk ahead of time into nodes which are not attached to it yet. Can be called from any thread, the
+	 * nodes are only added to the chunk once its children are accessed on the EDT.
+	 */
+	public void prepare() {
+		if (!isLoaded() && this.prepared == null)
+			this.prepared = decode();
+	}
+
+	@Override
+	protected void decodeLazyChildren() {
+		Decoded decoded = this.prepared != null ? this.prepared : decode();
+		this.prepared = null;
+		if (decoded.error != null) {
+			this.error = decoded.error;
+		} else {
+			this.rootName = decoded.rootName;
+			for (TreeNode child : Collections.list(decoded.holder.children()))
+				add((MutableTreeNode) child);
+			setEncodedPayload(decoded.source, decoded.offset, decoded.length);
+		}
+		update();
+	}
+
+	private Decoded decode() {
+		Decoded decoded = new Decoded();
+		try {
+			NBTSource source = this.region.readChunk(this.index);
+			NBTReader reader = source.open(0);
+			int type = reader.readUnsignedByte();
+			if (type != 10)
+				throw new IOException("Chunk root is not a compound: " + type);
+			decoded.rootName = reader.readString();
+
+			//Chunks are small, everything inside of them is decoded at once
+			int offset = reader.position();
+			new NBTTreeDecoder(source, false, null).decodeChildren(decoded.holder, reader);
+			decoded.source = source;
+			decoded.offset = offset;
+			decoded.length = reader.position() - offset;
+		} catch (IOException | RuntimeException e) {
+			//Broken chunks are common in old worlds, they should not prevent looking at the rest of the region
+			decoded.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+		}
+		return decoded;
+	}
+
+	@Override
+	public boolean isLeaf() {
+		return isLoaded() && super.isLeaf();
+	}
+
+	/**
+	 * @return The index of the chunk in its region
+	 */
+	public int getChunkIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return {@code true} if the chunk was changed since it was decoded or last saved
+	 */
+	public boolean isModified() {
+		return isLoaded() && this.error == null && isDirty();
+	}
+
+	/**
+	 * Takes a snapshot of the chunk which is about to be written back into the region. The chunk is treated as saved
+	 * from now on, until it is changed again.
+	 */
+	public NBTTag takeSnapshot() {
+		NBTTag tag = NBTTag.of(this).withName(this.rootName);
+		markSaved();
+		return tag;
+	}
+
+	@Override
+	public String getValueAsString() {
+		if (this.error != null)
+			return "\"" + this.error + "\"";
+		return "\"" + StringUtil.formatFileSize((long) this.region.getSectorCount(this.index) * RegionFile.SECTOR_SIZE) + "\"";
+	}
+
+	/**
+	 * The children of a chunk which were decoded, but not added to it yet
+	 */
+	private static final class Decoded {
+
+		private final NBTTagTreeNode holder = new NBTTagTreeNode(NBTTagType.COMPOUND, "", null);
+		private String rootName = "";
+		private NBTSource source;
+		private int offset;
+		private int length;
+		private String error;
+	}
+}
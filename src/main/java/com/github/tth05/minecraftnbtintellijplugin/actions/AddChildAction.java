@@ -4,15 +4,11 @@ import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
 import com.github.tth05.minecraftnbtintellijplugin.editor.dialogs.CreateNewNodeDialog;
 import com.github.tth05.minecraftnbtintellijplugin.editor.ui.NBTFileEditorUI;
-import com.github.tth05.minecraftnbtintellijplugin.util.NBTFileUtil;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import org.jetbrains.annotations.NotNull;
 
-import javax.swing.tree.DefaultTreeModel;
-import javax.swing.tree.TreePath;
-
 public class AddChildAction extends AnAction {
 
 	public AddChildAction() {
@@ -48,11 +44,10 @@ public class AddChildAction extends AnAction {
 				if (type == null)
 					throw new IllegalStateException("Type of child could not be determined!");
 
-				((DefaultTreeModel) nbtFileEditorUI.getTree().getModel()).insertNodeInto(
-						new NBTTagTreeNode(type, selectedNode.getChildCount() + "", type.getDefaultValue()),
-						selectedNode, selectedNode.getChildCount());
-				nbtFileEditorUI.getTree().expandPath(new TreePath(selectedNode.getPath()));
-				NBTFileUtil.saveTree(e);
+				NBTTagTreeNode child = new NBTTagTreeNode(type, "", type.getDefaultValue());
+				nbtFileEditorUI.edit("Add Child",
+						transaction -> transaction.insert(selectedNode, child, selectedNode.getChildCount()));
+				nbtFileEditorUI.getTree().expandPath(nbtFileEditorUI.getTreeModel().getTreePath(selectedNode));
 				return;
 			}
 
@@ -64,17 +59,11 @@ public class AddChildAction extends AnAction {
 			if (!exitCode)
 				return;
 
-
-			((DefaultTreeModel) nbtFileEditorUI.getTree().getModel()).insertNodeInto(
-					new NBTTagTreeNode(createNewNodeDialog.getType(),
-							createNewNodeDialog.getName(),
-							createNewNodeDialog.getType().getDefaultValue()
-					),
-					selectedNode,
-					selectedNode.getChildCount()
-			);
-			nbtFileEditorUI.getTree().expandPath(new TreePath(selectedNode.getPath()));
-			NBTFileUtil.saveTree(e);
+			NBTTagTreeNode child = new NBTTagTreeNode(createNewNodeDialog.getType(), createNewNodeDialog.getName(),
+					createNewNodeDialog.getType().getDefaultValue());
+			nbtFileEditorUI.edit("Add Child",
+					transaction -> transaction.insert(selectedNode, child, selectedNode.getChildCount()));
+			nbtFileEditorUI.getTree().expandPath(nbtFileEditorUI.getTreeModel().getTreePath(selectedNode));
 		}
 	}
 }
@@ -0,0 +1,56 @@
+package com.github.tth05.minecraftnbtintellijplugin.actions;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import com.github.tth05.minecraftnbtintellijplugin.editor.dialogs.LevelDBBrowserDialog;
+import com.github.tth05.minecraftnbtintellijplugin.util.leveldb.LevelDB;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * Opens the world database of a Bedrock edition world. Available on the {@code db} folder itself and on the world
+ * folder containing it.
+ */
+public class BrowseLevelDBAction extends AnAction {
+
+	public BrowseLevelDBAction() {
+		super("Browse LevelDB", "Browse the NBT data in a LevelDB world database", NBTTagType.COMPOUND.getIcon());
+	}
+
+	@Override
+	public void update(@NotNull AnActionEvent e) {
+		e.getPresentation().setEnabledAndVisible(e.getProject() != null && findDatabase(e.getData(CommonDataKeys.VIRTUAL_FILE)) != null);
+	}
+
+	@NotNull
+	@Override
+	public ActionUpdateThread getActionUpdateThread() {
+		return ActionUpdateThread.BGT;
+	}
+
+	@Override
+	public void actionPerformed(@NotNull AnActionEvent e) {
+		Path directory = findDatabase(e.getData(CommonDataKeys.VIRTUAL_FILE));
+		if (directory != null && e.getProject() != null)
+			new LevelDBBrowserDialog(e.getProject(), directory).show();
+	}
+
+	@Nullable
+	private static Path findDatabase(@Nullable VirtualFile file) {
+		if (file == null || !file.isDirectory() || !file.isInLocalFileSystem())
+			return null;
+
+		Path directory = file.toNioPath();
+		if (LevelDB.isLevelDB(directory))
+			return directory;
+		if (LevelDB.isLevelDB(directory.resolve("db")))
+			return directory.resolve("db");
+		return null;
+	}
+}
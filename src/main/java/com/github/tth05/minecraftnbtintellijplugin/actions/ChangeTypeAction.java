@@ -3,16 +3,10 @@ package com.github.tth05.minecraftnbtintellijplugin.actions;
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.editor.dialogs.ChooseTypeDialog;
 import com.github.tth05.minecraftnbtintellijplugin.editor.ui.NBTFileEditorUI;
-import com.github.tth05.minecraftnbtintellijplugin.util.NBTFileUtil;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import org.jetbrains.annotations.NotNull;
 
-import javax.swing.tree.DefaultTreeModel;
-import javax.swing.tree.TreeNode;
-import java.util.Enumeration;
-import java.util.stream.IntStream;
-
 public class ChangeTypeAction extends AnAction {
 
 	public ChangeTypeAction() {
@@ -31,19 +25,8 @@ public class ChangeTypeAction extends AnAction {
 			if (!exitCode || chooseTypeDialog.getResult() == selectedNode.getType())
 				return;
 
-			int[] childIndices = IntStream.range(0, selectedNode.getChildCount()).toArray();
-			Object[] children = new Object[selectedNode.getChildCount()];
-			Enumeration<TreeNode> enumeration = selectedNode.children();
-			for (int i = 0; enumeration.hasMoreElements(); i++) {
-				children[i] = enumeration.nextElement();
-			}
-
-
-			selectedNode.removeAllChildren();
-			((DefaultTreeModel) nbtFileEditorUI.getTree().getModel())
-					.nodesWereRemoved(selectedNode, childIndices, children);
-			selectedNode.setType(chooseTypeDialog.getResult());
-			NBTFileUtil.saveTree(e);
+			nbtFileEditorUI.edit("Change Type",
+					transaction -> transaction.setType(selectedNode, chooseTypeDialog.getResult()));
 		}
 	}
 }
@@ -2,7 +2,6 @@ package com.github.tth05.minecraftnbtintellijplugin.actions;
 
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.editor.ui.NBTFileEditorUI;
-import com.github.tth05.minecraftnbtintellijplugin.util.NBTFileUtil;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
@@ -40,9 +39,8 @@ public class ChangeValueAction extends AnAction {
 						}
 					});
 			if (inputString != null) {
-				selectedNode.setValue(selectedNode.getType().getStringToValueConverter().apply(inputString));
-				nbtFileEditorUI.repaint();
-				NBTFileUtil.saveTree(e);
+				Object value = selectedNode.getType().getStringToValueConverter().apply(inputString);
+				nbtFileEditorUI.edit("Change Value", transaction -> transaction.setValue(selectedNode, value));
 			}
 		}
 	}
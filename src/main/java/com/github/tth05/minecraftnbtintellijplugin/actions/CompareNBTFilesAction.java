@@ -0,0 +1,136 @@
+package com.github.tth05.minecraftnbtintellijplugin.actions;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTFileType;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFileUtil;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFormatDetector;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTTreeDiff;
+import com.github.tth05.minecraftnbtintellijplugin.util.RegionFile;
+import com.intellij.diff.DiffContentFactory;
+import com.intellij.diff.DiffManager;
+import com.intellij.diff.requests.SimpleDiffRequest;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.fileTypes.FileTypeRegistry;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Compares the tags of two selected NBT files and shows the differences in the diff viewer. The format of each file
+ * is detected on its own, so files of different editions can be compared as well. Both files are loaded lazily and
+ * only the parts which differ are decoded, see {@link NBTTreeDiff}. Region files are not supported.
+ */
+public class CompareNBTFilesAction extends AnAction {
+
+	private static final String TITLE = "Compare NBT Files";
+
+	public CompareNBTFilesAction() {
+		super(TITLE, "Show the tags which differ between two NBT files", null);
+	}
+
+	@Override
+	public void update(@NotNull AnActionEvent e) {
+		e.getPresentation().setEnabledAndVisible(e.getProject() != null && getFiles(e) != null);
+	}
+
+	@NotNull
+	@Override
+	public ActionUpdateThread getActionUpdateThread() {
+		return ActionUpdateThread.BGT;
+	}
+
+	@Override
+	public void actionPerformed(@NotNull AnActionEvent e) {
+		Project project = e.getProject();
+		VirtualFile[] files = getFiles(e);
+		if (project == null || files == null)
+			return;
+
+		new Task.Backgroundable(project, "Comparing " + files[0].getName() + " and " + files[1].getName(), true) {
+			private NBTTreeDiff diff;
+			private String error;
+
+			@Override
+			public void run(@NotNull ProgressIndicator indicator) {
+				indicator.setIndeterminate(false);
+				NBTTagTreeNode left = load(files[0], indicator);
+				NBTTagTreeNode right = left != null ? load(files[1], indicator) : null;
+				if (right == null)
+					return;
+
+				indicator.setIndeterminate(true);
+				indicator.setText("Comparing tags");
+				indicator.setText2(null);
+				try {
+					this.diff = NBTTreeDiff.compare(left, right, indicator);
+				} catch (ProcessCanceledException e) {
+					throw e;
+				} catch (IOException | RuntimeException e) {
+					//Corrupted data can fail in many ways, every one of them is reported
+					this.error = "The files could not be compared: " + e.getMessage();
+				}
+			}
+
+			@Nullable
+			private NBTTagTreeNode load(VirtualFile file, ProgressIndicator indicator) {
+				try {
+					NBTFormatDetector.Result format = NBTFormatDetector.detect(file);
+					if (format != null) {
+						NBTTagTreeNode root = (NBTTagTreeNode) NBTFileUtil.loadNBTFileIntoTree(file, format.getFormat(),
+								format.getCompression(), format.isLevelDat() ? new MutableInt() : null, true, indicator);
+						if (root != null)
+							return root;
+					}
+				} catch (IOException e) {
+					//Reported below like any other file which cannot be read
+				}
+				this.error = file.getName() + " is not a valid NBT file";
+				return null;
+			}
+
+			@Override
+			public void onSuccess() {
+				if (this.diff == null) {
+					Messages.showErrorDialog(project, this.error, TITLE);
+					return;
+				}
+
+				DiffContentFactory contents = DiffContentFactory.getInstance();
+				String title = this.diff.isIdentical() ? "The files contain the same tags" :
+						this.diff.getChangedCount() + " changed, " + this.diff.getAddedCount() + " added, " +
+								this.diff.getRemovedCount() + " removed tags";
+				DiffManager.getInstance().showDiff(project, new SimpleDiffRequest(title,
+						contents.create(project, this.diff.getLeftText()), contents.create(project, this.diff.getRightText()),
+						files[0].getName(), files[1].getName()));
+			}
+		}.queue();
+	}
+
+	/**
+	 * @return The two selected files, or {@code null} if the selection is not exactly two NBT files
+	 */
+	@Nullable
+	private static VirtualFile[] getFiles(AnActionEvent e) {
+		VirtualFile[] files = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+		if (files == null || files.length != 2)
+			return null;
+
+		for (VirtualFile file : files) {
+			if (file.isDirectory() || RegionFile.isRegionFile(file) ||
+					!FileTypeRegistry.getInstance().isFileOfType(file, NBTFileType.INSTANCE))
+				return null;
+		}
+		return files;
+	}
+}
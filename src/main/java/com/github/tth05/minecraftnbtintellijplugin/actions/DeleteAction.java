@@ -1,14 +1,12 @@
 package com.github.tth05.minecraftnbtintellijplugin.actions;
 
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.editor.ui.NBTFileEditorUI;
-import com.github.tth05.minecraftnbtintellijplugin.util.NBTFileUtil;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import org.jetbrains.annotations.NotNull;
 
-import javax.swing.tree.DefaultTreeModel;
-import javax.swing.tree.MutableTreeNode;
 import javax.swing.tree.TreePath;
 
 public class DeleteAction extends AnAction {
@@ -21,10 +19,17 @@ public class DeleteAction extends AnAction {
 	public void actionPerformed(@NotNull AnActionEvent e) {
 		NBTFileEditorUI nbtFileEditorUI = e.getData(NBTFileEditorUI.DATA_KEY);
 		if (nbtFileEditorUI != null) {
-			DefaultTreeModel treeModel = ((DefaultTreeModel) nbtFileEditorUI.getTree().getModel());
-			for (TreePath path : nbtFileEditorUI.getTree().getSelectionModel().getSelectionPaths())
-				treeModel.removeNodeFromParent((MutableTreeNode) path.getLastPathComponent());
-			NBTFileUtil.saveTree(e);
+			TreePath[] paths = nbtFileEditorUI.getTree().getSelectionModel().getSelectionPaths();
+			//The transaction removes the selected children of a parent together, and nodes below another selected
+			//node with it
+			nbtFileEditorUI.edit("Delete", transaction -> {
+				for (TreePath path : paths) {
+					Object node = path.getLastPathComponent();
+					//The root cannot be deleted
+					if (node instanceof NBTTagTreeNode && ((NBTTagTreeNode) node).getParent() != null)
+						transaction.remove((NBTTagTreeNode) node);
+				}
+			});
 		}
 	}
 }
@@ -2,6 +2,7 @@ package com.github.tth05.minecraftnbtintellijplugin.actions;
 
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import com.github.tth05.minecraftnbtintellijplugin.RegionChunkTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.editor.ui.NBTFileEditorUI;
 import com.intellij.openapi.actionSystem.ActionGroup;
 import com.intellij.openapi.actionSystem.AnAction;
@@ -10,7 +11,9 @@ import com.intellij.openapi.actionSystem.Separator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import javax.swing.tree.TreePath;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class NBTFileEditorPopupGroup extends ActionGroup {
@@ -21,7 +24,18 @@ public class NBTFileEditorPopupGroup extends ActionGroup {
 			return new AnAction[0];
 
 		NBTFileEditorUI nbtFileEditorUI = e.getData(NBTFileEditorUI.DATA_KEY);
-		if (nbtFileEditorUI != null) {
+		if (nbtFileEditorUI != null && !nbtFileEditorUI.isReadOnly()) {
+			TreePath[] selection = nbtFileEditorUI.getTree().getSelectionPaths();
+			//Pages of big nodes only exist in the editor
+			if (selection != null && Arrays.stream(selection).anyMatch(path -> !(path.getLastPathComponent() instanceof NBTTagTreeNode)))
+				return new AnAction[0];
+			//The root of a region and its chunks only exist in the editor, they can not be changed
+			if (nbtFileEditorUI.isRegion() && selection != null && Arrays.stream(selection).anyMatch(path ->
+					path.getPathCount() == 1 || path.getLastPathComponent() instanceof RegionChunkTreeNode)) {
+				NBTTagTreeNode selected = (NBTTagTreeNode) selection[0].getLastPathComponent();
+				return selection.length == 1 && selected instanceof RegionChunkTreeNode ? new AnAction[] {new AddChildAction()} : new AnAction[0];
+			}
+
 			if (nbtFileEditorUI.getTree().getSelectionModel().getSelectionCount() > 1)
 				//Only delete on multi-select
 				return new AnAction[] {new DeleteAction()};
@@ -2,7 +2,6 @@ package com.github.tth05.minecraftnbtintellijplugin.actions;
 
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.editor.ui.NBTFileEditorUI;
-import com.github.tth05.minecraftnbtintellijplugin.util.NBTFileUtil;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
@@ -36,9 +35,7 @@ public class RenameAction extends AnAction {
 						}
 					});
 			if (inputString != null) {
-				selectedNode.setName(inputString);
-				nbtFileEditorUI.repaint();
-				NBTFileUtil.saveTree(e);
+				nbtFileEditorUI.edit("Rename Tag", transaction -> transaction.setName(selectedNode, inputString));
 			}
 		}
 	}
@@ -13,19 +13,20 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.JComponent;
-import javax.swing.tree.TreePath;
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
-import java.util.List;
 
 public class NBTFileEditor extends UserDataHolderBase implements FileEditor {
 
 	private final NBTFileEditorUI component;
 	private final VirtualFile file;
+	/**
+	 * The state which was set before the tree was loaded
+	 */
+	private NBTFileEditorState pendingState;
 
 	public NBTFileEditor(VirtualFile file, Project project) {
 		this.file = file;
-		this.component = new NBTFileEditorUI(file, project);
+		this.component = new NBTFileEditorUI(file, project, this);
 	}
 
 	@NotNull
@@ -48,32 +49,24 @@ public class NBTFileEditor extends UserDataHolderBase implements FileEditor {
 
 	@Override
 	public void setState(@NotNull FileEditorState state) {
-		if (!(state instanceof NBTFileEditorState) || this.component.getTree() == null)
+		if (!(state instanceof NBTFileEditorState))
 			return;
-		NBTFileEditorState editorState = (NBTFileEditorState) state;
-		for (int i = 0; i < this.component.getTree().getRowCount(); i++) {
-			TreePath treePath = this.component.getTree().getPathForRow(i);
-			if (editorState.getOpenedNodes().contains(treePath.toString())) {
-				this.component.getTree().expandRow(i);
-			}
-		}
+		//The file may still be loading, the state is restored once the tree exists
+		this.pendingState = (NBTFileEditorState) state;
+		this.component.whenTreeShown(() -> {
+			if (this.pendingState == null)
+				return;
+			this.pendingState.restore(this.component.getTree());
+			this.pendingState = null;
+		});
 	}
 
 	@NotNull
 	@Override
 	public FileEditorState getState(@NotNull FileEditorStateLevel level) {
 		if (this.component.getTree() == null)
-			return new NBTFileEditorState(new ArrayList<>());
-
-		List<String> expanded = new ArrayList<>();
-		for (int i = 0; i < this.component.getTree().getRowCount(); i++) {
-			TreePath currPath = this.component.getTree().getPathForRow(i);
-			TreePath nextPath = this.component.getTree().getPathForRow(i + 1);
-			if (currPath.isDescendant(nextPath)) {
-				expanded.add(currPath.toString());
-			}
-		}
-		return new NBTFileEditorState(expanded);
+			return this.pendingState != null ? this.pendingState : NBTFileEditorState.EMPTY;
+		return NBTFileEditorState.capture(this.component.getTree());
 	}
 
 	@NotNull
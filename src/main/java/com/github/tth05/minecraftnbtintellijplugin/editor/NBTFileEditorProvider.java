@@ -12,9 +12,6 @@ import com.intellij.openapi.vfs.VirtualFile;
 import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class NBTFileEditorProvider implements FileEditorProvider, DumbAware {
 	@Override
 	public boolean accept(@NotNull Project project, @NotNull VirtualFile file) {
@@ -31,33 +28,15 @@ public class NBTFileEditorProvider implements FileEditorProvider, DumbAware {
 	@Override
 	public FileEditorState readState(@NotNull Element sourceElement, @NotNull Project project,
 	                                 @NotNull VirtualFile file) {
-		List<String> openedNodes = new ArrayList<>();
-
-		Element rootElement = sourceElement.getChild("openedNodes");
-		for (int i = 0; ; i++) {
-			String text = rootElement.getChildText("index" + i);
-			if (text == null)
-				break;
-			openedNodes.add(text);
-		}
-
-		return new NBTFileEditorState(openedNodes);
+		//States of older versions have no such attribute and are dropped
+		String expanded = sourceElement.getAttributeValue("expanded");
+		return expanded == null ? NBTFileEditorState.EMPTY : NBTFileEditorState.deserialize(expanded);
 	}
 
 	@Override
 	public void writeState(@NotNull FileEditorState state, @NotNull Project project, @NotNull Element targetElement) {
-		if (state instanceof NBTFileEditorState) {
-			NBTFileEditorState editorState = (NBTFileEditorState) state;
-			List<String> openedNodes = editorState.getOpenedNodes();
-
-			Element rootElement = new Element("openedNodes");
-			for (int i = 0; i < openedNodes.size(); i++) {
-				Element element = new Element("index" + i);
-				element.setText(openedNodes.get(i));
-				rootElement.addContent(element);
-			}
-			targetElement.addContent(rootElement);
-		}
+		if (state instanceof NBTFileEditorState)
+			targetElement.setAttribute("expanded", ((NBTFileEditorState) state).serialize());
 	}
 
 	@NotNull
@@ -1,17 +1,32 @@
 package com.github.tth05.minecraftnbtintellijplugin.editor;
 
+import com.github.tth05.minecraftnbtintellijplugin.util.VarInts;
 import com.intellij.openapi.fileEditor.FileEditorState;
 import com.intellij.openapi.fileEditor.FileEditorStateLevel;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
+import javax.swing.JTree;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.stream.IntStream;
 
+/**
+ * Remembers which nodes of the tree are expanded. The expanded nodes are stored as a trie of child indices: every
+ * expanded node is written as the amount of its expanded children, followed by the index and the trie of each of
+ * them. The trie is empty if not even the root is expanded.
+ * <p>
+ * Indices are the ones of the tree model, so the pages of big nodes are part of the trie as well.
+ */
 public class NBTFileEditorState implements FileEditorState {
 
-	private final List<String> openedNodes;
+	public static final NBTFileEditorState EMPTY = new NBTFileEditorState(new int[0]);
 
-	public NBTFileEditorState(List<String> openedNodes) {
-		this.openedNodes = openedNodes;
+	private final int[] expanded;
+
+	private NBTFileEditorState(int[] expanded) {
+		this.expanded = expanded;
 	}
 
 	@Override
@@ -19,7 +34,112 @@ public class NBTFileEditorState implements FileEditorState {
 		return otherState instanceof NBTFileEditorState;
 	}
 
-	public List<String> getOpenedNodes() {
-		return openedNodes;
+	/**
+	 * Walks the expanded nodes of the tree once
+	 */
+	@NotNull
+	public static NBTFileEditorState capture(@NotNull JTree tree) {
+		TreePath rootPath = new TreePath(tree.getModel().getRoot());
+		if (!tree.isExpanded(rootPath))
+			return EMPTY;
+
+		IntStream.Builder trie = IntStream.builder();
+		capture(tree, tree.getModel(), rootPath, trie);
+		return new NBTFileEditorState(trie.build().toArray());
+	}
+
+	private static void capture(JTree tree, TreeModel model, TreePath path, IntStream.Builder trie) {
+		Object node = path.getLastPathComponent();
+		IntStream.Builder indices = IntStream.builder();
+		int count = 0;
+		for (int i = 0, childCount = model.getChildCount(node); i < childCount; i++) {
+			Object child = model.getChild(node, i);
+			if (!model.isLeaf(child) && tree.isExpanded(path.pathByAddingChild(child))) {
+				indices.add(i);
+				count++;
+			}
+		}
+
+		trie.add(count);
+		for (int index : indices.build().toArray()) {
+			trie.add(index);
+			capture(tree, model, path.pathByAddingChild(model.getChild(node, index)), trie);
+		}
+	}
+
+	/**
+	 * Expands the nodes of the trie in one walk. Indices which do not exist in the tree anymore are skipped together
+	 * with everything below them.
+	 */
+	public void restore(@NotNull JTree tree) {
+		if (this.expanded.length > 0)
+			restore(tree, tree.getModel(), new TreePath(tree.getModel().getRoot()), 0);
+	}
+
+	/**
+	 * @return The position after the trie of the node
+	 */
+	private int restore(JTree tree, TreeModel model, TreePath path, int position) {
+		tree.expandPath(path);
+		Object node = path.getLastPathComponent();
+		int count = this.expanded[position++];
+		for (int i = 0; i < count; i++) {
+			int index = this.expanded[position++];
+			if (index < model.getChildCount(node))
+				position = restore(tree, model, path.pathByAddingChild(model.getChild(node, index)), position);
+			else
+				position = skip(position);
+		}
+		return position;
+	}
+
+	/**
+	 * @return The position after the trie which starts at {@code position}, or {@code -1} if it is incomplete
+	 */
+	private int skip(int position) {
+		if (position >= this.expanded.length)
+			return -1;
+		int count = this.expanded[position++];
+		for (int i = 0; i < count && position >= 0; i++) {
+			if (position >= this.expanded.length || this.expanded[position] < 0)
+				return -1;
+			position = skip(position + 1);
+		}
+		return position;
+	}
+
+	/**
+	 * @return The trie as VarInts in Base64
+	 */
+	@NotNull
+	public String serialize() {
+		int size = 0;
+		for (int value : this.expanded)
+			size += VarInts.getUnsignedSize(value);
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		for (int value : this.expanded)
+			VarInts.writeUnsignedInt(buffer, value);
+		return Base64.getEncoder().encodeToString(buffer.array());
+	}
+
+	/**
+	 * @return The state written by {@link #serialize()}, or {@link #EMPTY} if the text is not a valid state
+	 */
+	@NotNull
+	public static NBTFileEditorState deserialize(@NotNull String text) {
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(text));
+			IntStream.Builder trie = IntStream.builder();
+			while (buffer.hasRemaining())
+				trie.add(VarInts.readUnsignedInt(buffer));
+
+			NBTFileEditorState state = new NBTFileEditorState(trie.build().toArray());
+			if (state.expanded.length == 0 || state.skip(0) == state.expanded.length)
+				return state;
+		} catch (RuntimeException e) {
+			//Invalid Base64 or a truncated VarInt
+		}
+		return EMPTY;
 	}
 }
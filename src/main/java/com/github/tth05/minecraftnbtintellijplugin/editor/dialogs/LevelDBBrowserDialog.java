@@ -0,0 +1,271 @@
+package com.github.tth05.minecraftnbtintellijplugin.editor.dialogs;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import com.github.tth05.minecraftnbtintellijplugin.editor.ui.NBTFileEditorTreeCellRenderer;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFormat;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSource;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTTreeDecoder;
+import com.github.tth05.minecraftnbtintellijplugin.util.leveldb.BedrockKeys;
+import com.github.tth05.minecraftnbtintellijplugin.util.leveldb.LevelDB;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.JBSplitter;
+import com.intellij.ui.SearchTextField;
+import com.intellij.ui.SimpleListCellRenderer;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBList;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.treeStructure.Tree;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.Action;
+import javax.swing.DefaultListModel;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.tree.DefaultTreeModel;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Browses the keys of a LevelDB database, like the world database of Bedrock edition. Keys are listed a page at a
+ * time and the value of a key is only read and decoded as little endian NBT once it is selected.
+ */
+public class LevelDBBrowserDialog extends DialogWrapper {
+
+	private static final int PAGE_SIZE = 500;
+
+	private final Project project;
+	private final Path directory;
+	private LevelDB database;
+
+	private final DefaultListModel<byte[]> keys = new DefaultListModel<>();
+	private final JBList<byte[]> keyList = new JBList<>(this.keys);
+	private final JButton loadMoreButton = new JButton("Load More");
+	private final SearchTextField searchField = new SearchTextField(false);
+	private final JPanel valuePanel = new JPanel(new BorderLayout());
+
+	public LevelDBBrowserDialog(@NotNull Project project, @NotNull Path directory) {
+		super(project, true, IdeModalityType.MODELESS);
+		this.project = project;
+		this.directory = directory;
+		setTitle("LevelDB: " + directory);
+
+		this.keyList.setCellRenderer(new SimpleListCellRenderer<byte[]>() {
+			@Override
+			public void customize(@NotNull JList<? extends byte[]> list, byte[] value, int index, boolean selected,
+			                      boolean hasFocus) {
+				setText(BedrockKeys.format(value));
+			}
+		});
+		this.keyList.addListSelectionListener(e -> {
+			if (!e.getValueIsAdjusting() && this.keyList.getSelectedValue() != null)
+				showValue(this.keyList.getSelectedValue());
+		});
+
+		this.loadMoreButton.setEnabled(false);
+		this.loadMoreButton.addActionListener(e -> loadKeys(this.keys.lastElement(), false, false));
+
+		this.searchField.setToolTipText("Go to a key, e.g. ~local_player, chunk(0, 0) or 0x0a0b");
+		this.searchField.getTextEditor().addActionListener(e -> {
+			if (this.database != null)
+				loadKeys(BedrockKeys.parse(this.searchField.getText()), true, true);
+		});
+
+		init();
+		open();
+	}
+
+	@Nullable
+	@Override
+	protected JComponent createCenterPanel() {
+		JPanel keyPanel = new JPanel(new BorderLayout());
+		keyPanel.add(this.searchField, BorderLayout.NORTH);
+		keyPanel.add(new JBScrollPane(this.keyList), BorderLayout.CENTER);
+		keyPanel.add(this.loadMoreButton, BorderLayout.SOUTH);
+
+		JBSplitter splitter = new JBSplitter(false, 0.35f);
+		splitter.setFirstComponent(keyPanel);
+		splitter.setSecondComponent(this.valuePanel);
+		splitter.setPreferredSize(new Dimension(900, 600));
+		return splitter;
+	}
+
+	@NotNull
+	@Override
+	protected Action[] createActions() {
+		return new Action[] {getCancelAction()};
+	}
+
+	/**
+	 * Opens the database in the background and lists the first page of keys
+	 */
+	private void open() {
+		new Task.Backgroundable(this.project, "Opening " + this.directory.getFileName(), true) {
+			private LevelDB database;
+			private List<byte[]> page;
+			private IOException error;
+
+			@Override
+			public void run(@NotNull ProgressIndicator indicator) {
+				try {
+					this.database = LevelDB.open(LevelDBBrowserDialog.this.directory);
+					this.page = this.database.listKeys(null, true, PAGE_SIZE);
+				} catch (IOException e) {
+					this.error = e;
+				}
+			}
+
+			@Override
+			public void onSuccess() {
+				if (this.error != null) {
+					showMessage("Could not open the database: " + this.error.getMessage());
+					return;
+				}
+
+				LevelDBBrowserDialog.this.database = this.database;
+				if (isDisposed()) {
+					dispose();
+					return;
+				}
+				showPage(this.page, true);
+			}
+		}.queue();
+	}
+
+	/**
+	 * Lists the next page of keys
+	 *
+	 * @param from    The key to start at
+	 * @param replace If {@code true}, the page replaces the listed keys, otherwise it is appended to them
+	 */
+	private void loadKeys(byte[] from, boolean inclusive, boolean replace) {
+		LevelDB database = this.database;
+		this.loadMoreButton.setEnabled(false);
+		new Task.Backgroundable(this.project, "Listing keys", true) {
+			private List<byte[]> page;
+			private IOException error;
+
+			@Override
+			public void run(@NotNull ProgressIndicator indicator) {
+				try {
+					this.page = database.listKeys(from, inclusive, PAGE_SIZE);
+				} catch (IOException e) {
+					this.error = e;
+				}
+			}
+
+			@Override
+			public void onSuccess() {
+				if (this.error != null) {
+					showMessage("Could not list the keys: " + this.error.getMessage());
+					return;
+				}
+				showPage(this.page, replace);
+			}
+		}.queue();
+	}
+
+	private void showPage(List<byte[]> page, boolean replace) {
+		if (replace)
+			this.keys.clear();
+		int firstIndex = this.keys.size();
+		page.forEach(this.keys::addElement);
+		//A full page means there might be more keys
+		this.loadMoreButton.setEnabled(page.size() == PAGE_SIZE);
+
+		if (replace && !page.isEmpty())
+			this.keyList.setSelectedIndex(0);
+		else if (!page.isEmpty())
+			this.keyList.ensureIndexIsVisible(firstIndex);
+	}
+
+	/**
+	 * Reads the value of the key and shows it as a tree if it is NBT data
+	 */
+	private void showValue(byte[] key) {
+		LevelDB database = this.database;
+		new Task.Backgroundable(this.project, "Reading " + BedrockKeys.format(key), true) {
+			private DefaultTreeModel model;
+			private String message;
+
+			@Override
+			public void run(@NotNull ProgressIndicator indicator) {
+				byte[] value;
+				try {
+					value = database.get(key);
+				} catch (IOException e) {
+					this.message = "Could not read the value: " + e.getMessage();
+					return;
+				}
+				if (value == null) {
+					this.message = "The key does not exist anymore";
+					return;
+				}
+
+				try {
+					List<NBTTagTreeNode> roots = NBTTreeDecoder.decodeRoots(new NBTSource(ByteBuffer.wrap(value), NBTFormat.LITTLE_ENDIAN));
+					NBTTagTreeNode root = roots.get(0);
+					//Some values, like the block entities of a chunk, are multiple roots in a row
+					if (roots.size() > 1) {
+						root = new NBTTagTreeNode(NBTTagType.LIST, BedrockKeys.format(key), null);
+						roots.forEach(root::add);
+					}
+					this.model = new DefaultTreeModel(root);
+				} catch (IOException | RuntimeException e) {
+					this.message = "Not NBT data (" + value.length + " bytes)";
+				}
+			}
+
+			@Override
+			public void onSuccess() {
+				//Another key might have been selected in the meantime
+				if (LevelDBBrowserDialog.this.keyList.getSelectedValue() != key)
+					return;
+				if (this.message != null) {
+					showMessage(this.message);
+					return;
+				}
+
+				Tree tree = new Tree(this.model);
+				tree.setCellRenderer(new NBTFileEditorTreeCellRenderer());
+				setValueComponent(new JBScrollPane(tree));
+			}
+		}.queue();
+	}
+
+	private void showMessage(String message) {
+		JBLabel label = new JBLabel(message);
+		label.setHorizontalAlignment(SwingConstants.CENTER);
+		setValueComponent(label);
+	}
+
+	private void setValueComponent(JComponent component) {
+		this.valuePanel.removeAll();
+		this.valuePanel.add(component, BorderLayout.CENTER);
+		this.valuePanel.revalidate();
+		this.valuePanel.repaint();
+	}
+
+	@Override
+	protected void dispose() {
+		super.dispose();
+		if (this.database == null)
+			return;
+		try {
+			this.database.close();
+		} catch (IOException ignored) {
+			//Only files opened for reading are closed
+		}
+	}
+}
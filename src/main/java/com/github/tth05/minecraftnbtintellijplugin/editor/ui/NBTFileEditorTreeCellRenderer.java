@@ -2,19 +2,61 @@ package com.github.tth05.minecraftnbtintellijplugin.editor.ui;
 
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
 import com.intellij.ide.util.treeView.NodeRenderer;
+import com.intellij.ui.SimpleTextAttributes;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.JTree;
 
 public class NBTFileEditorTreeCellRenderer extends NodeRenderer {
 
+	private static final SimpleTextAttributes SEARCH_MATCH_ATTRIBUTES =
+			new SimpleTextAttributes(SimpleTextAttributes.STYLE_SEARCH_MATCH, null);
+
+	/**
+	 * The editor whose search hits are highlighted, {@code null} if the tree is not searchable
+	 */
+	@Nullable
+	private final NBTFileEditorUI editorUI;
+
+	public NBTFileEditorTreeCellRenderer() {
+		this(null);
+	}
+
+	public NBTFileEditorTreeCellRenderer(@Nullable NBTFileEditorUI editorUI) {
+		this.editorUI = editorUI;
+	}
+
 	@Override
 	public void customizeCellRenderer(@NotNull JTree tree, Object value, boolean selected, boolean expanded,
 	                                  boolean leaf, int row, boolean hasFocus) {
 		super.customizeCellRenderer(tree, value, selected, expanded, leaf, row, hasFocus);
 		if (value instanceof NBTTagTreeNode) {
 			NBTTagTreeNode node = (NBTTagTreeNode) value;
+			if (this.editorUI != null && this.editorUI.isSearchHit(node))
+				appendHighlighted(node.toString(), this.editorUI.getSearchQuery());
 			setIcon(node.getType().getIcon());
+		} else if (value instanceof NBTTreeModel.Range) {
+			setIcon(((NBTTreeModel.Range) value).getParent().getType().getIcon());
+		}
+	}
+
+	/**
+	 * Replaces the text with the label in which every occurrence of the query is highlighted
+	 */
+	private void appendHighlighted(String label, String query) {
+		clear();
+		int start = 0;
+		for (int i = 0; i <= label.length() - query.length(); i++) {
+			if (!label.regionMatches(true, i, query, 0, query.length()))
+				continue;
+			if (i > start)
+				append(label.substring(start, i), SimpleTextAttributes.REGULAR_ATTRIBUTES);
+			append(label.substring(i, i + query.length()), SEARCH_MATCH_ATTRIBUTES);
+			start = i + query.length();
+			i = start - 1;
 		}
+		if (start < label.length())
+			append(label.substring(start), SimpleTextAttributes.REGULAR_ATTRIBUTES);
 	}
 }
@@ -1,18 +1,38 @@
 package com.github.tth05.minecraftnbtintellijplugin.editor.ui;
 
+import com.github.tth05.minecraftnbtintellijplugin.NBTTag;
+import com.github.tth05.minecraftnbtintellijplugin.RegionChunkTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTCompression;
 import com.github.tth05.minecraftnbtintellijplugin.util.NBTFileUtil;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFormat;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFormatDetector;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSaveScheduler;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSearchIndex;
+import com.github.tth05.minecraftnbtintellijplugin.util.RegionFile;
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.ActionGroup;
 import com.intellij.openapi.actionSystem.ActionManager;
 import com.intellij.openapi.actionSystem.ActionPlaces;
 import com.intellij.openapi.actionSystem.ActionPopupMenu;
 import com.intellij.openapi.actionSystem.DataKey;
 import com.intellij.openapi.actionSystem.DataProvider;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.CommandProcessor;
+import com.intellij.openapi.command.undo.BasicUndoableAction;
+import com.intellij.openapi.command.undo.DocumentReferenceManager;
+import com.intellij.openapi.command.undo.UndoManager;
+import com.intellij.openapi.command.undo.UnexpectedUndoException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.JBColor;
+import com.intellij.ui.SearchTextField;
 import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
@@ -26,23 +46,44 @@ import javax.swing.JButton;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
 import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
-import javax.swing.tree.TreeModel;
-import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.event.ItemEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.Enumeration;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class NBTFileEditorUI extends JPanel implements DataProvider {
 
 	public static final DataKey<NBTFileEditorUI> DATA_KEY = DataKey.create(NBTFileEditorUI.class.getName());
 
+	/**
+	 * Files bigger than this are loaded lazily by default
+	 */
+	private static final long LAZY_LOAD_THRESHOLD = 16 * 1024 * 1024;
+	/**
+	 * The search index is built in slices of about this long, so the EDT is never blocked for long
+	 */
+	private static final long INDEX_SLICE_NANOS = 10_000_000;
+	private static final int INDEX_BATCH_SIZE = 1024;
+
 	private Tree tree;
 
 	private boolean autoSaveEnabled = true;
@@ -50,88 +91,343 @@ public class NBTFileEditorUI extends JPanel implements DataProvider {
 	private boolean littleEndian;
 	private boolean network;
 	private boolean levelDat;
+	private boolean lazy;
+	/**
+	 * Set if the file is a region file, the tree then contains a node for every chunk instead of a single root
+	 */
+	private final boolean region;
+	/**
+	 * Region files are written in place, which is only possible for files on the local file system
+	 */
+	private final boolean readOnly;
+	private RegionFile regionFile;
+	private NBTCompression compression = NBTCompression.NONE;
 	private final MutableInt levelDatVersion = new MutableInt();
 
-	public NBTFileEditorUI(@NotNull VirtualFile file, @NotNull Project project) {
+	private final JBCheckBox leCheckbox = new JBCheckBox("Little Endian");
+	private final JBCheckBox networkCheckbox = new JBCheckBox("Network");
+	private final JBCheckBox levelDatCheckbox = new JBCheckBox("level.dat");
+
+	private JBLabel errorText;
+
+	private final NBTSaveScheduler saveScheduler;
+	private final VirtualFile file;
+	private final Project project;
+	/**
+	 * Set once the editor was closed. Undoing edits of a closed editor would change nodes which are not shown
+	 * anymore.
+	 */
+	private boolean disposed;
+
+	private final SearchTextField searchField = new SearchTextField(false);
+	private final JBLabel searchStatus = new JBLabel();
+	/**
+	 * {@code null} until the tree is shown, searches only use it once it is complete
+	 */
+	private NBTSearchIndex searchIndex;
+	private List<NBTTagTreeNode> searchHits = Collections.emptyList();
+	/**
+	 * The position of every hit in {@link #searchHits}
+	 */
+	private Map<NBTTagTreeNode, Integer> searchHitPositions = Collections.emptyMap();
+	/**
+	 * The selected hit, {@code null} if none is selected
+	 */
+	@Nullable
+	private NBTTagTreeNode searchHit;
+	/**
+	 * Set while refreshing the hits after changes of the tree is queued
+	 */
+	private boolean searchRefreshPending;
+	/**
+	 * Run once the tree was created, see {@link #whenTreeShown(Runnable)}
+	 */
+	private final List<Runnable> treeShownTasks = new ArrayList<>();
+
+	/**
+	 * @param parent Disposing it saves all pending changes
+	 */
+	public NBTFileEditorUI(@NotNull VirtualFile file, @NotNull Project project, @NotNull Disposable parent) {
 		this.setLayout(new BorderLayout());
+		this.file = file;
+		this.project = project;
+
+		this.region = RegionFile.isRegionFile(file);
+		this.readOnly = this.region && !file.isInLocalFileSystem();
+		this.saveScheduler = new NBTSaveScheduler(file, project, () -> {
+			if (this.tree == null || isReadOnly())
+				return null;
+			if (this.region)
+				return createRegionRequest();
+			NBTTagTreeNode root = (NBTTagTreeNode) this.tree.getModel().getRoot();
+			return new NBTSaveScheduler.FileRequest(NBTTag.of(root),
+					NBTFileUtil.getSaveFormat(this.littleEndian, this.network, this.levelDat), this.compression,
+					this.levelDat ? this.levelDatVersion.getValue() : null, root::markSaved);
+		});
+		Disposer.register(parent, this.saveScheduler);
+		Disposer.register(parent, () -> this.disposed = true);
 
 		//Toolbar
 		JPanel northSection = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		this.add(northSection, BorderLayout.NORTH);
+
+		if (this.region) {
+			loadRegion(file, project, northSection);
+			return;
+		}
 
 		JButton loadButton = new JButton("Load", AllIcons.Actions.MenuSaveall);
 		loadButton.addMouseListener(new MouseAdapter() {
-			JBLabel errorText;
-
 			@Override
 			public void mouseReleased(MouseEvent e) {
-				JBLabel errorText = NBTFileEditorUI.this.load(file, project, northSection);
-				if (this.errorText != null)
-					NBTFileEditorUI.this.remove(this.errorText);
-				this.errorText = errorText;
-				if (errorText == null)
-					northSection.remove(loadButton);
+				if (loadButton.isEnabled())
+					NBTFileEditorUI.this.load(file, project, northSection, loadButton, false);
 			}
 		});
 
-		JBCheckBox leCheckbox = new JBCheckBox("Little Endian");
-		leCheckbox.addItemListener(e -> littleEndian = e.getStateChange() == ItemEvent.SELECTED);
+		this.leCheckbox.addItemListener(e -> littleEndian = e.getStateChange() == ItemEvent.SELECTED);
+		this.networkCheckbox.addItemListener(e -> network = e.getStateChange() == ItemEvent.SELECTED);
+		this.levelDatCheckbox.addItemListener(e -> levelDat = e.getStateChange() == ItemEvent.SELECTED);
 
-		JBCheckBox networkCheckbox = new JBCheckBox("Network");
-		networkCheckbox.addItemListener(e -> network = e.getStateChange() == ItemEvent.SELECTED);
-
-		JBCheckBox levelDatCheckbox = new JBCheckBox("level.dat");
-		levelDatCheckbox.addItemListener(e -> levelDat = e.getStateChange() == ItemEvent.SELECTED);
+		JBCheckBox lazyCheckbox = new JBCheckBox("Lazy");
+		lazyCheckbox.setToolTipText("Only decode compounds and lists once they are expanded");
+		lazyCheckbox.addItemListener(e -> lazy = e.getStateChange() == ItemEvent.SELECTED);
+		lazyCheckbox.setSelected(file.getLength() > LAZY_LOAD_THRESHOLD);
 
 		northSection.add(loadButton);
-		northSection.add(leCheckbox);
-		northSection.add(networkCheckbox);
-		northSection.add(levelDatCheckbox);
+		northSection.add(this.leCheckbox);
+		northSection.add(this.networkCheckbox);
+		northSection.add(this.levelDatCheckbox);
+		northSection.add(lazyCheckbox);
 
-		this.add(northSection, BorderLayout.NORTH);
+		//The format is detected from the file, the checkboxes are only needed if the detection was wrong
+		load(file, project, northSection, loadButton, true);
 	}
 
-	private JBLabel load(@NotNull VirtualFile file, @NotNull Project project, @NotNull JPanel northSection) {
-		levelDatVersion.setValue(0);
-		//Tree Section
-		DefaultMutableTreeNode root = NBTFileUtil.loadNBTFileIntoTree(file, this.littleEndian, this.network, this.levelDat ? this.levelDatVersion : null);
-		if (root == null) {
-			levelDatVersion.setValue(0);
-			JBLabel errorText = new JBLabel("Invalid NBT File!");
-			errorText.setForeground(JBColor.RED);
-			errorText.setHorizontalAlignment(SwingConstants.CENTER);
-			this.add(errorText, BorderLayout.CENTER);
-			return errorText;
+	/**
+	 * Decodes the file in a background task. The tree is only added to the editor once it has been fully created.
+	 *
+	 * @param detectFormat If {@code true}, the format is detected from the file and the checkboxes are updated to
+	 *                     match it. Otherwise the format selected by the checkboxes is used.
+	 */
+	private void load(@NotNull VirtualFile file, @NotNull Project project, @NotNull JPanel northSection, @NotNull JButton loadButton, boolean detectFormat) {
+		//Capture the settings, the checkboxes can still change while the task is running
+		boolean littleEndian = this.littleEndian;
+		boolean network = this.network;
+		boolean levelDat = this.levelDat;
+		boolean lazy = this.lazy;
+
+		loadButton.setEnabled(false);
+		if (this.errorText != null) {
+			this.remove(this.errorText);
+			this.errorText = null;
 		}
 
-		TreeModel model = new DefaultTreeModel(root);
-		//The listener updates the indices in the node names if their parent is some sort of list
-		model.addTreeModelListener(new TreeModelListener() {
+		new Task.Backgroundable(project, "Loading " + file.getName(), true) {
+			private NBTFormatDetector.Result format;
+			private MutableInt levelDatVersion;
+			private NBTTreeModel model;
+
 			@Override
-			public void treeNodesChanged(TreeModelEvent e) {
+			public void run(@NotNull ProgressIndicator indicator) {
+				indicator.setIndeterminate(false);
+				try {
+					if (detectFormat) {
+						this.format = NBTFormatDetector.detect(file);
+						if (this.format == null)
+							return;
+					} else {
+						this.format = new NBTFormatDetector.Result(NBTFileUtil.getSaveFormat(littleEndian, network, levelDat),
+								NBTFormatDetector.detectCompression(file), levelDat);
+					}
+				} catch (IOException e) {
+					return;
+				}
+
+				this.levelDatVersion = this.format.isLevelDat() ? new MutableInt() : null;
+				NBTTagTreeNode root = (NBTTagTreeNode) NBTFileUtil.loadNBTFileIntoTree(file, this.format.getFormat(),
+						this.format.getCompression(), this.levelDatVersion, lazy, indicator);
+				if (root != null)
+					this.model = createModel(root);
 			}
 
 			@Override
-			public void treeNodesInserted(TreeModelEvent e) {
+			public void onSuccess() {
+				if (this.model == null) {
+					showError();
+					return;
+				}
+
+				if (detectFormat) {
+					NBTFileEditorUI.this.leCheckbox.setSelected(this.format.getFormat() != NBTFormat.BIG_ENDIAN);
+					NBTFileEditorUI.this.networkCheckbox.setSelected(this.format.getFormat() == NBTFormat.NETWORK);
+					NBTFileEditorUI.this.levelDatCheckbox.setSelected(this.format.isLevelDat());
+				}
+				NBTFileEditorUI.this.compression = this.format.getCompression();
+				NBTFileEditorUI.this.levelDatVersion.setValue(this.levelDatVersion != null ? this.levelDatVersion.getValue() : 0);
+				northSection.remove(loadButton);
+				showTree(this.model, file, project, northSection);
 			}
 
 			@Override
-			public void treeNodesRemoved(TreeModelEvent e) {
-				NBTTagTreeNode parent = (NBTTagTreeNode) e.getTreePath().getLastPathComponent();
+			public void onFinished() {
+				loadButton.setEnabled(true);
+				NBTFileEditorUI.this.revalidate();
+				NBTFileEditorUI.this.repaint();
+			}
+		}.queue();
+	}
 
-				if (parent.getChildCount() > 0 && parent.getType() != NBTTagType.COMPOUND) {
-					Enumeration<TreeNode> children = parent.children();
-					for (int i = 0; children.hasMoreElements(); i++)
-						((NBTTagTreeNode) children.nextElement()).setName(i + "");
+	/**
+	 * Reads the header of a region file in a background task and shows a node for every chunk in it. The chunks are
+	 * decoded once they are expanded.
+	 */
+	private void loadRegion(@NotNull VirtualFile file, @NotNull Project project, @NotNull JPanel northSection) {
+		new Task.Backgroundable(project, "Loading " + file.getName(), true) {
+			private RegionFile regionFile;
+			private NBTTreeModel model;
+
+			@Override
+			public void run(@NotNull ProgressIndicator indicator) {
+				try {
+					this.regionFile = RegionFile.read(file);
+				} catch (IOException e) {
+					return;
 				}
+
+				NBTTagTreeNode root = new NBTTagTreeNode(NBTTagType.COMPOUND, file.getName(), null);
+				for (int i = 0; i < RegionFile.CHUNK_COUNT; i++) {
+					if (this.regionFile.hasChunk(i))
+						root.add(new RegionChunkTreeNode(this.regionFile, i));
+				}
+				this.model = createModel(root);
 			}
 
 			@Override
-			public void treeStructureChanged(TreeModelEvent e) {
+			public void onSuccess() {
+				if (this.model == null) {
+					showError();
+					return;
+				}
+
+				NBTFileEditorUI.this.regionFile = this.regionFile;
+				JButton loadAllButton = new JButton("Load All Chunks", AllIcons.Actions.Refresh);
+				loadAllButton.addMouseListener(new MouseAdapter() {
+					@Override
+					public void mouseReleased(MouseEvent e) {
+						if (loadAllButton.isEnabled())
+							loadAllChunks(project, loadAllButton);
+					}
+				});
+				northSection.add(loadAllButton);
+				showTree(this.model, file, project, northSection);
 			}
-		});
 
+			@Override
+			public void onFinished() {
+				NBTFileEditorUI.this.revalidate();
+				NBTFileEditorUI.this.repaint();
+			}
+		}.queue();
+	}
+
+	/**
+	 * Decodes all chunks of the region in parallel. Chunks are independent of each other, so every chunk is decoded
+	 * by its own task in a {@link ForkJoinPool}. The decoded nodes are only added to the chunks on the EDT, like every
+	 * other change of the tree.
+	 */
+	private void loadAllChunks(@NotNull Project project, @NotNull JButton loadAllButton) {
+		NBTTagTreeNode root = (NBTTagTreeNode) this.tree.getModel().getRoot();
+		List<RegionChunkTreeNode> chunks = new ArrayList<>();
+		for (int i = 0; i < root.getChildCount(); i++)
+			chunks.add((RegionChunkTreeNode) root.getChildAt(i));
+
+		loadAllButton.setEnabled(false);
+		new Task.Backgroundable(project, "Loading chunks", true) {
+			@Override
+			public void run(@NotNull ProgressIndicator indicator) {
+				indicator.setIndeterminate(false);
+				AtomicInteger loaded = new AtomicInteger();
+				ForkJoinPool pool = new ForkJoinPool();
+				try {
+					pool.submit(() -> chunks.parallelStream().forEach(chunk -> {
+						indicator.checkCanceled();
+						chunk.prepare();
+						indicator.setFraction((double) loaded.incrementAndGet() / chunks.size());
+					})).join();
+				} finally {
+					pool.shutdownNow();
+				}
+			}
+
+			@Override
+			public void onSuccess() {
+				//The index is built again afterwards, which is faster than updating it chunk by chunk on the EDT
+				NBTFileEditorUI.this.searchIndex = null;
+				NBTTreeModel model = getTreeModel();
+				for (RegionChunkTreeNode chunk : chunks) {
+					//Chunks which were expanded in the meantime are shown already
+					if (chunk.isLoaded())
+						continue;
+					//Accessing the children adds the decoded ones
+					chunk.getChildCount();
+					model.nodeStructureChanged(chunk);
+				}
+				buildSearchIndex();
+			}
+
+			@Override
+			public void onFinished() {
+				loadAllButton.setEnabled(true);
+			}
+		}.queue();
+	}
+
+	/**
+	 * @return A snapshot of all chunks which were changed since they were last saved, or {@code null} if there are
+	 * none
+	 */
+	@Nullable
+	private NBTSaveScheduler.Request createRegionRequest() {
+		NBTTagTreeNode root = (NBTTagTreeNode) this.tree.getModel().getRoot();
+		List<RegionChunkTreeNode> modified = new ArrayList<>();
+		Map<Integer, NBTTag> chunks = new HashMap<>();
+		for (int i = 0; i < root.getChildCount(); i++) {
+			RegionChunkTreeNode chunk = (RegionChunkTreeNode) root.getChildAt(i);
+			if (!chunk.isModified())
+				continue;
+			modified.add(chunk);
+			chunks.put(chunk.getChunkIndex(), chunk.takeSnapshot());
+		}
+
+		if (chunks.isEmpty())
+			return null;
+		//Chunks which could not be written have to be saved with the next change again
+		return new NBTSaveScheduler.RegionRequest(this.regionFile, chunks, () -> modified.forEach(NBTTagTreeNode::markDirty));
+	}
+
+	private void showError() {
+		this.levelDatVersion.setValue(0);
+		this.errorText = new JBLabel("Invalid NBT File!");
+		this.errorText.setForeground(JBColor.RED);
+		this.errorText.setHorizontalAlignment(SwingConstants.CENTER);
+		this.add(this.errorText, BorderLayout.CENTER);
+	}
+
+	private NBTTreeModel createModel(NBTTagTreeNode root) {
+		NBTTreeModel model = new NBTTreeModel(root);
+		model.addTagListener(createSearchIndexUpdater());
+		return model;
+	}
+
+	private void showTree(@NotNull NBTTreeModel model, @NotNull VirtualFile file, @NotNull Project project, @NotNull JPanel northSection) {
 		this.tree = new Tree(model);
-		this.tree.setCellRenderer(new NBTFileEditorTreeCellRenderer());
+		NBTFileEditorTreeCellRenderer renderer = new NBTFileEditorTreeCellRenderer(this);
+		this.tree.setCellRenderer(renderer);
+		//Rows are only laid out once they are visible, which needs all of them to be the same height
+		this.tree.setRowHeight(renderer.getTreeCellRendererComponent(this.tree, model.getRoot(), false, false, false,
+				0, false).getPreferredSize().height);
+		this.tree.setLargeModel(true);
 		this.tree.addMouseListener(new MouseAdapter() {
 			@Override
 			public void mouseReleased(MouseEvent e) {
@@ -151,14 +447,39 @@ public class NBTFileEditorUI extends JPanel implements DataProvider {
 			}
 		});
 
-		this.add(new JBScrollPane(this.tree), BorderLayout.CENTER);
+		JPanel treePanel = new JPanel(new BorderLayout());
+		treePanel.add(createSearchBar(), BorderLayout.NORTH);
+		treePanel.add(new JBScrollPane(this.tree), BorderLayout.CENTER);
+		this.add(treePanel, BorderLayout.CENTER);
+		this.tree.addTreeExpansionListener(new TreeExpansionListener() {
+			//Children of lazy nodes are decoded when they are expanded
+			@Override
+			public void treeExpanded(TreeExpansionEvent event) {
+				//Pages only contain children of their parent, which were decoded when the parent was expanded
+				if (!(event.getPath().getLastPathComponent() instanceof NBTTagTreeNode))
+					return;
+				NBTTagTreeNode node = (NBTTagTreeNode) event.getPath().getLastPathComponent();
+				updateSearchIndex(index -> index.addChildren(node));
+			}
+
+			@Override
+			public void treeCollapsed(TreeExpansionEvent event) {
+			}
+		});
+		buildSearchIndex();
+
+		this.treeShownTasks.forEach(Runnable::run);
+		this.treeShownTasks.clear();
+
+		if (this.readOnly)
+			return;
 
 		//Toolbar
 		JButton saveButton = new JButton("Save", AllIcons.Actions.MenuSaveall);
 		saveButton.addMouseListener(new MouseAdapter() {
 			@Override
 			public void mouseReleased(MouseEvent e) {
-				NBTFileUtil.saveTreeToFile(NBTFileEditorUI.this.tree, file, project, littleEndian, network, levelDat ? levelDatVersion.getValue() : null);
+				NBTFileEditorUI.this.saveScheduler.saveNow();
 			}
 		});
 
@@ -176,39 +497,317 @@ public class NBTFileEditorUI extends JPanel implements DataProvider {
 
 		northSection.add(saveButton);
 		northSection.add(autoSaveCheckbox);
+	}
 
-		return null;
+	private JPanel createSearchBar() {
+		this.searchField.addDocumentListener(new DocumentAdapter() {
+			@Override
+			protected void textChanged(@NotNull DocumentEvent e) {
+				search();
+			}
+		});
+		this.searchField.getTextEditor().addKeyListener(new KeyAdapter() {
+			@Override
+			public void keyPressed(KeyEvent e) {
+				if (e.getKeyCode() == KeyEvent.VK_ENTER)
+					moveSearchHit(e.isShiftDown() ? -1 : 1);
+			}
+		});
+
+		JButton previousButton = new JButton(AllIcons.Actions.PreviousOccurence);
+		previousButton.setToolTipText("Previous Occurrence (Shift+Enter)");
+		previousButton.addActionListener(e -> moveSearchHit(-1));
+		JButton nextButton = new JButton(AllIcons.Actions.NextOccurence);
+		nextButton.setToolTipText("Next Occurrence (Enter)");
+		nextButton.addActionListener(e -> moveSearchHit(1));
+
+		JPanel searchBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		searchBar.add(this.searchField);
+		searchBar.add(previousButton);
+		searchBar.add(nextButton);
+		searchBar.add(this.searchStatus);
+		return searchBar;
+	}
+
+	/**
+	 * Indexes all tags which were decoded already. The tree is walked in slices on the EDT, so it stays usable
+	 * meanwhile and its changes are applied to the index right away.
+	 */
+	private void buildSearchIndex() {
+		NBTSearchIndex index = new NBTSearchIndex((NBTTagTreeNode) this.tree.getModel().getRoot());
+		this.searchIndex = index;
+		this.searchStatus.setText("Indexing...");
+		indexNextSlice(index);
+	}
+
+	private void indexNextSlice(@NotNull NBTSearchIndex index) {
+		//The editor was closed or the index was replaced by another one
+		if (this.disposed || this.searchIndex != index)
+			return;
+
+		long end = System.nanoTime() + INDEX_SLICE_NANOS;
+		while (!index.indexNext(INDEX_BATCH_SIZE)) {
+			if (System.nanoTime() >= end) {
+				ApplicationManager.getApplication().invokeLater(() -> indexNextSlice(index));
+				return;
+			}
+		}
+		search();
+	}
+
+	/**
+	 * @return A listener which keeps the search index up to date with the changes of the tree
+	 */
+	private TreeModelListener createSearchIndexUpdater() {
+		return new TreeModelListener() {
+			@Override
+			public void treeNodesChanged(TreeModelEvent e) {
+				Object[] children = e.getChildren();
+				if (children == null) {
+					NBTTagTreeNode node = (NBTTagTreeNode) e.getTreePath().getLastPathComponent();
+					updateSearchIndex(index -> index.update(node));
+					return;
+				}
+				updateSearchIndex(index -> {
+					for (Object child : children)
+						index.update((NBTTagTreeNode) child);
+				});
+			}
+
+			@Override
+			public void treeNodesInserted(TreeModelEvent e) {
+				Object[] children = e.getChildren();
+				updateSearchIndex(index -> {
+					for (Object child : children)
+						index.addSubtree((NBTTagTreeNode) child);
+				});
+			}
+
+			@Override
+			public void treeNodesRemoved(TreeModelEvent e) {
+				NBTTagTreeNode parent = (NBTTagTreeNode) e.getTreePath().getLastPathComponent();
+				Object[] children = e.getChildren();
+				int[] childIndices = e.getChildIndices();
+				updateSearchIndex(index -> {
+					for (Object child : children)
+						index.removeSubtree((NBTTagTreeNode) child);
+					index.childrenRemoved(parent, childIndices);
+				});
+			}
+
+			@Override
+			public void treeStructureChanged(TreeModelEvent e) {
+				NBTTagTreeNode node = (NBTTagTreeNode) e.getTreePath().getLastPathComponent();
+				updateSearchIndex(index -> {
+					index.removeSubtree(node);
+					index.addSubtree(node);
+				});
+			}
+		};
+	}
+
+	/**
+	 * Applies the change to the index, even if it is still being built. The hits are refreshed once for a whole burst
+	 * of changes, like expanding a big node, and not at all while nothing is searched for.
+	 */
+	private void updateSearchIndex(@NotNull Consumer<NBTSearchIndex> update) {
+		if (this.searchIndex == null)
+			return;
+		update.accept(this.searchIndex);
+		if (!isSearchAvailable() || getSearchQuery().isEmpty() || this.searchRefreshPending)
+			return;
+		this.searchRefreshPending = true;
+		ApplicationManager.getApplication().invokeLater(this::refreshSearchHits);
+	}
+
+	/**
+	 * Picks up hits which were added, changed or removed since the last search, but keeps the current hit selected
+	 */
+	private void refreshSearchHits() {
+		if (!this.searchRefreshPending || this.disposed)
+			return;
+		this.searchRefreshPending = false;
+		updateSearchHits();
+		if (this.searchHit != null && !this.searchHitPositions.containsKey(this.searchHit))
+			this.searchHit = null;
+		updateSearchStatus();
+	}
+
+	private void search() {
+		this.searchRefreshPending = false;
+		updateSearchHits();
+		this.searchHit = null;
+		if (!this.searchHits.isEmpty())
+			selectSearchHit(0);
+		else
+			updateSearchStatus();
+	}
+
+	private void updateSearchHits() {
+		String query = getSearchQuery();
+		this.searchHits = isSearchAvailable() && !query.isEmpty() ? this.searchIndex.search(query) :
+				Collections.emptyList();
+		this.searchHitPositions = new IdentityHashMap<>(this.searchHits.size());
+		for (int i = 0; i < this.searchHits.size(); i++)
+			this.searchHitPositions.put(this.searchHits.get(i), i);
+		this.tree.repaint();
+	}
+
+	/**
+	 * Selects the hit before or after the current one. Changes of the tree since the last refresh are picked up
+	 * first, so no removed node is selected.
+	 *
+	 * @param step {@code -1} for the previous hit, {@code 1} for the next one
+	 */
+	private void moveSearchHit(int step) {
+		refreshSearchHits();
+		selectSearchHit(getSearchHitIndex() + step);
+	}
+
+	/**
+	 * Selects the hit and scrolls to it, the index wraps around at both ends
+	 */
+	private void selectSearchHit(int index) {
+		if (this.searchHits.isEmpty())
+			return;
+		this.searchHit = this.searchHits.get(Math.floorMod(index, this.searchHits.size()));
+		TreePath path = getTreeModel().getTreePath(this.searchHit);
+		this.tree.setSelectionPath(path);
+		this.tree.scrollPathToVisible(path);
+		updateSearchStatus();
+	}
+
+	/**
+	 * @return The position of the selected hit, {@code -1} if none is selected
+	 */
+	private int getSearchHitIndex() {
+		return this.searchHit != null ? this.searchHitPositions.getOrDefault(this.searchHit, -1) : -1;
+	}
+
+	private boolean isSearchAvailable() {
+		return this.searchIndex != null && this.searchIndex.isComplete();
+	}
+
+	private void updateSearchStatus() {
+		if (!isSearchAvailable())
+			return;
+		if (getSearchQuery().isEmpty())
+			this.searchStatus.setText("");
+		else if (this.searchHits.isEmpty())
+			this.searchStatus.setText("No matches");
+		else if (getSearchHitIndex() < 0)
+			this.searchStatus.setText(this.searchHits.size() + " matches");
+		else
+			this.searchStatus.setText((getSearchHitIndex() + 1) + " of " + this.searchHits.size());
+	}
+
+	/**
+	 * @return The text which is searched for, empty if nothing is searched for
+	 */
+	@NotNull
+	public String getSearchQuery() {
+		String text = this.searchField.getText();
+		return text != null ? text : "";
+	}
+
+	/**
+	 * @return {@code true} if the node matches the current search query
+	 */
+	public boolean isSearchHit(@NotNull NBTTagTreeNode node) {
+		return this.searchHitPositions.containsKey(node);
 	}
 
 	public Tree getTree() {
 		return this.tree;
 	}
 
-	@Nullable
-	@Override
-	public Object getData(@NotNull String dataId) {
-		if (DATA_KEY.is(dataId))
-			return this;
-		return null;
+	/**
+	 * Runs the task now if the tree exists already, otherwise once the file was loaded
+	 */
+	public void whenTreeShown(@NotNull Runnable task) {
+		if (this.tree != null)
+			task.run();
+		else
+			this.treeShownTasks.add(task);
 	}
 
-	public boolean isAutoSaveEnabled() {
-		return autoSaveEnabled;
+	/**
+	 * Applies the edits of {@code edit} as one transaction. The tree is notified once, the file is saved once and
+	 * all edits are undone together.
+	 *
+	 * @param name The name of the edit in the undo menu
+	 */
+	public void edit(@NotNull String name, @NotNull Consumer<NBTTreeTransaction> edit) {
+		CommandProcessor.getInstance().executeCommand(this.project, () -> {
+			NBTTreeTransaction transaction = new NBTTreeTransaction(getTreeModel(), this.tree);
+			try {
+				edit.accept(transaction);
+			} finally {
+				transaction.commit();
+			}
+			if (transaction.isEmpty())
+				return;
+
+			UndoManager.getInstance(this.project).undoableActionPerformed(
+					new BasicUndoableAction(DocumentReferenceManager.getInstance().create(this.file)) {
+						private NBTTreeTransaction last = transaction;
+
+						@Override
+						public void undo() throws UnexpectedUndoException {
+							revertLast();
+						}
+
+						@Override
+						public void redo() throws UnexpectedUndoException {
+							revertLast();
+						}
+
+						private void revertLast() throws UnexpectedUndoException {
+							if (NBTFileEditorUI.this.disposed)
+								throw new UnexpectedUndoException("The file was closed in the meantime");
+							this.last = this.last.revert();
+							scheduleSave();
+						}
+					});
+			scheduleSave();
+		}, name, null);
 	}
 
-	public boolean isLittleEndian() {
-		return littleEndian;
+	/**
+	 * Saves the tree soon, if auto saving is enabled
+	 */
+	public void scheduleSave() {
+		if (this.autoSaveEnabled)
+			this.saveScheduler.schedule();
 	}
 
-	public boolean isNetwork() {
-		return network;
+	public NBTTreeModel getTreeModel() {
+		return (NBTTreeModel) this.tree.getModel();
 	}
 
-	public boolean isLevelDat() {
-		return levelDat;
+	/**
+	 * @return {@code true} if the tree can not be edited
+	 */
+	public boolean isReadOnly() {
+		return this.readOnly;
 	}
 
-	public MutableInt getLevelDatVersion() {
-		return levelDatVersion;
+	/**
+	 * @return {@code true} if the tree contains the chunks of a region file
+	 */
+	public boolean isRegion() {
+		return this.region;
+	}
+
+	@Nullable
+	@Override
+	public Object getData(@NotNull String dataId) {
+		if (DATA_KEY.is(dataId))
+			return this;
+		return null;
+	}
+
+	public boolean isLevelDat() {
+		return levelDat;
 	}
 }
@@ -0,0 +1,291 @@
+package com.github.tth05.minecraftnbtintellijplugin.editor.ui;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Shows the children of nodes with more than {@link #PAGE_SIZE} children in pages. Such a node gets a {@link Range}
+ * child for every page instead, so expanding it only adds a few rows to the tree, no matter how many children it
+ * has. Range nodes are created when the tree asks for them and only exist in this model.
+ * <p>
+ * The events of the model are translated for the tree, as the indices of the children below a paged node are
+ * different in there. Listeners which care about the tags instead of the rows of the tree are added with
+ * {@link #addTagListener(TreeModelListener)} and get the events as they are, without range nodes.
+ */
+public class NBTTreeModel extends DefaultTreeModel {
+
+	public static final int PAGE_SIZE = 1000;
+
+	private final List<TreeModelListener> tagListeners = new ArrayList<>();
+	/**
+	 * The range nodes of every paged node, created on demand. The same range nodes have to be returned every time,
+	 * otherwise the tree would lose track of which of them are expanded.
+	 */
+	private final Map<NBTTagTreeNode, Range[]> ranges = new WeakHashMap<>();
+
+	public NBTTreeModel(@NotNull NBTTagTreeNode root) {
+		super(root);
+	}
+
+	/**
+	 * Adds a listener which gets the events of the tags with their actual parents and indices. Tag listeners are
+	 * notified before the tree, in the order they were added.
+	 */
+	public void addTagListener(@NotNull TreeModelListener listener) {
+		this.tagListeners.add(listener);
+	}
+
+	/**
+	 * @return The path of the node in the tree, which goes through the range nodes of paged parents
+	 */
+	@NotNull
+	public TreePath getTreePath(@NotNull TreeNode node) {
+		return new TreePath(getViewPath(node));
+	}
+
+	private Object[] getViewPath(TreeNode node) {
+		Deque<Object> path = new ArrayDeque<>();
+		for (TreeNode current = node; current != null; current = current.getParent()) {
+			path.addFirst(current);
+			TreeNode parent = current.getParent();
+			if (parent instanceof NBTTagTreeNode && isPaged((NBTTagTreeNode) parent))
+				path.addFirst(getRange((NBTTagTreeNode) parent, parent.getIndex(current) / PAGE_SIZE));
+		}
+		return path.toArray();
+	}
+
+	/**
+	 * Removes several children of a node in one go, and notifies the listeners with a single event
+	 *
+	 * @param childIndices The indices of the children to remove, in any order
+	 */
+	public void removeChildren(@NotNull NBTTagTreeNode parent, int[] childIndices) {
+		int[] indices = childIndices.clone();
+		Arrays.sort(indices);
+		Object[] children = new Object[indices.length];
+		for (int i = 0; i < indices.length; i++)
+			children[i] = parent.getChildAt(indices[i]);
+
+		parent.removeChildren(indices);
+		nodesWereRemoved(parent, indices, children);
+	}
+
+	/**
+	 * Like {@link #nodesChanged(TreeNode, int[])}, but only tells the tag listeners. Trees do not show the children of
+	 * collapsed nodes, and they get slow when they are told about thousands of them.
+	 */
+	public void tagsChanged(@NotNull NBTTagTreeNode parent, int[] childIndices) {
+		Object[] children = new Object[childIndices.length];
+		for (int i = 0; i < childIndices.length; i++)
+			children[i] = parent.getChildAt(childIndices[i]);
+
+		TreeModelEvent event = new TreeModelEvent(this, getPathToRoot(parent), childIndices, children);
+		for (TreeModelListener listener : this.tagListeners)
+			listener.treeNodesChanged(event);
+	}
+
+	@Override
+	public Object getChild(Object parent, int index) {
+		if (parent instanceof Range) {
+			Range range = (Range) parent;
+			return range.parent.getChildAt(range.getFrom() + index);
+		}
+		if (isPaged((NBTTagTreeNode) parent))
+			return getRange((NBTTagTreeNode) parent, index);
+		return super.getChild(parent, index);
+	}
+
+	@Override
+	public int getChildCount(Object parent) {
+		if (parent instanceof Range)
+			return ((Range) parent).getSize();
+		NBTTagTreeNode node = (NBTTagTreeNode) parent;
+		int count = node.getChildCount();
+		return count > PAGE_SIZE ? getPageCount(count) : count;
+	}
+
+	@Override
+	public int getIndexOfChild(Object parent, Object child) {
+		if (parent == null || child == null)
+			return -1;
+		if (child instanceof Range) {
+			Range range = (Range) child;
+			return range.parent == parent ? range.page : -1;
+		}
+		if (parent instanceof Range) {
+			Range range = (Range) parent;
+			int index = range.parent.getIndex((TreeNode) child) - range.getFrom();
+			return index >= 0 && index < range.getSize() ? index : -1;
+		}
+		if (isPaged((NBTTagTreeNode) parent))
+			return -1;
+		return super.getIndexOfChild(parent, child);
+	}
+
+	@Override
+	public boolean isLeaf(Object node) {
+		return !(node instanceof Range) && super.isLeaf(node);
+	}
+
+	@Override
+	protected void fireTreeNodesChanged(Object source, Object[] path, int[] childIndices, Object[] children) {
+		TreeModelEvent event = new TreeModelEvent(source, path, childIndices, children);
+		for (TreeModelListener listener : this.tagListeners)
+			listener.treeNodesChanged(event);
+
+		NBTTagTreeNode parent = (NBTTagTreeNode) path[path.length - 1];
+		if (childIndices == null || !isPaged(parent)) {
+			super.fireTreeNodesChanged(source, getViewPath(parent), childIndices, children);
+			return;
+		}
+
+		//Every child is changed in the page it is on, children next to each other on the same page share an event
+		Object[] parentPath = getViewPath(parent);
+		for (int from = 0; from < childIndices.length; ) {
+			int page = childIndices[from] / PAGE_SIZE;
+			int to = from + 1;
+			while (to < childIndices.length && childIndices[to] / PAGE_SIZE == page)
+				to++;
+
+			int[] pageIndices = new int[to - from];
+			for (int i = from; i < to; i++)
+				pageIndices[i - from] = childIndices[i] - page * PAGE_SIZE;
+			super.fireTreeNodesChanged(source, append(parentPath, getRange(parent, page)), pageIndices,
+					Arrays.copyOfRange(children, from, to));
+			from = to;
+		}
+	}
+
+	@Override
+	protected void fireTreeNodesInserted(Object source, Object[] path, int[] childIndices, Object[] children) {
+		TreeModelEvent event = new TreeModelEvent(source, path, childIndices, children);
+		for (TreeModelListener listener : this.tagListeners)
+			listener.treeNodesInserted(event);
+
+		NBTTagTreeNode parent = (NBTTagTreeNode) path[path.length - 1];
+		if (!firePagesChanged(source, parent, parent.getChildCount() - childIndices.length, childIndices))
+			super.fireTreeNodesInserted(source, getViewPath(parent), childIndices, children);
+	}
+
+	@Override
+	protected void fireTreeNodesRemoved(Object source, Object[] path, int[] childIndices, Object[] children) {
+		TreeModelEvent event = new TreeModelEvent(source, path, childIndices, children);
+		for (TreeModelListener listener : this.tagListeners)
+			listener.treeNodesRemoved(event);
+
+		NBTTagTreeNode parent = (NBTTagTreeNode) path[path.length - 1];
+		if (!firePagesChanged(source, parent, parent.getChildCount() + childIndices.length, childIndices))
+			super.fireTreeNodesRemoved(source, getViewPath(parent), childIndices, children);
+	}
+
+	@Override
+	protected void fireTreeStructureChanged(Object source, Object[] path, int[] childIndices, Object[] children) {
+		TreeModelEvent event = new TreeModelEvent(source, path, childIndices, children);
+		for (TreeModelListener listener : this.tagListeners)
+			listener.treeStructureChanged(event);
+
+		NBTTagTreeNode node = (NBTTagTreeNode) path[path.length - 1];
+		this.ranges.remove(node);
+		super.fireTreeStructureChanged(source, getViewPath(node), null, null);
+	}
+
+	/**
+	 * Children were inserted into or removed from a node which is or was paged. The children of every page from the
+	 * first changed one on are shifted, so those pages are told that their structure changed. If the amount of pages
+	 * changed, the structure of the whole node changed.
+	 *
+	 * @param countBefore The amount of children before the change
+	 * @return {@code false} if the node is not paged and the event can be passed on as it is
+	 */
+	private boolean firePagesChanged(Object source, NBTTagTreeNode parent, int countBefore, int[] childIndices) {
+		int count = parent.getChildCount();
+		if (countBefore <= PAGE_SIZE && count <= PAGE_SIZE)
+			return false;
+
+		Object[] parentPath = getViewPath(parent);
+		if (countBefore <= PAGE_SIZE || count <= PAGE_SIZE || getPageCount(countBefore) != getPageCount(count)) {
+			this.ranges.remove(parent);
+			super.fireTreeStructureChanged(source, parentPath, null, null);
+			return true;
+		}
+
+		int first = Integer.MAX_VALUE;
+		for (int index : childIndices)
+			first = Math.min(first, index);
+		for (int page = first / PAGE_SIZE; page < getPageCount(count); page++)
+			super.fireTreeStructureChanged(source, append(parentPath, getRange(parent, page)), null, null);
+		return true;
+	}
+
+	private static boolean isPaged(NBTTagTreeNode node) {
+		return node.getChildCount() > PAGE_SIZE;
+	}
+
+	private static int getPageCount(int childCount) {
+		return (childCount + PAGE_SIZE - 1) / PAGE_SIZE;
+	}
+
+	private Range getRange(NBTTagTreeNode parent, int page) {
+		int pageCount = getPageCount(parent.getChildCount());
+		Range[] pages = this.ranges.get(parent);
+		if (pages == null || pages.length != pageCount) {
+			pages = new Range[pageCount];
+			this.ranges.put(parent, pages);
+		}
+		if (pages[page] == null)
+			pages[page] = new Range(parent, page);
+		return pages[page];
+	}
+
+	private static Object[] append(Object[] path, Object last) {
+		Object[] result = new Object[path.length + 1];
+		System.arraycopy(path, 0, result, 0, path.length);
+		result[path.length] = last;
+		return result;
+	}
+
+	/**
+	 * A page of up to {@link #PAGE_SIZE} children of a node
+	 */
+	public static final class Range {
+
+		private final NBTTagTreeNode parent;
+		private final int page;
+
+		private Range(NBTTagTreeNode parent, int page) {
+			this.parent = parent;
+			this.page = page;
+		}
+
+		@NotNull
+		public NBTTagTreeNode getParent() {
+			return this.parent;
+		}
+
+		public int getFrom() {
+			return this.page * PAGE_SIZE;
+		}
+
+		public int getSize() {
+			return Math.max(0, Math.min(PAGE_SIZE, this.parent.getChildCount() - getFrom()));
+		}
+
+		@Override
+		public String toString() {
+			return "[" + getFrom() + ".." + (getFrom() + getSize() - 1) + "]";
+		}
+	}
+}
@@ -0,0 +1,366 @@
+package com.github.tth05.minecraftnbtintellijplugin.editor.ui;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.JTree;
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Collects edits of the tree and tells the tree about them once they are committed, with as few events as possible.
+ * Names, values, types and insertions are applied right away, so later edits of the same transaction see them.
+ * Removals are applied when committing, which removes all removed children of a parent in a single pass.
+ * <p>
+ * Every edit remembers how it is reverted. {@link #revert()} applies all of that as another transaction, which in
+ * turn can be reverted to redo the edits.
+ */
+public class NBTTreeTransaction {
+
+	private final NBTTreeModel model;
+	/**
+	 * The tree showing the model, it is only told about changed nodes which it shows
+	 */
+	@Nullable
+	private final JTree tree;
+	/**
+	 * The edits which revert this transaction, in the order the reverted edits were made
+	 */
+	private final List<Consumer<NBTTreeTransaction>> reverts = new ArrayList<>();
+
+	private final Set<NBTTagTreeNode> changed = new LinkedHashSet<>();
+	private final Set<NBTTagTreeNode> structureChanged = new LinkedHashSet<>();
+	private final Map<NBTTagTreeNode, Set<NBTTagTreeNode>> inserted = new LinkedHashMap<>();
+	private final Set<NBTTagTreeNode> insertedNodes = new HashSet<>();
+	private final Map<NBTTagTreeNode, Set<NBTTagTreeNode>> removed = new LinkedHashMap<>();
+	private final Set<NBTTagTreeNode> removedNodes = new HashSet<>();
+	private boolean committed;
+
+	NBTTreeTransaction(@NotNull NBTTreeModel model, @Nullable JTree tree) {
+		this.model = model;
+		this.tree = tree;
+	}
+
+	public void setName(@NotNull NBTTagTreeNode node, @NotNull String name) {
+		checkOpen();
+		String oldName = node.getName();
+		node.setName(name);
+		this.changed.add(node);
+		this.reverts.add(transaction -> transaction.setName(node, oldName));
+	}
+
+	public void setValue(@NotNull NBTTagTreeNode node, Object value) {
+		checkOpen();
+		Object oldValue = node.getValue();
+		TreeNode parent = node.getParent();
+		if (parent instanceof NBTTagTreeNode && ((NBTTagTreeNode) parent).isArray()) {
+			//Element nodes are replaced together with their array, so the element is looked up by its index again
+			int index = parent.getIndex(node);
+			this.reverts.add(transaction -> transaction.setValue((NBTTagTreeNode) parent.getChildAt(index), oldValue));
+		} else {
+			this.reverts.add(transaction -> transaction.setValue(node, oldValue));
+		}
+
+		node.setValue(value);
+		this.changed.add(node);
+		if (node.isArray())
+			this.structureChanged.add(node);
+	}
+
+	/**
+	 * Changes the type of the node, which removes its children and resets its value
+	 */
+	public void setType(@NotNull NBTTagTreeNode node, @NotNull NBTTagType type) {
+		checkOpen();
+		NBTTagType oldType = node.getType();
+		Object oldValue = node.getValue();
+		//The elements of arrays are restored together with the value
+		List<MutableTreeNode> oldChildren = new ArrayList<>();
+		if (!node.isArray()) {
+			for (Enumeration<TreeNode> children = node.children(); children.hasMoreElements(); )
+				oldChildren.add((MutableTreeNode) children.nextElement());
+		}
+
+		node.removeAllChildren();
+		node.setType(type);
+		this.changed.add(node);
+		this.structureChanged.add(node);
+		this.reverts.add(transaction -> transaction.restoreType(node, oldType, oldValue, oldChildren));
+	}
+
+	private void restoreType(NBTTagTreeNode node, NBTTagType type, Object value, List<MutableTreeNode> children) {
+		NBTTagType changedType = node.getType();
+		node.setType(type);
+		node.setValue(value);
+		children.forEach(node::add);
+		this.changed.add(node);
+		this.structureChanged.add(node);
+		this.reverts.add(transaction -> transaction.setType(node, changedType));
+	}
+
+	/**
+	 * Inserting into an array only copies the value of {@code child}, see {@link NBTTagTreeNode#insert}
+	 */
+	public void insert(@NotNull NBTTagTreeNode parent, @NotNull NBTTagTreeNode child, int index) {
+		checkOpen();
+		parent.insert(child, index);
+		if (parent.isArray()) {
+			this.changed.add(parent);
+			this.structureChanged.add(parent);
+			this.reverts.add(transaction -> transaction.removeElements(parent, new int[] {index}));
+			return;
+		}
+
+		this.inserted.computeIfAbsent(parent, key -> new LinkedHashSet<>()).add(child);
+		this.insertedNodes.add(child);
+		this.reverts.add(transaction -> transaction.remove(child));
+	}
+
+	/**
+	 * Removes the node from its parent once the transaction is committed
+	 */
+	public void remove(@NotNull NBTTagTreeNode node) {
+		checkOpen();
+		NBTTagTreeNode parent = (NBTTagTreeNode) node.getParent();
+		if (parent == null)
+			throw new IllegalArgumentException("The root cannot be removed");
+
+		if (this.insertedNodes.remove(node)) {
+			//The tree was never told about the node, so there is no reason to wait
+			int index = parent.getIndex(node);
+			parent.remove(index);
+			this.inserted.get(parent).remove(node);
+			this.reverts.add(transaction -> transaction.insert(parent, node, index));
+			return;
+		}
+		this.removed.computeIfAbsent(parent, key -> new LinkedHashSet<>()).add(node);
+	}
+
+	/**
+	 * Inserts the children in a single pass, used to revert removals
+	 *
+	 * @param indices The indices the children end up at, in ascending order
+	 */
+	private void insertAll(NBTTagTreeNode parent, int[] indices, NBTTagTreeNode[] children) {
+		parent.insertChildren(indices, children);
+		if (parent.isArray()) {
+			this.changed.add(parent);
+			this.structureChanged.add(parent);
+			this.reverts.add(transaction -> transaction.removeElements(parent, indices));
+			return;
+		}
+
+		Set<NBTTagTreeNode> insertedChildren = this.inserted.computeIfAbsent(parent, key -> new LinkedHashSet<>());
+		for (NBTTagTreeNode child : children) {
+			insertedChildren.add(child);
+			this.insertedNodes.add(child);
+		}
+		this.reverts.add(transaction -> {
+			for (NBTTagTreeNode child : children)
+				transaction.remove(child);
+		});
+	}
+
+	/**
+	 * Removes array elements right away. Unlike element nodes, indices would be ambiguous when waiting for the
+	 * commit.
+	 *
+	 * @param indices The indices of the elements, in ascending order
+	 */
+	private void removeElements(NBTTagTreeNode parent, int[] indices) {
+		NBTTagTreeNode[] elements = copyElements(parent, indices);
+		parent.removeChildren(indices);
+		this.changed.add(parent);
+		this.structureChanged.add(parent);
+		this.reverts.add(transaction -> transaction.insertAll(parent, indices, elements));
+	}
+
+	/**
+	 * @return Nodes holding the values of the array elements, which can be inserted again
+	 */
+	private static NBTTagTreeNode[] copyElements(NBTTagTreeNode parent, int[] indices) {
+		NBTTagTreeNode[] elements = new NBTTagTreeNode[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			NBTTagTreeNode element = (NBTTagTreeNode) parent.getChildAt(indices[i]);
+			elements[i] = new NBTTagTreeNode(element.getType(), "", element.getValue());
+		}
+		return elements;
+	}
+
+	/**
+	 * @return {@code true} if nothing was edited
+	 */
+	boolean isEmpty() {
+		return this.reverts.isEmpty() && this.removed.isEmpty();
+	}
+
+	/**
+	 * Applies the removals and notifies the tree. Inserted nodes are announced first and removed nodes second, so the
+	 * indices of every event match the children of the parent at that time. Nodes are only mentioned in an event if
+	 * the tree knows about them and no event of one of their parents covers them already.
+	 */
+	void commit() {
+		checkOpen();
+		this.committed = true;
+
+		//Nodes below another removed node are removed together with it, so all of them are collected before anything
+		//is detached
+		this.removed.forEach((parent, children) -> children.forEach(child -> {
+			if (child.getParent() == parent)
+				this.removedNodes.add(child);
+		}));
+
+		this.inserted.forEach((parent, children) -> {
+			if (!isKnown(parent) || this.structureChanged.contains(parent))
+				return;
+			int[] indices = children.stream().mapToInt(parent::getIndex).sorted().toArray();
+			if (indices.length > 0)
+				this.model.nodesWereInserted(parent, indices);
+		});
+
+		Map<NBTTagTreeNode, int[]> removals = new LinkedHashMap<>();
+		Set<NBTTagTreeNode> silentRemovals = new HashSet<>();
+		this.removed.forEach((parent, children) -> {
+			if (isRemoved(parent))
+				return;
+			int[] indices = children.stream().filter(this.removedNodes::contains).mapToInt(parent::getIndex).sorted()
+					.toArray();
+			removals.put(parent, indices);
+			if (!isKnown(parent) || this.structureChanged.contains(parent))
+				silentRemovals.add(parent);
+		});
+		removals.forEach((parent, indices) -> {
+			NBTTagTreeNode[] children;
+			if (parent.isArray()) {
+				children = copyElements(parent, indices);
+			} else {
+				children = new NBTTagTreeNode[indices.length];
+				for (int i = 0; i < indices.length; i++)
+					children[i] = (NBTTagTreeNode) parent.getChildAt(indices[i]);
+			}
+			this.reverts.add(transaction -> transaction.insertAll(parent, indices, children));
+
+			if (silentRemovals.contains(parent)) {
+				parent.removeChildren(indices);
+			} else {
+				this.model.removeChildren(parent, indices);
+				//Shows the new length
+				if (parent.isArray())
+					this.changed.add(parent);
+			}
+		});
+		//The removed nodes are detached now, which isKnown notices on its own
+		this.removedNodes.clear();
+
+		for (NBTTagTreeNode node : this.structureChanged) {
+			if (isKnown(node))
+				this.model.nodeStructureChanged(node);
+		}
+
+		Map<NBTTagTreeNode, List<TreeNode>> changedChildren = new LinkedHashMap<>();
+		for (NBTTagTreeNode node : this.changed) {
+			if (!isKnown(node))
+				continue;
+			if (node.getParent() == null)
+				this.model.nodeChanged(node);
+			else
+				changedChildren.computeIfAbsent((NBTTagTreeNode) node.getParent(), key -> new ArrayList<>()).add(node);
+		}
+		if (changedChildren.isEmpty())
+			return;
+
+		Set<Object> expanded = getExpandedNodes();
+		changedChildren.forEach((parent, children) -> {
+			int[] indices = new int[children.size()];
+			for (int i = 0; i < indices.length; i++)
+				indices[i] = parent.getIndex(children.get(i));
+			Arrays.sort(indices);
+
+			if (expanded == null || expanded.contains(parent))
+				this.model.nodesChanged(parent, indices);
+			else
+				this.model.tagsChanged(parent, indices);
+		});
+	}
+
+	/**
+	 * @return The nodes which the tree shows the children of, or {@code null} if there is no tree
+	 */
+	@Nullable
+	private Set<Object> getExpandedNodes() {
+		if (this.tree == null)
+			return null;
+
+		Set<Object> expanded = new HashSet<>();
+		TreePath rootPath = new TreePath(this.model.getRoot());
+		Enumeration<TreePath> paths = this.tree.getExpandedDescendants(rootPath);
+		if (paths != null) {
+			expanded.add(this.model.getRoot());
+			while (paths.hasMoreElements())
+				expanded.add(paths.nextElement().getLastPathComponent());
+		}
+		return expanded;
+	}
+
+	/**
+	 * Reverts the committed edits with another transaction, which is committed as well
+	 *
+	 * @return The transaction which reverted this one, reverting it redoes the edits of this one
+	 */
+	NBTTreeTransaction revert() {
+		if (!this.committed)
+			throw new IllegalStateException("The transaction was not committed yet");
+
+		NBTTreeTransaction transaction = new NBTTreeTransaction(this.model, this.tree);
+		try {
+			for (int i = this.reverts.size() - 1; i >= 0; i--)
+				this.reverts.get(i).accept(transaction);
+		} finally {
+			transaction.commit();
+		}
+		return transaction;
+	}
+
+	/**
+	 * @return {@code false} if the tree does not know about the node yet, if it was removed, or if an ancestor of it
+	 * changed its structure, which tells the tree about the node already
+	 */
+	private boolean isKnown(TreeNode node) {
+		for (TreeNode current = node; current != null; current = current.getParent()) {
+			if (this.insertedNodes.contains(current) || this.removedNodes.contains(current))
+				return false;
+			if (current != node && this.structureChanged.contains(current))
+				return false;
+			if (current == this.model.getRoot())
+				return true;
+		}
+		//Detached by an edit of one of its former parents
+		return false;
+	}
+
+	private boolean isRemoved(TreeNode node) {
+		for (TreeNode current = node; current != null; current = current.getParent()) {
+			if (this.removedNodes.contains(current))
+				return true;
+		}
+		return false;
+	}
+
+	private void checkOpen() {
+		if (this.committed)
+			throw new IllegalStateException("The transaction was committed already");
+	}
+}
@@ -0,0 +1,88 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The compressions NBT files can be stored with. Java edition mostly uses GZIP, chunks inside of region files are
+ * usually stored using zlib and optionally using LZ4 since 1.20.5.
+ */
+public enum NBTCompression {
+
+	NONE,
+	GZIP,
+	ZLIB,
+	LZ4;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Every block written by {@link LZ4BlockOutputStream} starts with this
+	 */
+	private static final byte[] LZ4_MAGIC = "LZ4Block".getBytes(StandardCharsets.US_ASCII);
+	/**
+	 * The amount of bytes needed by {@link #detect(byte[], int)}
+	 */
+	public static final int MAGIC_LENGTH = LZ4_MAGIC.length;
+
+	/**
+	 * Identifies the compression from the magic bytes at the start of the data
+	 *
+	 * @param head   The first bytes of the data
+	 * @param length The amount of valid bytes in {@code head}
+	 */
+	public static NBTCompression detect(byte[] head, int length) {
+		if (length >= 2) {
+			int first = head[0] & 0xFF;
+			int second = head[1] & 0xFF;
+			if (first == 0x1F && second == 0x8B)
+				return GZIP;
+			//Deflate with a window of at most 32 KB and a valid header checksum. None of the possible first bytes is the
+			// id of a compound or list, so uncompressed data can not be mistaken for this.
+			if ((first & 0x0F) == 8 && (first >> 4) <= 7 && ((first << 8) | second) % 31 == 0)
+				return ZLIB;
+		}
+		if (length >= LZ4_MAGIC.length && Arrays.equals(head, 0, LZ4_MAGIC.length, LZ4_MAGIC, 0, LZ4_MAGIC.length))
+			return LZ4;
+		return NONE;
+	}
+
+	public InputStream decompress(InputStream in) throws IOException {
+		switch (this) {
+			case GZIP:
+				return new GZIPInputStream(in, BUFFER_SIZE);
+			case ZLIB:
+				return new InflaterInputStream(in);
+			case LZ4:
+				return new LZ4BlockInputStream(in);
+			default:
+				return in;
+		}
+	}
+
+	/**
+	 * Closing the returned stream finishes the compressed data and closes {@code out}
+	 */
+	public OutputStream compress(OutputStream out) throws IOException {
+		switch (this) {
+			case GZIP:
+				return new GZIPOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+			case ZLIB:
+				return new DeflaterOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+			case LZ4:
+				return new LZ4BlockOutputStream(out);
+			default:
+				return out;
+		}
+	}
+}
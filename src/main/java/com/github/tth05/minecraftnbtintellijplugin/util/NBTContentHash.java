@@ -0,0 +1,214 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTag;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+
+import javax.swing.tree.TreeNode;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Computes a 64-bit hash of the content of a tag and everything below it. The hash of a list or compound is made up
+ * of the hashes of its children, so two subtrees with the same hash can be treated as equal without looking into
+ * them. The name of the tag itself is not part of its hash, only the names of the children of a compound are.
+ * <p>
+ * Hashes only depend on the values, not on how they are encoded. Nodes which still have their encoded payload are
+ * hashed straight from the source without decoding their children, and the same content gives the same hash in
+ * every {@link NBTFormat}. Compounds are unordered, so the order of their children does not change the hash.
+ * <p>
+ * The hashes of arrays, lists and compounds are remembered, so every subtree is only hashed once no matter how often
+ * it or its parents are hashed. Hashing a payload also remembers the hashes of the payloads in it, which are found
+ * again once their nodes are decoded. The hashed trees must not change while they are hashed by the same instance.
+ */
+public final class NBTContentHash {
+
+	private static final long PRIME = 0x9E3779B97F4A7C15L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+
+	private final Map<NBTTagTreeNode, Long> nodeHashes = new IdentityHashMap<>();
+	/**
+	 * The hashes of the payloads in each source by their offset
+	 */
+	private final Map<NBTSource, Map<Integer, Long>> payloadHashes = new IdentityHashMap<>();
+
+	public long hash(NBTTagTreeNode node) throws IOException {
+		int type = node.getType().getId();
+		if (!isRemembered(type))
+			return hashNode(node);
+
+		Long hash = this.nodeHashes.get(node);
+		if (hash == null) {
+			hash = hashNode(node);
+			this.nodeHashes.put(node, hash);
+		}
+		return hash;
+	}
+
+	private long hashNode(NBTTagTreeNode node) throws IOException {
+		int type = node.getType().getId();
+		NBTTag snapshot = NBTTag.of(node);
+		if (snapshot.isEncoded()) {
+			Map<Integer, Long> hashes = this.payloadHashes.computeIfAbsent(snapshot.getEncodedSource(), source -> new HashMap<>());
+			NBTReader reader = snapshot.openEncodedPayload();
+			Long hash = hashes.get(reader.position());
+			return hash != null ? hash : hashPayload(type, reader, hashes);
+		}
+
+		Object value = node.getValue();
+		switch (node.getType()) {
+			case BYTE:
+			case SHORT:
+			case INT:
+			case LONG:
+				return hashValue(type, ((Number) value).longValue());
+			case FLOAT:
+				return hashValue(type, Float.floatToRawIntBits((Float) value));
+			case DOUBLE:
+				return hashValue(type, Double.doubleToRawLongBits((Double) value));
+			case STRING:
+				return hashString(type, (String) value);
+			case BYTE_ARRAY: {
+				byte[] array = (byte[]) value;
+				long hash = type;
+				for (byte element : array)
+					hash = mix(hash ^ element);
+				return mix(hash + array.length);
+			}
+			case INT_ARRAY: {
+				int[] array = (int[]) value;
+				long hash = type;
+				for (int element : array)
+					hash = mix(hash ^ element);
+				return mix(hash + array.length);
+			}
+			case LONG_ARRAY: {
+				long[] array = (long[]) value;
+				long hash = type;
+				for (long element : array)
+					hash = mix(hash ^ element);
+				return mix(hash + array.length);
+			}
+			case LIST: {
+				long hash = type;
+				Enumeration<TreeNode> children = node.children();
+				while (children.hasMoreElements())
+					hash = mix(hash ^ hash((NBTTagTreeNode) children.nextElement()));
+				return mix(hash + node.getChildCount());
+			}
+			default: {
+				long sum = 0;
+				Enumeration<TreeNode> children = node.children();
+				while (children.hasMoreElements()) {
+					NBTTagTreeNode child = (NBTTagTreeNode) children.nextElement();
+					sum += hashEntry(child.getName(), hash(child));
+				}
+				return mix(type * PRIME + sum + node.getChildCount());
+			}
+		}
+	}
+
+	/**
+	 * Hashes an encoded payload in one pass, without creating any nodes. Has to give the same result as
+	 * {@link #hash(NBTTagTreeNode)} for the decoded tag.
+	 *
+	 * @param hashes The hashes of the payloads in the source of the reader, which the hashes of this payload and the
+	 *               ones in it are added to
+	 */
+	private static long hashPayload(int type, NBTReader reader, Map<Integer, Long> hashes) throws IOException {
+		int offset = reader.position();
+		long hash = hashPayloadContent(type, reader, hashes);
+		if (isRemembered(type))
+			hashes.put(offset, hash);
+		return hash;
+	}
+
+	private static long hashPayloadContent(int type, NBTReader reader, Map<Integer, Long> hashes) throws IOException {
+		switch (type) {
+			case 1:
+				return hashValue(type, reader.readByte());
+			case 2:
+				return hashValue(type, reader.readShort());
+			case 3:
+				return hashValue(type, reader.readInt());
+			case 4:
+				return hashValue(type, reader.readLong());
+			case 5:
+				return hashValue(type, Float.floatToRawIntBits(reader.readFloat()));
+			case 6:
+				return hashValue(type, Double.doubleToRawLongBits(reader.readDouble()));
+			case 7:
+			case 11:
+			case 12: {
+				int size = reader.readInt();
+				if (size < 0 || size > reader.remaining())
+					throw new IOException("Invalid array size: " + size);
+				long hash = type;
+				for (int i = 0; i < size; i++)
+					hash = mix(hash ^ (type == 7 ? reader.readByte() : type == 11 ? reader.readInt() : reader.readLong()));
+				return mix(hash + size);
+			}
+			case 8:
+				return hashString(type, reader.readString());
+			case 9: {
+				int listType = reader.readUnsignedByte();
+				int size = reader.readInt();
+				long hash = type;
+				for (int i = 0; i < size; i++)
+					hash = mix(hash ^ hashPayload(listType, reader, hashes));
+				return mix(hash + size);
+			}
+			case 10: {
+				long sum = 0;
+				int count = 0;
+				while (true) {
+					int childType = reader.readUnsignedByte();
+					if (childType == 0)
+						return mix(type * PRIME + sum + count);
+					String name = reader.readString();
+					sum += hashEntry(name, hashPayload(childType, reader, hashes));
+					count++;
+				}
+			}
+			default:
+				throw new IOException("Unknown tag id found: " + type);
+		}
+	}
+
+	/**
+	 * Primitives are cheaper to hash again than to remember, just like the decoder does not remember their payloads
+	 */
+	private static boolean isRemembered(int type) {
+		return type == 7 || type >= 9;
+	}
+
+	private static long hashValue(int type, long value) {
+		return mix(type * PRIME + value);
+	}
+
+	private static long hashString(int type, String value) {
+		long hash = type;
+		for (int i = 0; i < value.length(); i++)
+			hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+		return mix(hash + value.length());
+	}
+
+	/**
+	 * The children of a compound are summed up, so every child has to be mixed together with its name first
+	 */
+	private static long hashEntry(String name, long hash) {
+		return mix(hashString(0, name) * PRIME + hash);
+	}
+
+	/**
+	 * The finalizer of SplitMix64, every bit of the input affects every bit of the output
+	 */
+	private static long mix(long hash) {
+		hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+		hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+		return hash ^ (hash >>> 31);
+	}
+
+}
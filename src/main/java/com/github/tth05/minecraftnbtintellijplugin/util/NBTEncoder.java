@@ -0,0 +1,161 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTag;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Turns {@link NBTTag}s back into encoded NBT. Payloads which were not changed since they were decoded are copied
+ * instead of being encoded again.
+ */
+public class NBTEncoder {
+
+	/**
+	 * Writes the tag to the stream and closes it
+	 */
+	public static void encode(NBTTag root, NBTFormat format, NBTCompression compression, OutputStream out) throws IOException {
+		try (NBTWriter writer = format.createWriter(compression.compress(out))) {
+			writeTag(root, writer, format, true);
+		}
+	}
+
+	/**
+	 * @param format The format of the writer
+	 */
+	private static void writeTag(NBTTag tag, NBTWriter stream, NBTFormat format, boolean writeName) throws IOException {
+		if (writeName) {
+			stream.writeByte(tag.getType().getId());
+			stream.writeString(tag.getName());
+		}
+
+		if (tag.isEncoded()) {
+			//Unchanged payloads are copied as they are if the format did not change
+			if (tag.getEncodedFormat() == format)
+				stream.writeBytes(tag.getEncodedPayload());
+			else
+				transcodePayload(tag.getType().getId(), tag.openEncodedPayload(), stream);
+			return;
+		}
+
+		switch (tag.getType()) {
+			case BYTE:
+				stream.writeByte((Byte) tag.getValue());
+				break;
+			case SHORT:
+				stream.writeShort((Short) tag.getValue());
+				break;
+			case LONG:
+				stream.writeLong((Long) tag.getValue());
+				break;
+			case INT:
+				stream.writeInt((Integer) tag.getValue());
+				break;
+			case FLOAT:
+				stream.writeFloat((Float) tag.getValue());
+				break;
+			case DOUBLE:
+				stream.writeDouble((Double) tag.getValue());
+				break;
+			case BYTE_ARRAY:
+				byte[] byteArray = (byte[]) tag.getValue();
+				stream.writeInt(byteArray.length);
+				stream.writeBytes(byteArray);
+				break;
+			case STRING:
+				stream.writeString((String) tag.getValue());
+				break;
+			case LIST:
+				List<NBTTag> elements = tag.getChildren();
+				stream.writeByte(elements.isEmpty() ? 0 : elements.get(0).getType().getId());
+				stream.writeInt(elements.size());
+				for (NBTTag element : elements)
+					writeTag(element, stream, format, false);
+				break;
+			case COMPOUND:
+				for (NBTTag child : tag.getChildren())
+					writeTag(child, stream, format, true);
+				stream.writeByte(0);
+				break;
+			case INT_ARRAY:
+				int[] intArray = (int[]) tag.getValue();
+				stream.writeInt(intArray.length);
+				stream.writeInts(intArray);
+				break;
+			case LONG_ARRAY:
+				long[] longArray = (long[]) tag.getValue();
+				stream.writeInt(longArray.length);
+				stream.writeLongs(longArray);
+				break;
+		}
+	}
+
+	/**
+	 * Reads the payload of a tag and writes it again without creating any nodes. Reader and writer do not have to
+	 * use the same format.
+	 */
+	private static void transcodePayload(int type, NBTReader reader, NBTWriter writer) throws IOException {
+		switch (type) {
+			case 1:
+				writer.writeByte(reader.readByte());
+				break;
+			case 2:
+				writer.writeShort(reader.readShort());
+				break;
+			case 3:
+				writer.writeInt(reader.readInt());
+				break;
+			case 4:
+				writer.writeLong(reader.readLong());
+				break;
+			case 5:
+				writer.writeFloat(reader.readFloat());
+				break;
+			case 6:
+				writer.writeDouble(reader.readDouble());
+				break;
+			case 7:
+				byte[] byteArray = new byte[reader.readInt()];
+				reader.readBytes(byteArray);
+				writer.writeInt(byteArray.length);
+				writer.writeBytes(byteArray);
+				break;
+			case 8:
+				writer.writeString(reader.readString());
+				break;
+			case 9:
+				int listType = reader.readUnsignedByte();
+				int listSize = reader.readInt();
+				writer.writeByte(listType);
+				writer.writeInt(listSize);
+				for (int i = 0; i < listSize; i++)
+					transcodePayload(listType, reader, writer);
+				break;
+			case 10:
+				while (true) {
+					int childType = reader.readUnsignedByte();
+					writer.writeByte(childType);
+					if (childType == 0)
+						break;
+					writer.writeString(reader.readString());
+					transcodePayload(childType, reader, writer);
+				}
+				break;
+			case 11:
+				int[] intArray = new int[reader.readInt()];
+				reader.readInts(intArray);
+				writer.writeInt(intArray.length);
+				writer.writeInts(intArray);
+				break;
+			case 12:
+				long[] longArray = new long[reader.readInt()];
+				reader.readLongs(longArray);
+				writer.writeInt(longArray.length);
+				writer.writeLongs(longArray);
+				break;
+			default:
+				throw new IOException("Unknown tag id found: " + type);
+		}
+	}
+}
@@ -1,308 +1,335 @@
 package com.github.tth05.minecraftnbtintellijplugin.util;
 
+import com.github.tth05.minecraftnbtintellijplugin.NBTTag;
 import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
-import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
-import com.github.tth05.minecraftnbtintellijplugin.editor.ui.NBTFileEditorUI;
-import com.intellij.notification.Notification;
-import com.intellij.notification.NotificationType;
-import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.actionSystem.CommonDataKeys;
-import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.project.Project;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.ui.treeStructure.Tree;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.TreeNode;
 import java.io.ByteArrayOutputStream;
-import java.io.Closeable;
-import java.io.DataInput;
-import java.io.DataInputStream;
-import java.io.DataOutput;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Enumeration;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.ZipException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 // https://minecraft.gamepedia.com/NBT_format
 public class NBTFileUtil {
 
 	/**
-	 * Uses the event to get the current project and file and then calls {@link #saveTreeToFile(Tree, VirtualFile, Project, boolean, boolean, Integer)}
-	 * This method is only used for auto-saving and only called by actions
+	 * All sources which still map the file, they are copied onto the heap before the file is written to
+	 */
+	private static final Key<Set<NBTSource>> MAPPED_SOURCES_KEY = Key.create("NBTFileUtil.mappedSources");
+
+	private static final Logger LOG = Logger.getInstance(NBTFileUtil.class);
+
+	private static final int LEVEL_DAT_HEADER_LENGTH = 8;
+
+	private static final int DECOMPRESS_CHUNK_SIZE = 64 * 1024;
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+	/**
+	 * Decompressed data is copied into an array of the exact size if the unused part of the array is bigger than one
+	 * in this many bytes of the data
+	 */
+	private static final int MAX_SLACK_FRACTION = 8;
+
+	/**
+	 * Resolves the format a file is saved in. level.dat files are always little endian without VarInts and network
+	 * data is always little endian.
+	 */
+	public static NBTFormat getSaveFormat(boolean littleEndian, boolean network, boolean levelDat) {
+		if (levelDat)
+			return NBTFormat.LITTLE_ENDIAN;
+		return NBTFormat.of(littleEndian, network);
+	}
+
+	/**
+	 * Encodes the given tag into the complete content of a NBT file. level.dat files are prefixed with their header.
 	 *
-	 * @param event The event
+	 * @param levelDatVersion The version to write into the level.dat header or {@code null} for other files
 	 */
-	public static void saveTree(AnActionEvent event) {
-		NBTFileEditorUI nbtFileEditorUI = event.getData(NBTFileEditorUI.DATA_KEY);
-		Project project = event.getProject();
-		VirtualFile file = event.getData(CommonDataKeys.VIRTUAL_FILE);
-
-		if (nbtFileEditorUI == null || nbtFileEditorUI.getTree() == null || file == null) {
-			new Notification("NBTSaveError",
-					"Error saving NBT file",
-					"Due to an unknown error the file could not be saved.",
-					NotificationType.WARNING).notify(project);
-			return;
-		}
+	public static byte[] encode(NBTTag root, NBTFormat format, NBTCompression compression, @Nullable Integer levelDatVersion) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		if (levelDatVersion != null)
+			baos.write(new byte[LEVEL_DAT_HEADER_LENGTH]);
 
-		if (!nbtFileEditorUI.isAutoSaveEnabled())
-			return;
+		NBTEncoder.encode(root, format, compression, baos);
 
-		saveTreeToFile(nbtFileEditorUI.getTree(), file, project, nbtFileEditorUI.isLittleEndian(), nbtFileEditorUI.isNetwork(), nbtFileEditorUI.isLevelDat() ? nbtFileEditorUI.getLevelDatVersion().getValue() : null);
+		byte[] bytes = baos.toByteArray();
+		if (levelDatVersion != null)
+			createLevelDatHeader(levelDatVersion, bytes.length - LEVEL_DAT_HEADER_LENGTH).get(bytes, 0, LEVEL_DAT_HEADER_LENGTH);
+		return bytes;
 	}
 
 	/**
-	 * Serializes the given tree and writes the bytes to the file. If the saving failed, a notification will be shown.
+	 * Encodes the given tag into a temporary file next to {@code target}, without keeping the encoded data in
+	 * memory. The level.dat header is written once the length of the data is known.
 	 *
-	 * @param tree    The tree to be serialized
-	 * @param file    The file to write the bytes to
-	 * @param project The current project to show the notification in
+	 * @param levelDatVersion The version to write into the level.dat header or {@code null} for other files
+	 * @return The temporary file, which can be moved to {@code target} using {@link #replaceFile(VirtualFile, Path, Object)}
 	 */
-	public static void saveTreeToFile(Tree tree, VirtualFile file, Project project, boolean littleEndian, boolean network, @Nullable Integer levelDatVersion) {
-		if (levelDatVersion != null) {
-			littleEndian = true;
-			network = false;
-		} else if (network) {
-			littleEndian = true;
-		}
-		boolean le = littleEndian;
-		boolean net = network;
+	public static Path encodeToTempFile(NBTTag root, NBTFormat format, NBTCompression compression, @Nullable Integer levelDatVersion, Path target) throws IOException {
+		Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream os = Files.newOutputStream(temp)) {
+				if (levelDatVersion != null)
+					os.write(new byte[LEVEL_DAT_HEADER_LENGTH]);
+				NBTEncoder.encode(root, format, compression, os);
+			}
 
-		ApplicationManager.getApplication().runWriteAction(() -> {
-			DataOutput outputStream = null;
-			try {
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				if (net)
-					outputStream = new NetworkDataOutputStream(baos);
-				else if (le)
-					outputStream = new LittleEndianDataOutputStream(baos);
-				else
-					outputStream = new DataOutputStream(new GZIPOutputStream(baos));
-
-				writeNodeToStream((NBTTagTreeNode) tree.getModel().getRoot(), outputStream, true);
-
-				try (OutputStream os = file.getOutputStream(tree)) {
-					if (levelDatVersion != null) {
-						LittleEndianDataOutputStream ledos = new LittleEndianDataOutputStream(os);
-						ledos.writeInt(levelDatVersion);
-						ledos.writeInt(baos.size());
-					}
-
-					os.write(baos.toByteArray());
+			if (levelDatVersion != null) {
+				try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+					ByteBuffer header = createLevelDatHeader(levelDatVersion, (int) (channel.size() - LEVEL_DAT_HEADER_LENGTH));
+					while (header.hasRemaining())
+						channel.write(header, header.position());
 				}
-			} catch (IOException ex) {
-				new Notification("NBTSaveError",
-						"Error saving NBT file",
-						"Due to an unknown error the file could not be saved: " + ex.getMessage(),
-						NotificationType.WARNING).notify(project);
-			} finally {
-				if (outputStream != null)
-					try {
-						((Closeable) outputStream).close();
-					} catch (IOException ignored) {
-					}
 			}
-		});
+			return temp;
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
 	}
 
-	private static void writeNodeToStream(NBTTagTreeNode node,
-	                                      DataOutput stream,
-	                                      boolean writeName) throws IOException {
-		if (writeName) {
-			stream.writeByte(node.getType().getId());
-			stream.writeUTF(node.getName());
-		}
-		switch (node.getType()) {
-			case BYTE:
-				stream.writeByte((Byte) node.getValue());
-				break;
-			case SHORT:
-				stream.writeShort((Short) node.getValue());
-				break;
-			case LONG:
-				stream.writeLong((Long) node.getValue());
-				break;
-			case INT:
-				stream.writeInt((Integer) node.getValue());
-				break;
-			case FLOAT:
-				stream.writeFloat((Float) node.getValue());
-				break;
-			case DOUBLE:
-				stream.writeDouble((Double) node.getValue());
-				break;
-			case BYTE_ARRAY:
-				stream.writeInt(node.getChildCount());
-				Enumeration<TreeNode> byteArrayChildren = node.children();
-				while (byteArrayChildren.hasMoreElements()) {
-					NBTTagTreeNode child = (NBTTagTreeNode) byteArrayChildren.nextElement();
-					stream.writeByte((Byte) (child).getValue());
-				}
-				break;
-			case STRING:
-				stream.writeUTF((String) node.getValue());
-				break;
-			case LIST:
-				if (node.getChildCount() > 0)
-					stream.writeByte(((NBTTagTreeNode) node.getFirstChild()).getType().getId());
-				else
-					stream.writeByte(0);
-				stream.writeInt(node.getChildCount());
-				Enumeration<TreeNode> listChildren = node.children();
-				while (listChildren.hasMoreElements())
-					writeNodeToStream((NBTTagTreeNode) listChildren.nextElement(), stream, false);
-				break;
-			case COMPOUND:
-				Enumeration<TreeNode> compoundChildren = node.children();
-				while (compoundChildren.hasMoreElements())
-					writeNodeToStream((NBTTagTreeNode) compoundChildren.nextElement(), stream, true);
-				stream.writeByte(0);
-				break;
-			case INT_ARRAY:
-				stream.writeInt(node.getChildCount());
-				Enumeration<TreeNode> intArrayChildren = node.children();
-				while (intArrayChildren.hasMoreElements())
-					stream.writeInt((Integer) ((NBTTagTreeNode) intArrayChildren.nextElement()).getValue());
-				break;
-			case LONG_ARRAY:
-				stream.writeInt(node.getChildCount());
-				Enumeration<TreeNode> longArrayChildren = node.children();
-				while (longArrayChildren.hasMoreElements())
-					stream.writeLong((Long) ((NBTTagTreeNode) longArrayChildren.nextElement()).getValue());
-				break;
+	private static ByteBuffer createLevelDatHeader(int version, int length) {
+		ByteBuffer header = ByteBuffer.allocate(LEVEL_DAT_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(version);
+		header.putInt(length);
+		return header.flip();
+	}
+
+	/**
+	 * Replaces the content of the file. Has to be called inside a write action.
+	 *
+	 * @param requestor The object which requested the write
+	 */
+	public static void writeToFile(VirtualFile file, Object requestor, byte[] content) throws IOException {
+		detachMappedSources(file);
+		try (OutputStream os = file.getOutputStream(requestor)) {
+			os.write(content);
 		}
 	}
 
-	@Nullable
-	public static DefaultMutableTreeNode loadNBTFileIntoTree(VirtualFile file, boolean littleEndian, boolean network, @Nullable MutableInt levelDatVersion) {
-		if (levelDatVersion != null) {
-			littleEndian = true;
-			network = false;
-		} else if (network) {
-			littleEndian = true;
+	/**
+	 * Atomically moves the temporary file over the file, so a crash while saving can never leave a truncated file
+	 * behind. If the file cannot be replaced, which can happen on Windows while it is opened somewhere else, the
+	 * content is copied into it instead. Has to be called inside a write action.
+	 * <p>
+	 * Sources which map the file keep the old file alive, so they only have to be copied onto the heap if the content
+	 * is copied into the file.
+	 *
+	 * @param temp      A file created by {@link #encodeToTempFile(NBTTag, NBTFormat, NBTCompression, Integer, Path)}, it is gone
+	 *                  afterwards
+	 * @param requestor The object which requested the write
+	 */
+	public static void replaceFile(VirtualFile file, Path temp, Object requestor) throws IOException {
+		Path target = file.toNioPath();
+		try {
+			copyPermissions(target, temp);
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			file.refresh(false, false);
+		} catch (FileSystemException e) {
+			detachMappedSources(file);
+			try (OutputStream os = file.getOutputStream(requestor)) {
+				Files.copy(temp, os);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
 		}
+	}
 
-		DataInput data = null;
+	/**
+	 * Temporary files are only readable by their owner, the replaced file should keep its permissions though
+	 */
+	private static void copyPermissions(Path source, Path target) throws IOException {
+		if (!Files.getFileStore(source).supportsFileAttributeView(PosixFileAttributeView.class))
+			return;
+		Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+	}
+
+	/**
+	 * Decodes the given file into a tree of {@link NBTTagTreeNode}s.
+	 *
+	 * @param format          The format of the data, level.dat files are always {@link NBTFormat#LITTLE_ENDIAN}
+	 * @param compression     The compression of the file, see {@link NBTFormatDetector}
+	 * @param levelDatVersion If not {@code null}, the file is expected to start with a level.dat header and the
+	 *                        version from it is stored in here
+	 * @param lazy      If {@code true}, only the direct children of the root are decoded. Every compound or list below
+	 *                  that is only skipped over and decoded once its children are accessed for the first time.
+	 * @param indicator If not {@code null}, it shows how far the decoding got and is checked for cancellation. A
+	 *                  {@link ProcessCanceledException} thrown by it is passed on to the caller.
+	 * @return The root node or {@code null} if the file is not a valid NBT file
+	 */
+	@Nullable
+	public static DefaultMutableTreeNode loadNBTFileIntoTree(VirtualFile file, NBTFormat format, NBTCompression compression, @Nullable MutableInt levelDatVersion, boolean lazy, @Nullable ProgressIndicator indicator) {
 		try {
-			if (network)
-				data = new NetworkDataInputStream(file.getInputStream());
-			else if (littleEndian)
-				data = new LittleEndianDataInputStream(file.getInputStream());
-			else
-				data = uncompress(file.getInputStream());
+			if (indicator != null)
+				indicator.setText("Reading " + file.getName());
+
+			NBTSource source = compression == NBTCompression.NONE ?
+					readUncompressed(file, format) :
+					new NBTSource(decompress(file, compression, indicator), format);
+			if (source.isMapped()) {
+				file.putUserDataIfAbsent(MAPPED_SOURCES_KEY,
+						Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()))).add(source);
+			}
+			NBTReader reader = source.open(0);
 
 			if (levelDatVersion != null) {
-				levelDatVersion.setValue(data.readInt());
-				int length = data.readInt();
+				levelDatVersion.setValue(reader.readInt());
+				int length = reader.readInt();
 			}
 
 			//Get tag id
-			int type = data.readUnsignedByte();
-			String name = data.readUTF(); // Root tag name
-
-			switch (type) {
-				case 10:
-					NBTTagTreeNode root = new NBTTagTreeNode(NBTTagType.COMPOUND, name, null);
-					loadNBTDataOfCompound(root, data);
-					return root;
-				case 9:
-					int listType = data.readUnsignedByte();
-					int listSize = data.readInt();
-					NBTTagTreeNode listNode = new NBTTagTreeNode(NBTTagType.LIST, "", listSize + " elements");
-					for (int i = 0; i < listSize; i++)
-						listNode.add(createNode(listType, "[" + i + "]", data));
-					return listNode;
+			int type = reader.readUnsignedByte();
+			String name = reader.readString(); // Root tag name
+
+			if (type != 10 && type != 9)
+				return null;
+
+			NBTTreeDecoder.ProgressListener listener = null;
+			if (indicator != null) {
+				indicator.setText("Decoding " + file.getName());
+				String total = StringUtil.formatFileSize(source.length());
+				//Big lists are decoded in parallel, so the positions are not always increasing
+				AtomicInteger furthestPosition = new AtomicInteger();
+				listener = (tagCount, position) -> {
+					indicator.checkCanceled();
+					int furthest = furthestPosition.accumulateAndGet(position, Math::max);
+					indicator.setFraction((double) furthest / source.length());
+					indicator.setText2(tagCount + " tags, " + StringUtil.formatFileSize(furthest) + " of " + total);
+				};
 			}
 
+			NBTTreeDecoder decoder = new NBTTreeDecoder(source, lazy, listener);
+			decoder.setInternStringValues(true);
+			NBTTagTreeNode root = decoder.createNode(type, name, reader);
+			//Only the nodes below the root are kept lazy, it's always expanded anyway
+			root.getChildCount();
+
+			NBTStringTable strings = decoder.getStringTable();
+			if (strings.getLookups() > 0) {
+				LOG.info(file.getName() + ": " + strings.getHits() + " of " + strings.getLookups() + " strings (" +
+						strings.getHits() * 100 / strings.getLookups() + "%) were deduplicated");
+			}
+			return root;
+		} catch (ProcessCanceledException e) {
+			throw e;
+		} catch (IOException | RuntimeException e) {
+			//Corrupted data can fail in many ways, like VarInts which are too long or indices out of bounds
 			return null;
-		} catch (IOException e) {
-			return null;
-		} finally {
-			if (data != null)
-				try {
-					((Closeable) data).close();
-				} catch (IOException ignored) {
-				}
 		}
 	}
 
-	private static void loadNBTDataOfCompound(DefaultMutableTreeNode root, DataInput data) throws IOException {
-		while (true) {
-			//Get tag id
-			int type = data.readUnsignedByte();
+	/**
+	 * Maps local files into memory, so they do not have to be copied onto the heap. Windows does not allow writing
+	 * to a file while it is mapped, so there and for non-local files the content is read into a heap buffer.
+	 * <p>
+	 * Mapped sources remember the state of the file, see {@link NBTSource#checkFile()}.
+	 */
+	private static NBTSource readUncompressed(VirtualFile file, NBTFormat format) throws IOException {
+		if (file.isInLocalFileSystem() && !SystemInfo.isWindows) {
+			Path path = file.toNioPath();
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				long size = channel.size();
+				if (size <= Integer.MAX_VALUE && size == attributes.size())
+					return new NBTSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), format, path, attributes);
+			}
+		}
+
+		return new NBTSource(ByteBuffer.wrap(file.contentsToByteArray()), format);
+	}
+
+	/**
+	 * Checks the sources which still map the file, after it might have been changed by another program
+	 *
+	 * @return {@code false} if one of them became stale, the tree loaded from the file cannot be saved then
+	 */
+	public static boolean checkMappedSources(VirtualFile file) {
+		Set<NBTSource> sources = file.getUserData(MAPPED_SOURCES_KEY);
+		if (sources == null)
+			return true;
 
-			if (type != 0)
-				root.add(createNode(type, data.readUTF(), data));
-			else
-				return;
+		boolean valid = true;
+		synchronized (sources) {
+			for (NBTSource source : sources)
+				valid &= source.checkFile();
 		}
+		return valid;
 	}
 
-	private static NBTTagTreeNode createNode(int type, String name, DataInput data) throws IOException {
-		switch (type) {
-			case 1:
-				return new NBTTagTreeNode(NBTTagType.BYTE, name, data.readByte());
-			case 2:
-				return new NBTTagTreeNode(NBTTagType.SHORT, name, data.readShort());
-			case 3:
-				return new NBTTagTreeNode(NBTTagType.INT, name, data.readInt());
-			case 4:
-				return new NBTTagTreeNode(NBTTagType.LONG, name, data.readLong());
-			case 5:
-				return new NBTTagTreeNode(NBTTagType.FLOAT, name, data.readFloat());
-			case 6:
-				return new NBTTagTreeNode(NBTTagType.DOUBLE, name, data.readDouble());
-			case 7:
-				int byteArraySize = data.readInt();
-				NBTTagTreeNode byteArrayNode = new NBTTagTreeNode(NBTTagType.BYTE_ARRAY, name, byteArraySize + " elements");
-				for (int i = 0; i < byteArraySize; i++)
-					byteArrayNode.add(createNode(1, "[" + i + "]", data));
-				return byteArrayNode;
-			case 8:
-				return new NBTTagTreeNode(NBTTagType.STRING, name, data.readUTF());
-			case 9:
-				int listType = data.readUnsignedByte();
-				int listSize = data.readInt();
-				NBTTagTreeNode listNode = new NBTTagTreeNode(NBTTagType.LIST, name, listSize + " elements");
-				for (int i = 0; i < listSize; i++)
-					listNode.add(createNode(listType, "[" + i + "]", data));
-				return listNode;
-			case 10:
-				NBTTagTreeNode compoundNode = new NBTTagTreeNode(NBTTagType.COMPOUND, name, null);
-				loadNBTDataOfCompound(compoundNode, data);
-				return compoundNode;
-			case 11:
-				int intArraySize = data.readInt();
-				NBTTagTreeNode intArrayNode = new NBTTagTreeNode(NBTTagType.INT_ARRAY, name, intArraySize + " elements");
-				for (int i = 0; i < intArraySize; i++)
-					intArrayNode.add(createNode(3, "[" + i + "]", data));
-				return intArrayNode;
-			case 12:
-				int longArraySize = data.readInt();
-				NBTTagTreeNode longArrayNode = new NBTTagTreeNode(NBTTagType.LONG_ARRAY, name, longArraySize + " elements");
-				for (int i = 0; i < longArraySize; i++)
-					longArrayNode.add(createNode(4, "[" + i + "]", data));
-				return longArrayNode;
-			default:
-				throw new IOException("Unknown tag id found: " + type);
+	/**
+	 * Copies the sources which still map the file onto the heap, has to be called before the file is written to
+	 */
+	public static void detachMappedSources(VirtualFile file) {
+		Set<NBTSource> sources = file.getUserData(MAPPED_SOURCES_KEY);
+		if (sources == null)
+			return;
+
+		synchronized (sources) {
+			//Stale sources stay, so the tree which still points into them is not saved
+			sources.removeIf(source -> {
+				source.detach();
+				return !source.isStale();
+			});
 		}
 	}
 
-	private static DataInputStream uncompress(InputStream input) throws IOException {
-		try {
-			final GZIPInputStream inputGzipStream = new GZIPInputStream(input);
-			return new DataInputStream(inputGzipStream);
-		} catch (ZipException e) {
-			//Data is not compressed
-			input.reset();
-			return new DataInputStream(input);
+	/**
+	 * Decompresses the file straight into one growing array. The array is kept as long as the tree, so it is only
+	 * wrapped as it is if it is not much bigger than the decompressed data.
+	 */
+	private static ByteBuffer decompress(VirtualFile file, NBTCompression compression, @Nullable ProgressIndicator indicator) throws IOException {
+		try (InputStream in = compression.decompress(file.getInputStream())) {
+			byte[] buffer = new byte[(int) Math.max(Math.min(file.getLength() * 4, MAX_ARRAY_SIZE), DECOMPRESS_CHUNK_SIZE)];
+			int length = 0;
+			while (true) {
+				if (length == buffer.length) {
+					if (length == MAX_ARRAY_SIZE)
+						throw new IOException("Decompressed data is too large");
+					buffer = Arrays.copyOf(buffer, (int) Math.min(length * 2L, MAX_ARRAY_SIZE));
+				}
+
+				//Decompress in chunks, so cancelling does not have to wait for the whole file
+				int read = in.read(buffer, length, Math.min(buffer.length - length, DECOMPRESS_CHUNK_SIZE));
+				if (read == -1)
+					break;
+				length += read;
+
+				if (indicator != null) {
+					indicator.checkCanceled();
+					indicator.setText2(StringUtil.formatFileSize(length) + " decompressed");
+				}
+			}
+			if (buffer.length - length > length / MAX_SLACK_FRACTION)
+				buffer = Arrays.copyOf(buffer, length);
+			return ByteBuffer.wrap(buffer, 0, length);
 		}
 	}
 }
@@ -0,0 +1,44 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The binary flavours of NBT. Java edition uses big endian, Bedrock edition uses little endian for files and
+ * little endian with VarInts for network data.
+ */
+public enum NBTFormat {
+
+	BIG_ENDIAN,
+	LITTLE_ENDIAN,
+	NETWORK;
+
+	public static NBTFormat of(boolean littleEndian, boolean network) {
+		if (network)
+			return NETWORK;
+		return littleEndian ? LITTLE_ENDIAN : BIG_ENDIAN;
+	}
+
+	public NBTReader createReader(ByteBuffer buffer) {
+		switch (this) {
+			case BIG_ENDIAN:
+				return new NBTReader(buffer, ByteOrder.BIG_ENDIAN, true);
+			case LITTLE_ENDIAN:
+				return new NBTReader(buffer, ByteOrder.LITTLE_ENDIAN, false);
+			default:
+				return new NetworkNBTReader(buffer);
+		}
+	}
+
+	public NBTWriter createWriter(OutputStream out) {
+		switch (this) {
+			case BIG_ENDIAN:
+				return new NBTWriter(out, ByteOrder.BIG_ENDIAN, true);
+			case LITTLE_ENDIAN:
+				return new NBTWriter(out, ByteOrder.LITTLE_ENDIAN, false);
+			default:
+				return new NetworkNBTWriter(out);
+		}
+	}
+}
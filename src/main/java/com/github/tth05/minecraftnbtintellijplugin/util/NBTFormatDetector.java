@@ -0,0 +1,248 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Guesses how a NBT file is stored by looking at its first few bytes. The compression is identified by its magic
+ * bytes. Then the start of the data is parsed in every format and the format in which the most tags make sense wins.
+ */
+public class NBTFormatDetector {
+
+	/**
+	 * The amount of bytes looked at. Even for files which start with large tags, this is enough to tell the formats
+	 * apart by the length prefixes of the first few names.
+	 */
+	static final int HEAD_SIZE = 64;
+	private static final int LEVEL_DAT_HEADER_LENGTH = 8;
+	private static final int MAX_DEPTH = 512;
+
+	/**
+	 * @return The detected format or {@code null} if the file does not look like NBT data in any format
+	 */
+	@Nullable
+	public static Result detect(VirtualFile file) throws IOException {
+		NBTCompression compression = detectCompression(file);
+		byte[] head = new byte[HEAD_SIZE];
+		int headLength;
+		try (InputStream in = compression.decompress(file.getInputStream())) {
+			headLength = in.readNBytes(head, 0, HEAD_SIZE);
+		}
+
+		long dataLength = file.getLength();
+		//The uncompressed length is only known if all of it fit into the head
+		if (compression != NBTCompression.NONE)
+			dataLength = headLength < HEAD_SIZE ? headLength : -1;
+
+		return detect(ByteBuffer.wrap(head, 0, headLength), dataLength, compression);
+	}
+
+	/**
+	 * @param buffer      The uncompressed start of the data
+	 * @param dataLength  The length of the whole uncompressed data or {@code -1} if it is not known
+	 * @param compression The compression of the file, level.dat files are never compressed
+	 */
+	@Nullable
+	static Result detect(ByteBuffer buffer, long dataLength, NBTCompression compression) {
+		if (compression == NBTCompression.NONE && isLevelDatHeader(buffer, dataLength)) {
+			buffer.position(LEVEL_DAT_HEADER_LENGTH);
+			if (countTags(NBTFormat.LITTLE_ENDIAN, buffer.slice(), dataLength - LEVEL_DAT_HEADER_LENGTH) > 0)
+				return new Result(NBTFormat.LITTLE_ENDIAN, compression, true);
+			buffer.position(0);
+		}
+
+		NBTFormat best = null;
+		int bestCount = 0;
+		//Ties are won by the formats declared first, Java edition files are the most common ones
+		for (NBTFormat format : NBTFormat.values()) {
+			int count = countTags(format, buffer.duplicate(), dataLength);
+			if (count > bestCount) {
+				best = format;
+				bestCount = count;
+			}
+		}
+
+		return best == null ? null : new Result(best, compression, false);
+	}
+
+	/**
+	 * Identifies the compression of the file by its magic bytes
+	 */
+	public static NBTCompression detectCompression(VirtualFile file) throws IOException {
+		try (InputStream in = file.getInputStream()) {
+			byte[] magic = in.readNBytes(NBTCompression.MAGIC_LENGTH);
+			return NBTCompression.detect(magic, magic.length);
+		}
+	}
+
+	/**
+	 * Bedrock edition prefixes its level.dat with a little endian version and the length of the remaining data
+	 */
+	private static boolean isLevelDatHeader(ByteBuffer head, long dataLength) {
+		if (head.remaining() <= LEVEL_DAT_HEADER_LENGTH)
+			return false;
+
+		ByteBuffer header = head.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		int version = header.getInt();
+		int length = header.getInt();
+		int rootType = header.get() & 0xFF;
+		return version > 0 && length == dataLength - LEVEL_DAT_HEADER_LENGTH && (rootType == 10 || rootType == 9);
+	}
+
+	/**
+	 * Parses as much of the data as is contained in the head
+	 *
+	 * @param dataLength The length of the whole data or {@code -1} if it is not known
+	 * @return The amount of tags which were read before the end of the head, or {@code -1} if anything in there is
+	 * not valid in this format. Data which fit into the head completely scores higher than any partial read.
+	 */
+	private static int countTags(NBTFormat format, ByteBuffer head, long dataLength) {
+		NBTReader reader = format.createReader(head);
+		Counter counter = new Counter(dataLength < 0 ? Integer.MAX_VALUE : dataLength);
+		try {
+			int type = reader.readUnsignedByte();
+			if (type != 10 && type != 9)
+				return -1;
+			if (!isValidName(reader.readString()))
+				return -1;
+			counter.count++;
+			if (!counter.walkPayload(type, reader, 0))
+				return -1;
+
+			//The root was read completely, but the data does not end there
+			if (reader.remaining() > 0 || (dataLength >= 0 && reader.position() != dataLength))
+				return -1;
+			//Reading all of the data without running out of bytes is a better match than any partial read
+			return counter.count + HEAD_SIZE;
+		} catch (BufferUnderflowException e) {
+			//The head ends somewhere inside of the data
+		} catch (IOException | RuntimeException e) {
+			//Any kind of data is read in every format, like VarInts which are too long in other files
+			return -1;
+		}
+		return counter.count;
+	}
+
+	/**
+	 * Names are usually readable, a length read in the wrong byte order or as a VarInt often results in control
+	 * characters or broken UTF-8
+	 */
+	private static boolean isValidName(String name) {
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c < 0x20 || c == 0xFFFD)
+				return false;
+		}
+		return true;
+	}
+
+	private static class Counter {
+
+		private final long maxLength;
+		private int count;
+
+		private Counter(long maxLength) {
+			this.maxLength = maxLength;
+		}
+
+		/**
+		 * @return {@code false} if the payload is not valid
+		 */
+		private boolean walkPayload(int type, NBTReader reader, int depth) throws IOException {
+			if (depth > MAX_DEPTH)
+				return false;
+
+			switch (type) {
+				case 1:
+					reader.skip(1);
+					return true;
+				case 2:
+					reader.skip(2);
+					return true;
+				case 3:
+					reader.skipInts(1);
+					return true;
+				case 4:
+					reader.skipLongs(1);
+					return true;
+				case 5:
+					reader.skip(4);
+					return true;
+				case 6:
+					reader.skip(8);
+					return true;
+				case 7:
+				case 11:
+				case 12:
+					int size = reader.readInt();
+					if (size < 0 || size > this.maxLength)
+						return false;
+					if (type == 7)
+						reader.skip(size);
+					else if (type == 11)
+						reader.skipInts(size);
+					else
+						reader.skipLongs(size);
+					return true;
+				case 8:
+					reader.skipString();
+					return true;
+				case 9:
+					int listType = reader.readUnsignedByte();
+					int listSize = reader.readInt();
+					if (listType > 12 || listSize < 0 || listSize > this.maxLength || (listType == 0 && listSize > 0))
+						return false;
+					for (int i = 0; i < listSize; i++) {
+						this.count++;
+						if (!walkPayload(listType, reader, depth + 1))
+							return false;
+					}
+					return true;
+				case 10:
+					while (true) {
+						int childType = reader.readUnsignedByte();
+						if (childType == 0)
+							return true;
+						if (childType > 12 || !isValidName(reader.readString()))
+							return false;
+						this.count++;
+						if (!walkPayload(childType, reader, depth + 1))
+							return false;
+					}
+				default:
+					return false;
+			}
+		}
+	}
+
+	public static class Result {
+
+		private final NBTFormat format;
+		private final NBTCompression compression;
+		private final boolean levelDat;
+
+		public Result(NBTFormat format, NBTCompression compression, boolean levelDat) {
+			this.format = format;
+			this.compression = compression;
+			this.levelDat = levelDat;
+		}
+
+		public NBTFormat getFormat() {
+			return this.format;
+		}
+
+		public NBTCompression getCompression() {
+			return this.compression;
+		}
+
+		public boolean isLevelDat() {
+			return this.levelDat;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Keeps the mapped sources of NBT files in sync with changes made outside of the NBT editor. Writes through the IDE
+ * are announced before they happen, so the sources are copied onto the heap in time. Changes of other programs are
+ * only noticed afterwards, when the file is refreshed, see {@link NBTSource#checkFile()}.
+ */
+public class NBTMappedFileListener implements BulkFileListener {
+
+	@Override
+	public void before(@NotNull List<? extends VFileEvent> events) {
+		for (VFileEvent event : events) {
+			VirtualFile file = event.getFile();
+			if (event instanceof VFileContentChangeEvent && !event.isFromRefresh() && file != null)
+				NBTFileUtil.detachMappedSources(file);
+		}
+	}
+
+	@Override
+	public void after(@NotNull List<? extends VFileEvent> events) {
+		for (VFileEvent event : events) {
+			VirtualFile file = event.getFile();
+			if (event instanceof VFileContentChangeEvent && file != null)
+				NBTFileUtil.checkMappedSources(file);
+		}
+	}
+}
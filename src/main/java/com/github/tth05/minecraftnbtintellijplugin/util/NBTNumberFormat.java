@@ -0,0 +1,178 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Formats the values of number tags for the tree. Floats and doubles are shown with the fewest digits which still
+ * parse back to the same value, so editing a value does not change it by accident. Values from {@code 1e-7} up to
+ * {@code 1e21} are written without an exponent, and whole numbers without a fraction.
+ * <p>
+ * The digits come from {@link Double#toString(double)} and {@link Float#toString(float)}. Before Java 19 they print
+ * more digits than needed for some values. Apart from subnormal values, those always have 16 or more digits for
+ * doubles and 7 or more for floats. Only those are shortened again, by parsing shorter candidates until they no
+ * longer round trip.
+ * The methods are thread safe and, unlike {@link java.text.DecimalFormat}, keep no state.
+ */
+public final class NBTNumberFormat {
+
+	/**
+	 * The least amount of digits at which {@code toString} may have printed more digits than needed
+	 */
+	private static final int DOUBLE_SUSPICIOUS_DIGITS = 16;
+	private static final int FLOAT_SUSPICIOUS_DIGITS = 7;
+	private static final int MIN_PLAIN_EXPONENT = -7;
+	private static final int MAX_PLAIN_EXPONENT = 21;
+
+	@NotNull
+	public static String format(@NotNull Number number) {
+		if (number instanceof Double)
+			return formatDouble((Double) number);
+		if (number instanceof Float)
+			return formatFloat((Float) number);
+		//Byte, Short, Integer and Long
+		return Long.toString(number.longValue());
+	}
+
+	@NotNull
+	public static String formatDouble(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			return Double.toString(value);
+		if (value == 0)
+			return 1 / value < 0 ? "-0" : "0";
+		return format(Double.toString(value), value, false);
+	}
+
+	@NotNull
+	public static String formatFloat(float value) {
+		if (Float.isNaN(value) || Float.isInfinite(value))
+			return Float.toString(value);
+		if (value == 0)
+			return 1 / value < 0 ? "-0" : "0";
+		return format(Float.toString(value), value, true);
+	}
+
+	/**
+	 * @param string The result of {@link Double#toString(double)} or {@link Float#toString(float)}
+	 */
+	private static String format(String string, double value, boolean isFloat) {
+		boolean negative = string.charAt(0) == '-';
+		//Collect the significant digits and the position of the decimal point relative to them
+		char[] digits = new char[string.length()];
+		int count = 0;
+		int pointPosition = 0;
+		boolean point = false;
+		int exponent = 0;
+		for (int i = negative ? 1 : 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c == '.') {
+				pointPosition = count;
+				point = true;
+			} else if (c == 'E') {
+				exponent = Integer.parseInt(string.substring(i + 1));
+				break;
+			} else if (c != '0' || count > 0) {
+				digits[count++] = c;
+			} else if (point) {
+				//Leading zeros after the point, like in 0.001
+				pointPosition--;
+			}
+		}
+		exponent += point ? pointPosition : count;
+		//Trailing zeros are not significant
+		while (digits[count - 1] == '0')
+			count--;
+
+		boolean subnormal = Math.abs(value) < (isFloat ? Float.MIN_NORMAL : Double.MIN_NORMAL);
+		if (count < (isFloat ? FLOAT_SUSPICIOUS_DIGITS : DOUBLE_SUSPICIOUS_DIGITS) && !subnormal)
+			return layout(digits, count, exponent, negative);
+
+		//Cut off one digit after another for as long as the value is still the same
+		char[] shortest = digits;
+		int shortestCount = count;
+		int shortestExponent = exponent;
+		char[] candidate = new char[count];
+		for (int length = count - 1; length > 0; length--) {
+			//The digits are rounded already, so a 5 at the end does not tell which neighbour is nearer
+			boolean roundUp = digits[length] >= '5';
+			int candidateExponent = cut(digits, length, candidate, exponent, roundUp);
+			if (parse(candidate, length, candidateExponent, negative, isFloat) != value) {
+				roundUp = !roundUp;
+				candidateExponent = cut(digits, length, candidate, exponent, roundUp);
+				if (parse(candidate, length, candidateExponent, negative, isFloat) != value)
+					break;
+			}
+			shortest = Arrays.copyOf(candidate, length);
+			shortestCount = length;
+			shortestExponent = candidateExponent;
+		}
+		while (shortest[shortestCount - 1] == '0')
+			shortestCount--;
+		return layout(shortest, shortestCount, shortestExponent, negative);
+	}
+
+	/**
+	 * Copies the first {@code length} digits, and adds one to the last of them if {@code roundUp} is set
+	 *
+	 * @return The exponent of the copied digits, which is one higher than before if rounding up carried into a new
+	 * digit
+	 */
+	private static int cut(char[] digits, int length, char[] target, int exponent, boolean roundUp) {
+		System.arraycopy(digits, 0, target, 0, length);
+		if (!roundUp)
+			return exponent;
+
+		for (int i = length - 1; i >= 0; i--) {
+			if (target[i] != '9') {
+				target[i]++;
+				return exponent;
+			}
+			target[i] = '0';
+		}
+		//All digits were nines, 0.99 becomes 0.10 with a higher exponent
+		target[0] = '1';
+		return exponent + 1;
+	}
+
+	private static double parse(char[] digits, int count, int exponent, boolean negative, boolean isFloat) {
+		String string = (negative ? "-0." : "0.") + new String(digits, 0, count) + "E" + exponent;
+		return isFloat ? Float.parseFloat(string) : Double.parseDouble(string);
+	}
+
+	/**
+	 * @param exponent The value is {@code 0.digits * 10^exponent}
+	 */
+	private static String layout(char[] digits, int count, int exponent, boolean negative) {
+		StringBuilder builder = new StringBuilder(count + 8);
+		if (negative)
+			builder.append('-');
+
+		if (exponent <= MIN_PLAIN_EXPONENT || exponent > MAX_PLAIN_EXPONENT) {
+			//Like Double.toString, with one digit before the point
+			builder.append(digits[0]).append('.');
+			if (count > 1)
+				builder.append(digits, 1, count - 1);
+			else
+				builder.append('0');
+			return builder.append('E').append(exponent - 1).toString();
+		}
+
+		if (exponent <= 0) {
+			builder.append("0.");
+			for (int i = exponent; i < 0; i++)
+				builder.append('0');
+			return builder.append(digits, 0, count).toString();
+		}
+		if (count <= exponent) {
+			builder.append(digits, 0, count);
+			for (int i = count; i < exponent; i++)
+				builder.append('0');
+			return builder.toString();
+		}
+		return builder.append(digits, 0, exponent).append('.').append(digits, exponent, count - exponent).toString();
+	}
+
+	private NBTNumberFormat() {
+	}
+}
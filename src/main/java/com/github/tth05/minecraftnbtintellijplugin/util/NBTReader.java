@@ -0,0 +1,138 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads NBT primitives directly from a {@link ByteBuffer}. All reads are relative to the position of the reader,
+ * which is independent of the position of the buffer that was passed in. Reaching the end of the buffer throws a
+ * {@link BufferUnderflowException}.
+ */
+public class NBTReader {
+
+	protected final ByteBuffer buffer;
+	/**
+	 * Java edition encodes strings in modified UTF-8, Bedrock edition uses standard UTF-8
+	 */
+	private final NBTStringCodec strings;
+
+	public NBTReader(ByteBuffer buffer, ByteOrder order, boolean modifiedUtf8) {
+		this.buffer = buffer.duplicate().order(order);
+		this.strings = new NBTStringCodec(modifiedUtf8);
+	}
+
+	public int position() {
+		return this.buffer.position();
+	}
+
+	public void position(int position) {
+		this.buffer.position(position);
+	}
+
+	public int remaining() {
+		return this.buffer.remaining();
+	}
+
+	public byte readByte() {
+		return this.buffer.get();
+	}
+
+	public int readUnsignedByte() {
+		return this.buffer.get() & 0xFF;
+	}
+
+	public short readShort() {
+		return this.buffer.getShort();
+	}
+
+	public int readInt() {
+		return this.buffer.getInt();
+	}
+
+	public long readLong() {
+		return this.buffer.getLong();
+	}
+
+	public float readFloat() {
+		return this.buffer.getFloat();
+	}
+
+	public double readDouble() {
+		return this.buffer.getDouble();
+	}
+
+	public void readBytes(byte[] bytes) {
+		this.buffer.get(bytes);
+	}
+
+	public void readInts(int[] ints) {
+		this.buffer.asIntBuffer().get(ints);
+		skip(ints.length * 4L);
+	}
+
+	public void readLongs(long[] longs) {
+		this.buffer.asLongBuffer().get(longs);
+		skip(longs.length * 8L);
+	}
+
+	/**
+	 * @throws IOException If the length of the string is negative
+	 */
+	public String readString() throws IOException {
+		return decodeString(readStringLength());
+	}
+
+	/**
+	 * Reads a string, short strings are looked up in {@code table} first and only decoded if they were not read before
+	 *
+	 * @throws IOException If the length of the string is negative
+	 */
+	public String readString(NBTStringTable table) throws IOException {
+		int length = readStringLength();
+		if (length > NBTStringTable.MAX_LENGTH)
+			return decodeString(length);
+		if (length < 0)
+			throw new IOException("Invalid string length: " + length);
+		if (length > this.buffer.remaining())
+			throw new BufferUnderflowException();
+
+		int offset = this.buffer.position();
+		String string = table.get(this.buffer, offset, length);
+		if (string != null) {
+			skip(length);
+			return string;
+		}
+
+		string = decodeString(length);
+		table.put(this.buffer, offset, length, string);
+		return string;
+	}
+
+	private String decodeString(int length) throws IOException {
+		return this.strings.decode(this.buffer, length);
+	}
+
+	protected int readStringLength() {
+		return this.buffer.getShort() & 0xFFFF;
+	}
+
+	public void skip(long amount) {
+		if (amount < 0 || amount > this.buffer.remaining())
+			throw new BufferUnderflowException();
+		this.buffer.position(this.buffer.position() + (int) amount);
+	}
+
+	public void skipInts(int count) {
+		skip(count * 4L);
+	}
+
+	public void skipLongs(int count) {
+		skip(count * 8L);
+	}
+
+	public void skipString() {
+		skip(readStringLength());
+	}
+}
@@ -0,0 +1,255 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTag;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.Alarm;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Saves the tree of an editor without blocking the EDT. A burst of changes only causes a single save: the snapshot is
+ * taken once no change happened for {@link #DELAY} milliseconds, it is then encoded on a pooled thread and only the
+ * finished result replaces the file inside a write action.
+ */
+public class NBTSaveScheduler implements Disposable {
+
+	private static final int DELAY = 300;
+
+	private final VirtualFile file;
+	private final Project project;
+	private final Supplier<Request> requestSupplier;
+	private final Alarm alarm;
+	private boolean pending;
+	/**
+	 * Encodes one snapshot at a time, so the writes happen in the same order as the changes
+	 */
+	private final ExecutorService encoder = AppExecutorUtil.createBoundedApplicationPoolExecutor("NBT Save", 1);
+
+	/**
+	 * @param requestSupplier Called on the EDT to take a snapshot of the tree once it should be saved
+	 */
+	public NBTSaveScheduler(VirtualFile file, Project project, Supplier<Request> requestSupplier) {
+		this.file = file;
+		this.project = project;
+		this.requestSupplier = requestSupplier;
+		this.alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+	}
+
+	/**
+	 * Saves the tree after a short delay. Calling this again before the delay has passed restarts it.
+	 */
+	public void schedule() {
+		if (this.alarm.isDisposed())
+			return;
+		this.pending = true;
+		this.alarm.cancelAllRequests();
+		this.alarm.addRequest(this::save, DELAY);
+	}
+
+	/**
+	 * Cancels a pending save and saves the tree right away
+	 */
+	public void saveNow() {
+		this.alarm.cancelAllRequests();
+		save();
+	}
+
+	/**
+	 * Saves a change which is still waiting for the delay to pass, so closing the editor does not lose it
+	 */
+	@Override
+	public void dispose() {
+		if (this.pending)
+			saveNow();
+	}
+
+	private void save() {
+		this.pending = false;
+		if (!checkSource())
+			return;
+		Request request = this.requestSupplier.get();
+		if (request == null)
+			return;
+
+		this.encoder.execute(() -> {
+			if (request instanceof RegionRequest)
+				saveRegion((RegionRequest) request);
+			else if (this.file.isInLocalFileSystem())
+				saveStreaming((FileRequest) request);
+			else
+				saveInMemory((FileRequest) request);
+		});
+	}
+
+	/**
+	 * Compresses the changed chunks and writes them into the region file in place. The VFS is only told about the
+	 * change afterwards.
+	 */
+	private void saveRegion(RegionRequest request) {
+		try {
+			Map<Integer, byte[]> chunks = new HashMap<>();
+			for (Map.Entry<Integer, NBTTag> entry : request.chunks.entrySet()) {
+				chunks.put(entry.getKey(), NBTFileUtil.encode(entry.getValue(), NBTFormat.BIG_ENDIAN,
+						request.region.getCompression(entry.getKey()), null));
+			}
+			request.region.writeChunks(chunks);
+		} catch (IOException | UncheckedIOException e) {
+			ApplicationManager.getApplication().invokeLater(request.onFailure);
+			notifyError(e);
+			return;
+		}
+
+		this.file.refresh(true, false);
+	}
+
+	/**
+	 * Encodes the snapshot into a temporary file which then replaces the file
+	 */
+	private void saveStreaming(FileRequest request) {
+		Path temp;
+		try {
+			temp = NBTFileUtil.encodeToTempFile(request.root, request.format, request.compression, request.levelDatVersion, this.file.toNioPath());
+		} catch (IOException | UncheckedIOException e) {
+			notifyError(e);
+			return;
+		}
+
+		ApplicationManager.getApplication().invokeLater(() -> {
+			try {
+				//The file might have changed while the unchanged tags were copied from it
+				if (!this.file.isValid() || !checkSource()) {
+					Files.deleteIfExists(temp);
+					return;
+				}
+
+				WriteAction.run(() -> NBTFileUtil.replaceFile(this.file, temp, this));
+			} catch (IOException | UncheckedIOException e) {
+				notifyError(e);
+				return;
+			}
+			request.onSaved.run();
+		});
+	}
+
+	/**
+	 * Files which are not on the local file system can only be written through the VFS
+	 */
+	private void saveInMemory(FileRequest request) {
+		byte[] content;
+		try {
+			content = NBTFileUtil.encode(request.root, request.format, request.compression, request.levelDatVersion);
+		} catch (IOException | UncheckedIOException e) {
+			notifyError(e);
+			return;
+		}
+
+		ApplicationManager.getApplication().invokeLater(() -> {
+			if (!this.file.isValid() || !checkSource())
+				return;
+
+			try {
+				WriteAction.run(() -> NBTFileUtil.writeToFile(this.file, this, content));
+			} catch (IOException e) {
+				notifyError(e);
+				return;
+			}
+			request.onSaved.run();
+		});
+	}
+
+	/**
+	 * Unchanged tags are copied from the file they were loaded from. If another program wrote to the file in the
+	 * meantime, they are gone and saving would corrupt the file.
+	 *
+	 * @return {@code false} if the file must not be saved
+	 */
+	private boolean checkSource() {
+		if (NBTFileUtil.checkMappedSources(this.file))
+			return true;
+
+		new Notification("NBTSaveError",
+				"Error saving NBT file",
+				this.file.getName() + " was changed by another program since it was opened. Reopen it to make changes.",
+				NotificationType.WARNING).notify(this.project);
+		return false;
+	}
+
+	/**
+	 * @param e Either an {@link IOException} or an {@link UncheckedIOException} thrown by a source which became stale
+	 */
+	private void notifyError(Exception e) {
+		Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+		new Notification("NBTSaveError",
+				"Error saving NBT file",
+				"Due to an unknown error the file could not be saved: " + cause.getMessage(),
+				NotificationType.WARNING).notify(this.project);
+	}
+
+	/**
+	 * A snapshot of the changes which should be saved
+	 */
+	public abstract static class Request {
+
+		private Request() {
+		}
+	}
+
+	/**
+	 * A snapshot of the tree together with the format it should be saved in
+	 */
+	public static class FileRequest extends Request {
+
+		private final NBTTag root;
+		private final NBTFormat format;
+		private final NBTCompression compression;
+		@Nullable
+		private final Integer levelDatVersion;
+		private final Runnable onSaved;
+
+		/**
+		 * @param onSaved Run on the EDT once the snapshot was written, so the saved nodes can be marked as unchanged
+		 */
+		public FileRequest(NBTTag root, NBTFormat format, NBTCompression compression, @Nullable Integer levelDatVersion, Runnable onSaved) {
+			this.root = root;
+			this.format = format;
+			this.compression = compression;
+			this.levelDatVersion = levelDatVersion;
+			this.onSaved = onSaved;
+		}
+	}
+
+	/**
+	 * Snapshots of the chunks of a region file which changed since they were last saved
+	 */
+	public static class RegionRequest extends Request {
+
+		private final RegionFile region;
+		private final Map<Integer, NBTTag> chunks;
+		private final Runnable onFailure;
+
+		/**
+		 * @param chunks    The root tags of the changed chunks by their index
+		 * @param onFailure Run on the EDT if the chunks could not be written, so they are saved again next time
+		 */
+		public RegionRequest(RegionFile region, Map<Integer, NBTTag> chunks, Runnable onFailure) {
+			this.region = region;
+			this.chunks = chunks;
+			this.onFailure = onFailure;
+		}
+	}
+}
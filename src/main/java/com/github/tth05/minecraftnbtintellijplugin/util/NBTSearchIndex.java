@@ -0,0 +1,465 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.tree.TreeNode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trigram index over the names and values of the tags in a tree, which finds every tag containing a query without
+ * looking at all of them. Every indexed node gets an id, and every trigram of its name and value lists the ids of the
+ * nodes containing it. A query only has to check the nodes which are in the lists of all of its trigrams. Single
+ * characters and bigrams are indexed the same way for shorter queries.
+ * <p>
+ * The names and values are kept in lower case, so checking a candidate neither formats its value again nor
+ * allocates anything. Equal strings are only kept once, as the same names and values are usually repeated a lot.
+ * <p>
+ * Only nodes which were decoded already are indexed, lazy nodes are not decoded for it. Elements of arrays are not
+ * indexed either. Ids are handed out in ascending order, so a node which changes gets a new id instead of being
+ * inserted into the middle of the lists. The old id is left behind until the index gets compacted.
+ * <p>
+ * The index is not thread safe and must only be used on the event dispatch thread, like the tree itself. A new
+ * index walks the tree in slices, see {@link #indexNext(int)}, so building it for a big tree does not block the
+ * EDT. The tree may change in between, as long as the changes are passed to the index.
+ */
+public class NBTSearchIndex {
+
+	private static final int BUCKET_BITS = 18;
+	private static final int BUCKET_MASK = (1 << BUCKET_BITS) - 1;
+	/**
+	 * The index is compacted once more than this many removed ids are left behind and they outnumber the live ones
+	 */
+	private static final int COMPACT_THRESHOLD = 1 << 16;
+	/**
+	 * Strings longer than this are rarely repeated and not worth looking up
+	 */
+	private static final int MAX_SHARED_LENGTH = 64;
+	private static final int MAX_SHARED_STRINGS = 1 << 16;
+
+	/**
+	 * The ids of the nodes which contain a character, bigram or trigram hashing to the bucket, in ascending order. Different
+	 * grams can share a bucket, which only leads to more candidates being checked.
+	 */
+	private int[][] postings = new int[1 << BUCKET_BITS][];
+	private int[] postingSizes = new int[1 << BUCKET_BITS];
+	/**
+	 * The node of every id, {@code null} for ids of removed or changed nodes
+	 */
+	private NBTTagTreeNode[] nodes = new NBTTagTreeNode[1024];
+	/**
+	 * The lower case name and value of every id, the value is {@code null} for tags without a searchable value
+	 */
+	private String[] names = new String[1024];
+	private String[] values = new String[1024];
+	private int nextId;
+	private final Map<NBTTagTreeNode, Integer> ids = new IdentityHashMap<>();
+	/**
+	 * Lower case versions of short strings by the original one
+	 */
+	private final Map<String, String> sharedStrings = new HashMap<>();
+	/**
+	 * The nodes whose children are still being walked by {@link #indexNext(int)}, from the root down
+	 */
+	private final List<WalkedNode> walk = new ArrayList<>();
+
+	/**
+	 * Creates an index which still has to walk the tree below the root, see {@link #indexNext(int)}
+	 */
+	public NBTSearchIndex(@NotNull NBTTagTreeNode root) {
+		add(root);
+		if (root.isLoaded() && !root.isArray())
+			this.walk.add(new WalkedNode(root));
+	}
+
+	/**
+	 * Indexes the next nodes of the tree in the order of the tree. Nodes which are indexed already, for example
+	 * because they were inserted in the meantime, are skipped together with everything below them.
+	 *
+	 * @param count The maximum amount of nodes to index
+	 * @return {@code true} once the whole tree is indexed
+	 */
+	public boolean indexNext(int count) {
+		dropDetachedWalkedNodes();
+		int indexed = 0;
+		while (!this.walk.isEmpty() && indexed < count) {
+			WalkedNode walked = this.walk.get(this.walk.size() - 1);
+			if (walked.nextChild >= walked.node.getChildCount()) {
+				this.walk.remove(this.walk.size() - 1);
+				continue;
+			}
+
+			NBTTagTreeNode child = (NBTTagTreeNode) walked.node.getChildAt(walked.nextChild++);
+			if (this.ids.containsKey(child))
+				continue;
+			add(child);
+			indexed++;
+			//Unloaded children would be decoded by accessing them
+			if (child.isLoaded() && !child.isArray())
+				this.walk.add(new WalkedNode(child));
+		}
+		return isComplete();
+	}
+
+	/**
+	 * @return {@code false} while {@link #indexNext(int)} did not reach the end of the tree yet
+	 */
+	public boolean isComplete() {
+		return this.walk.isEmpty();
+	}
+
+	/**
+	 * Stops walking the children of nodes which were removed from the tree since the last slice
+	 */
+	private void dropDetachedWalkedNodes() {
+		for (int i = 1; i < this.walk.size(); i++) {
+			if (this.walk.get(i).node.getParent() != this.walk.get(i - 1).node) {
+				this.walk.subList(i, this.walk.size()).clear();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Indexes the node and everything below it which was decoded already and is not indexed yet
+	 */
+	public void addSubtree(@NotNull NBTTagTreeNode node) {
+		Deque<NBTTagTreeNode> stack = new ArrayDeque<>();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			NBTTagTreeNode current = stack.pop();
+			if (!this.ids.containsKey(current)) {
+				if (isArrayElement(current))
+					continue;
+				add(current);
+			}
+			//Unloaded children would be decoded by accessing them
+			if (!current.isLoaded() || current.isArray())
+				continue;
+
+			//Reverse order, so the children are indexed in the order of the tree
+			for (int i = current.getChildCount() - 1; i >= 0; i--)
+				stack.push((NBTTagTreeNode) current.getChildAt(i));
+		}
+	}
+
+	/**
+	 * Indexes the children of the node which are not indexed yet, for example after they were decoded
+	 */
+	public void addChildren(@NotNull NBTTagTreeNode node) {
+		if (!node.isLoaded() || node.isArray())
+			return;
+		for (int i = 0; i < node.getChildCount(); i++) {
+			NBTTagTreeNode child = (NBTTagTreeNode) node.getChildAt(i);
+			if (!this.ids.containsKey(child))
+				addSubtree(child);
+		}
+	}
+
+	/**
+	 * Has to be called after children were removed from a node, so the walk of a new index does not skip the
+	 * children after them
+	 *
+	 * @param childIndices The indices the removed children had
+	 */
+	public void childrenRemoved(@NotNull NBTTagTreeNode parent, int[] childIndices) {
+		for (WalkedNode walked : this.walk) {
+			if (walked.node != parent)
+				continue;
+			int before = 0;
+			for (int childIndex : childIndices) {
+				if (childIndex < walked.nextChild)
+					before++;
+			}
+			walked.nextChild -= before;
+			return;
+		}
+	}
+
+	/**
+	 * Removes the node and everything below it from the index
+	 */
+	public void removeSubtree(@NotNull NBTTagTreeNode node) {
+		Deque<TreeNode> stack = new ArrayDeque<>();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			NBTTagTreeNode current = (NBTTagTreeNode) stack.pop();
+			Integer id = this.ids.remove(current);
+			if (id != null)
+				forget(id);
+			if (!current.isLoaded() || current.isArray())
+				continue;
+			for (int i = 0; i < current.getChildCount(); i++)
+				stack.push(current.getChildAt(i));
+		}
+		compactIfNeeded();
+	}
+
+	/**
+	 * Indexes the name and value of the node again after they were changed
+	 */
+	public void update(@NotNull NBTTagTreeNode node) {
+		Integer id = this.ids.remove(node);
+		if (id == null)
+			return;
+		forget(id);
+		add(node);
+		compactIfNeeded();
+	}
+
+	/**
+	 * Finds all indexed nodes whose name or value contains the query, ignoring case
+	 *
+	 * @return The matching nodes in the order they were indexed, which is the order of the tree except for nodes
+	 * that were added or changed later
+	 */
+	@NotNull
+	public List<NBTTagTreeNode> search(@NotNull String query) {
+		List<NBTTagTreeNode> result = new ArrayList<>();
+		if (query.isEmpty())
+			return result;
+
+		String folded = fold(query);
+		if (folded.length() < 3) {
+			int bucket = folded.length() == 1 ? bucket(folded.charAt(0)) : bucket(folded.charAt(0), folded.charAt(1));
+			for (int i = 0; i < this.postingSizes[bucket]; i++)
+				addIfMatching(result, this.postings[bucket][i], folded);
+			return result;
+		}
+
+		int[][] lists = new int[folded.length() - 2][];
+		int[] sizes = new int[lists.length];
+		for (int i = 0; i < lists.length; i++) {
+			int bucket = bucket(folded.charAt(i), folded.charAt(i + 1), folded.charAt(i + 2));
+			if (this.postingSizes[bucket] == 0)
+				return result;
+			lists[i] = this.postings[bucket];
+			sizes[i] = this.postingSizes[bucket];
+		}
+
+		//Start with the shortest list, every other list can only remove candidates from it
+		int shortest = 0;
+		for (int i = 1; i < lists.length; i++) {
+			if (sizes[i] < sizes[shortest])
+				shortest = i;
+		}
+		int[] candidates = Arrays.copyOf(lists[shortest], sizes[shortest]);
+		int count = candidates.length;
+		for (int i = 0; i < lists.length && count > 0; i++) {
+			if (i != shortest && lists[i] != lists[shortest])
+				count = intersect(candidates, count, lists[i], sizes[i]);
+		}
+
+		for (int i = 0; i < count; i++)
+			addIfMatching(result, candidates[i], folded);
+		return result;
+	}
+
+	private void addIfMatching(List<NBTTagTreeNode> result, int id, String folded) {
+		NBTTagTreeNode node = this.nodes[id];
+		if (node == null)
+			return;
+		String value = this.values[id];
+		if (this.names[id].contains(folded) || value != null && value.contains(folded))
+			result.add(node);
+	}
+
+	/**
+	 * Keeps the candidates which are also in the list, both are sorted. The list is usually much longer than the
+	 * candidates, so it is binary searched instead of walked.
+	 *
+	 * @return The amount of candidates which are left
+	 */
+	private static int intersect(int[] candidates, int count, int[] list, int size) {
+		int kept = 0;
+		int from = 0;
+		for (int i = 0; i < count && from < size; i++) {
+			int index = Arrays.binarySearch(list, from, size, candidates[i]);
+			if (index >= 0) {
+				candidates[kept++] = candidates[i];
+				from = index + 1;
+			} else {
+				from = -index - 1;
+			}
+		}
+		return kept;
+	}
+
+	private void add(NBTTagTreeNode node) {
+		int id = this.nextId++;
+		if (id == this.nodes.length) {
+			this.nodes = Arrays.copyOf(this.nodes, id * 2);
+			this.names = Arrays.copyOf(this.names, id * 2);
+			this.values = Arrays.copyOf(this.values, id * 2);
+		}
+		String name = share(getSearchableName(node));
+		String value = getSearchableValue(node);
+		if (value != null)
+			value = share(value);
+		this.nodes[id] = node;
+		this.names[id] = name;
+		this.values[id] = value;
+		this.ids.put(node, id);
+		addGrams(name, id);
+		if (value != null)
+			addGrams(value, id);
+	}
+
+	private void forget(int id) {
+		this.nodes[id] = null;
+		this.names[id] = null;
+		this.values[id] = null;
+	}
+
+	private void addGrams(String text, int id) {
+		for (int i = 0; i < text.length(); i++) {
+			addPosting(bucket(text.charAt(i)), id);
+			if (i + 1 < text.length())
+				addPosting(bucket(text.charAt(i), text.charAt(i + 1)), id);
+			if (i + 2 < text.length())
+				addPosting(bucket(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2)), id);
+		}
+	}
+
+	private void addPosting(int bucket, int id) {
+		int size = this.postingSizes[bucket];
+		int[] list = this.postings[bucket];
+		//All grams of a node are added at once, so a repeated gram is always at the end of the list
+		if (size > 0 && list[size - 1] == id)
+			return;
+		if (list == null)
+			list = this.postings[bucket] = new int[4];
+		else if (size == list.length)
+			list = this.postings[bucket] = Arrays.copyOf(list, size * 2);
+		list[size] = id;
+		this.postingSizes[bucket] = size + 1;
+	}
+
+	/**
+	 * @return The lower case version of the string, the same instance for equal short strings
+	 */
+	private String share(String string) {
+		if (string.length() > MAX_SHARED_LENGTH)
+			return fold(string);
+		String folded = this.sharedStrings.get(string);
+		if (folded == null) {
+			if (this.sharedStrings.size() >= MAX_SHARED_STRINGS)
+				this.sharedStrings.clear();
+			folded = fold(string);
+			this.sharedStrings.put(string, folded);
+		}
+		return folded;
+	}
+
+	private void compactIfNeeded() {
+		int removed = this.nextId - this.ids.size();
+		if (removed < COMPACT_THRESHOLD || removed < this.ids.size())
+			return;
+
+		NBTTagTreeNode[] live = new NBTTagTreeNode[this.ids.size()];
+		int count = 0;
+		for (int id = 0; id < this.nextId; id++) {
+			if (this.nodes[id] != null)
+				live[count++] = this.nodes[id];
+		}
+
+		this.postings = new int[1 << BUCKET_BITS][];
+		this.postingSizes = new int[1 << BUCKET_BITS];
+		this.nodes = new NBTTagTreeNode[Math.max(1024, count * 2)];
+		this.names = new String[this.nodes.length];
+		this.values = new String[this.nodes.length];
+		this.nextId = 0;
+		this.ids.clear();
+		for (int i = 0; i < count; i++)
+			add(live[i]);
+	}
+
+	private static int bucket(char a) {
+		return mix(a + 0x20000);
+	}
+
+	private static int bucket(char a, char b) {
+		return mix(a * 0x9E3779B1 + b);
+	}
+
+	private static int bucket(char a, char b, char c) {
+		//Different from the bigram hash even for a trigram starting with \0, the same goes for single characters
+		return mix((a * 0x9E3779B1 + b) * 0x9E3779B1 + c + 0x10000);
+	}
+
+	private static int mix(int hash) {
+		hash *= 0x85EBCA6B;
+		return (hash ^ (hash >>> 15)) & BUCKET_MASK;
+	}
+
+	/**
+	 * Maps the characters which {@link String#equalsIgnoreCase(String)} considers equal to the same character. The
+	 * string is returned as it is if there is nothing to change.
+	 */
+	private static String fold(String string) {
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (fold(c) == c)
+				continue;
+
+			char[] chars = string.toCharArray();
+			for (int j = i; j < chars.length; j++)
+				chars[j] = fold(chars[j]);
+			return new String(chars);
+		}
+		return string;
+	}
+
+	private static char fold(char c) {
+		if (c < 0x80)
+			return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	private static boolean isArrayElement(NBTTagTreeNode node) {
+		TreeNode parent = node.getParent();
+		return parent instanceof NBTTagTreeNode && ((NBTTagTreeNode) parent).isArray();
+	}
+
+	/**
+	 * @return The name of the node, or an empty name for list elements, whose index changes with every insertion or
+	 * removal before them
+	 */
+	private static String getSearchableName(NBTTagTreeNode node) {
+		return node.isListElement() ? "" : node.getName();
+	}
+
+	/**
+	 * @return The value as it is shown in the tree without quotes, or {@code null} for compounds, lists and arrays
+	 */
+	private static String getSearchableValue(NBTTagTreeNode node) {
+		NBTTagType type = node.getType();
+		if (type == NBTTagType.COMPOUND || type == NBTTagType.LIST || node.isArray())
+			return null;
+		Object value = node.getValue();
+		if (value instanceof String)
+			return (String) value;
+		return node.getValueAsString();
+	}
+
+	private static class WalkedNode {
+
+		private final NBTTagTreeNode node;
+		/**
+		 * The index of the child which is visited next
+		 */
+		private int nextChild;
+
+		private WalkedNode(NBTTagTreeNode node) {
+			this.node = node;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+/**
+ * The fully uncompressed bytes of a NBT file together with the format they are encoded in. Lazily loaded nodes keep a
+ * reference to their source and an offset into it, so their children can be decoded once they are needed.
+ */
+public class NBTSource {
+
+	/**
+	 * Either a heap buffer or a read-only mapping of the file
+	 */
+	private volatile ByteBuffer buffer;
+	private final NBTFormat format;
+
+	/**
+	 * The mapped file together with its size, modification time and identity at the time it was mapped, {@code null}
+	 * for sources on the heap
+	 */
+	@Nullable
+	private final Path file;
+	private final long size;
+	private final FileTime modified;
+	private final Object fileKey;
+	/**
+	 * Set once the mapped file was written to by someone else, the content of the source is gone then
+	 */
+	private volatile boolean stale;
+
+	public NBTSource(ByteBuffer buffer, NBTFormat format) {
+		this(buffer, format, null, null);
+	}
+
+	/**
+	 * @param file       The file which {@code buffer} maps
+	 * @param attributes The attributes of the file, read before it was mapped
+	 */
+	public NBTSource(ByteBuffer buffer, NBTFormat format, @Nullable Path file, @Nullable BasicFileAttributes attributes) {
+		this.buffer = buffer;
+		this.format = format;
+		this.file = file;
+		this.size = attributes != null ? attributes.size() : 0;
+		this.modified = attributes != null ? attributes.lastModifiedTime() : null;
+		this.fileKey = attributes != null ? attributes.fileKey() : null;
+	}
+
+	/**
+	 * Checks whether the mapped file was changed since it was mapped. If the file was replaced by a new one, which is
+	 * also how the editor saves it, the mapping still shows the old content and stays valid. If it was written in
+	 * place, the mapping shows the new content at the old offsets and the source becomes stale, it cannot be read
+	 * anymore.
+	 *
+	 * @return {@code false} if the source is stale
+	 */
+	public synchronized boolean checkFile() {
+		if (this.stale)
+			return false;
+		if (this.file == null || !this.buffer.isDirect())
+			return true;
+
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(this.file, BasicFileAttributes.class);
+		} catch (IOException e) {
+			//Deleted or moved away, the mapping keeps the old file alive
+			detach();
+			return true;
+		}
+
+		Object fileKey = attributes.fileKey();
+		if (Objects.equals(fileKey, this.fileKey)) {
+			//File systems without file keys can only tell by the size and modification time
+			if (attributes.size() == this.size && attributes.lastModifiedTime().equals(this.modified))
+				return true;
+		} else if (fileKey != null && this.fileKey != null) {
+			return true;
+		}
+
+		//Without file keys it cannot be told whether a changed file was replaced, so it is treated as written in place
+		this.stale = true;
+		this.buffer = ByteBuffer.allocate(0);
+		return false;
+	}
+
+	public boolean isStale() {
+		return this.stale;
+	}
+
+	/**
+	 * @param offset The offset in the source to start reading at
+	 * @return A new reader positioned at {@code offset}. Readers do not share their position, so multiple readers
+	 * can be used concurrently.
+	 */
+	public NBTReader open(int offset) {
+		checkNotStale();
+		NBTReader reader = this.format.createReader(this.buffer);
+		reader.position(offset);
+		return reader;
+	}
+
+	/**
+	 * @return A read-only view of {@code length} bytes starting at {@code offset}
+	 */
+	public ByteBuffer slice(int offset, int length) {
+		checkNotStale();
+		ByteBuffer slice = this.buffer.asReadOnlyBuffer();
+		slice.limit(offset + length).position(offset);
+		return slice.slice();
+	}
+
+	/**
+	 * Copies the content of a mapped source onto the heap, so the file can be written to without pulling the data
+	 * out from under the nodes which still point into it
+	 */
+	public synchronized void detach() {
+		if (this.stale || !this.buffer.isDirect())
+			return;
+
+		ByteBuffer copy = ByteBuffer.allocate(this.buffer.limit());
+		copy.put(this.buffer.duplicate().clear());
+		copy.clear();
+		this.buffer = copy;
+	}
+
+	private void checkNotStale() {
+		if (this.stale)
+			throw new UncheckedIOException(new IOException(this.file + " was changed by another program"));
+	}
+
+	public boolean isMapped() {
+		return this.buffer.isDirect();
+	}
+
+	public int length() {
+		return this.buffer.limit();
+	}
+
+	public NBTFormat getFormat() {
+		return this.format;
+	}
+}
@@ -0,0 +1,158 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes and encodes the strings of a {@link NBTReader} or {@link NBTWriter}. Java edition uses modified UTF-8 like
+ * {@link java.io.DataInput#readUTF()}, which encodes {@code \0} in two bytes and characters outside of the BMP as two
+ * surrogates of three bytes each. Bedrock edition uses standard UTF-8. Both are the same for ASCII, which almost all
+ * names are, so ASCII strings are found by checking eight bytes at a time and copied without decoding them.
+ * <p>
+ * A codec keeps scratch arrays around between strings and is not thread safe.
+ */
+class NBTStringCodec {
+
+	private static final long NON_ASCII_MASK = 0x8080808080808080L;
+
+	private final boolean modifiedUtf8;
+	private byte[] scratchBytes = new byte[0];
+	private char[] scratchChars = new char[0];
+
+	NBTStringCodec(boolean modifiedUtf8) {
+		this.modifiedUtf8 = modifiedUtf8;
+	}
+
+	/**
+	 * Decodes {@code length} bytes at the position of the buffer and moves the buffer past them. Malformed input is
+	 * replaced instead of rejected.
+	 *
+	 * @throws IOException If the length is negative, which a corrupted VarInt length can be
+	 */
+	String decode(ByteBuffer buffer, int length) throws IOException {
+		if (length < 0)
+			throw new IOException("Invalid string length: " + length);
+		if (length > buffer.remaining())
+			throw new BufferUnderflowException();
+
+		int offset = buffer.position();
+		buffer.position(offset + length);
+		if (isAscii(buffer, offset, length)) {
+			if (buffer.hasArray())
+				return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.ISO_8859_1);
+			return new String(copyToScratch(buffer, offset, length), 0, length, StandardCharsets.ISO_8859_1);
+		}
+
+		if (this.modifiedUtf8)
+			return decodeModifiedUtf8(buffer, offset, length);
+		if (buffer.hasArray())
+			return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+		return new String(copyToScratch(buffer, offset, length), 0, length, StandardCharsets.UTF_8);
+	}
+
+	private static boolean isAscii(ByteBuffer buffer, int offset, int length) {
+		int i = 0;
+		for (; i + 8 <= length; i += 8) {
+			if ((buffer.getLong(offset + i) & NON_ASCII_MASK) != 0)
+				return false;
+		}
+		for (; i < length; i++) {
+			if (buffer.get(offset + i) < 0)
+				return false;
+		}
+		return true;
+	}
+
+	private byte[] copyToScratch(ByteBuffer buffer, int offset, int length) {
+		if (this.scratchBytes.length < length)
+			this.scratchBytes = new byte[Math.max(length, this.scratchBytes.length * 2)];
+		buffer.get(offset, this.scratchBytes, 0, length);
+		return this.scratchBytes;
+	}
+
+	/**
+	 * Same as {@link java.io.DataInputStream#readUTF()}, except for malformed input being replaced
+	 */
+	private String decodeModifiedUtf8(ByteBuffer buffer, int offset, int length) {
+		if (this.scratchChars.length < length)
+			this.scratchChars = new char[Math.max(length, this.scratchChars.length * 2)];
+
+		char[] chars = this.scratchChars;
+		int count = 0;
+		int position = offset;
+		int end = offset + length;
+		while (position < end) {
+			int c = buffer.get(position++) & 0xFF;
+			if (c < 0x80) {
+				chars[count++] = (char) c;
+			} else if ((c & 0xE0) == 0xC0 && position < end) {
+				chars[count++] = (char) (((c & 0x1F) << 6) | (buffer.get(position++) & 0x3F));
+			} else if ((c & 0xF0) == 0xE0 && position + 1 < end) {
+				int c2 = buffer.get(position++);
+				int c3 = buffer.get(position++);
+				chars[count++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+			} else {
+				chars[count++] = '\uFFFD';
+			}
+		}
+		return new String(chars, 0, count);
+	}
+
+	/**
+	 * @return The amount of bytes {@link #encode(String, ByteBuffer)} writes for the string
+	 */
+	int encodedLength(String string) {
+		int length = 0;
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c < 0x80 && (c != 0 || !this.modifiedUtf8)) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (this.modifiedUtf8 || !Character.isSurrogate(c)) {
+				length += 3;
+			} else if (isSurrogatePair(string, i)) {
+				length += 4;
+				i++;
+			} else {
+				length++;
+			}
+		}
+		return length;
+	}
+
+	private static boolean isSurrogatePair(String string, int index) {
+		return Character.isHighSurrogate(string.charAt(index)) && index + 1 < string.length() &&
+				Character.isLowSurrogate(string.charAt(index + 1));
+	}
+
+	/**
+	 * Encodes the string at the position of the buffer, which must have room for {@link #encodedLength(String)} bytes
+	 */
+	void encode(String string, ByteBuffer buffer) {
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c < 0x80 && (c != 0 || !this.modifiedUtf8)) {
+				buffer.put((byte) c);
+			} else if (c < 0x800) {
+				buffer.put((byte) (0xC0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			} else if (this.modifiedUtf8 || !Character.isSurrogate(c)) {
+				buffer.put((byte) (0xE0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			} else if (isSurrogatePair(string, i)) {
+				int codePoint = Character.toCodePoint(c, string.charAt(++i));
+				buffer.put((byte) (0xF0 | (codePoint >> 18)));
+				buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+				buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+			} else {
+				//Lone surrogates are replaced, like String.getBytes does
+				buffer.put((byte) '?');
+			}
+		}
+	}
+}
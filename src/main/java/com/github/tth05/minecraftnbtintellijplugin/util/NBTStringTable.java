@@ -0,0 +1,150 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hands out a single {@link String} instance for strings which are encoded the same way, so the names of tags like
+ * "id" or "Count", which are repeated in every item, are only decoded and stored once. Strings are looked up by their
+ * encoded bytes in an open addressing hash table.
+ * <p>
+ * A table is not thread safe, decoders running in parallel use their own {@link #copy() copies}.
+ */
+public class NBTStringTable {
+
+	/**
+	 * Longer strings are rarely repeated
+	 */
+	public static final int MAX_LENGTH = 64;
+	/**
+	 * Files with lots of unique strings stop growing the table at this size
+	 */
+	private static final int MAX_SIZE = 1 << 16;
+	private static final int INITIAL_CAPACITY = 256;
+
+	private byte[][] keys;
+	private int[] hashes;
+	private String[] values;
+	private int size;
+
+	private long lookups;
+	private long hits;
+
+	public NBTStringTable() {
+		this.keys = new byte[INITIAL_CAPACITY][];
+		this.hashes = new int[INITIAL_CAPACITY];
+		this.values = new String[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * @return A table containing the same strings, with no lookups counted yet
+	 */
+	public NBTStringTable copy() {
+		NBTStringTable copy = new NBTStringTable();
+		copy.keys = this.keys.clone();
+		copy.hashes = this.hashes.clone();
+		copy.values = this.values.clone();
+		copy.size = this.size;
+		return copy;
+	}
+
+	/**
+	 * @param buffer The buffer containing the encoded string
+	 * @param offset The absolute offset of the encoded string in {@code buffer}, after its length
+	 * @param length The length of the encoded string in bytes
+	 * @return The string which was added for the same bytes, or {@code null} if there is none
+	 */
+	@Nullable
+	public String get(ByteBuffer buffer, int offset, int length) {
+		this.lookups++;
+		int hash = hash(buffer, offset, length);
+		int mask = this.keys.length - 1;
+		for (int i = hash & mask; this.keys[i] != null; i = (i + 1) & mask) {
+			if (this.hashes[i] == hash && matches(this.keys[i], buffer, offset, length)) {
+				this.hits++;
+				return this.values[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the decoded string for the given bytes, which must not have been added before
+	 */
+	public void put(ByteBuffer buffer, int offset, int length, String string) {
+		if (this.size >= MAX_SIZE)
+			return;
+		if (this.size * 2 >= this.keys.length)
+			grow();
+
+		byte[] key = new byte[length];
+		buffer.get(offset, key);
+		insert(key, hash(buffer, offset, length), string);
+		this.size++;
+	}
+
+	private void grow() {
+		byte[][] keys = this.keys;
+		int[] hashes = this.hashes;
+		String[] values = this.values;
+		this.keys = new byte[keys.length * 2][];
+		this.hashes = new int[keys.length * 2];
+		this.values = new String[keys.length * 2];
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null)
+				insert(keys[i], hashes[i], values[i]);
+		}
+	}
+
+	private void insert(byte[] key, int hash, String string) {
+		int mask = this.keys.length - 1;
+		int i = hash & mask;
+		while (this.keys[i] != null)
+			i = (i + 1) & mask;
+		this.keys[i] = key;
+		this.hashes[i] = hash;
+		this.values[i] = string;
+	}
+
+	private static int hash(ByteBuffer buffer, int offset, int length) {
+		int hash = length;
+		for (int i = 0; i < length; i++)
+			hash = 31 * hash + buffer.get(offset + i);
+		//Spread the bits, linear probing only looks at the low ones
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean matches(byte[] key, ByteBuffer buffer, int offset, int length) {
+		//Strings of different lengths can have the same hash
+		if (key.length != length)
+			return false;
+		for (int i = 0; i < key.length; i++) {
+			if (key[i] != buffer.get(offset + i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the lookups counted by a copy of this table
+	 */
+	public synchronized void addStatistics(NBTStringTable copy) {
+		this.lookups += copy.lookups;
+		this.hits += copy.hits;
+	}
+
+	/**
+	 * @return The amount of strings which were looked up
+	 */
+	public synchronized long getLookups() {
+		return this.lookups;
+	}
+
+	/**
+	 * @return The amount of looked up strings which were already in the table and did not have to be decoded
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+}
@@ -0,0 +1,427 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns encoded NBT into {@link NBTTagTreeNode}s. A decoder is not thread safe, but decoders for different readers
+ * can be used in parallel.
+ * <p>
+ * When decoding eagerly, big lists of compounds or lists are decoded in two phases: first the list is only skipped
+ * over to find where each element starts, then ranges of elements are decoded in parallel on the common
+ * {@link java.util.concurrent.ForkJoinPool} and added to the list in order.
+ */
+public class NBTTreeDecoder {
+
+	/**
+	 * The amount of tags between two calls to the {@link ProgressListener}
+	 */
+	private static final int PROGRESS_INTERVAL = 4096;
+	/**
+	 * Lists with fewer elements, or fewer bytes, are not worth splitting up
+	 */
+	private static final int PARALLEL_MIN_ELEMENTS = 1024;
+	private static final int PARALLEL_MIN_BYTES = 1024 * 1024;
+	/**
+	 * Ranges of elements are split until they are about this big
+	 */
+	private static final int SPLIT_BYTES = 64 * 1024;
+
+	private final NBTSource source;
+	private final boolean lazy;
+	@Nullable
+	private final ProgressListener progressListener;
+	/**
+	 * Shared with the decoders of the parallel tasks, which only add to it every {@link #PROGRESS_INTERVAL} tags
+	 */
+	private final AtomicInteger tagCount;
+	private int unreportedTagCount;
+	/**
+	 * Names of tags are always looked up in here, short string values only if {@link #internStringValues} is set
+	 */
+	private final NBTStringTable strings;
+	private boolean internStringValues;
+
+	/**
+	 * @param source           The source all readers passed to this decoder read from. Compounds, lists and arrays
+	 *                         remember where their payload is located in it.
+	 * @param lazy             If {@code true}, the children of compounds and lists are not decoded, but only
+	 *                         skipped over. The nodes will decode them from the source once they are accessed.
+	 * @param progressListener Notified every few thousand tags, may throw to cancel decoding
+	 */
+	public NBTTreeDecoder(NBTSource source, boolean lazy, @Nullable ProgressListener progressListener) {
+		this.source = source;
+		this.lazy = lazy;
+		this.progressListener = progressListener;
+		this.tagCount = new AtomicInteger();
+		this.strings = new NBTStringTable();
+	}
+
+	private NBTTreeDecoder(NBTTreeDecoder parent, NBTStringTable strings) {
+		this.source = parent.source;
+		this.lazy = parent.lazy;
+		this.progressListener = parent.progressListener;
+		this.tagCount = parent.tagCount;
+		this.strings = strings;
+		this.internStringValues = parent.internStringValues;
+	}
+
+	/**
+	 * @param internStringValues If {@code true}, short values of string tags are deduplicated like the names of tags.
+	 *                           This helps with files which repeat the same ids over and over again.
+	 */
+	public void setInternStringValues(boolean internStringValues) {
+		this.internStringValues = internStringValues;
+	}
+
+	/**
+	 * @return The table the strings decoded by this decoder were deduplicated with
+	 */
+	public NBTStringTable getStringTable() {
+		return this.strings;
+	}
+
+	/**
+	 * @return The amount of tags which were decoded or skipped so far
+	 */
+	public int getTagCount() {
+		return this.tagCount.get() + this.unreportedTagCount;
+	}
+
+	private void tagRead(NBTReader reader) {
+		if (++this.unreportedTagCount < PROGRESS_INTERVAL)
+			return;
+
+		this.unreportedTagCount = 0;
+		int tagCount = this.tagCount.addAndGet(PROGRESS_INTERVAL);
+		if (this.progressListener != null)
+			this.progressListener.onProgress(tagCount, reader.position());
+	}
+
+	/**
+	 * Decodes the direct children of a lazily loaded compound or list node. Any compound or list child is lazy
+	 * again.
+	 *
+	 * @param node   The node to add the children to
+	 * @param source The source which contains the payload of the node
+	 * @param offset The offset of the payload in the source
+	 */
+	public static void loadChildren(NBTTagTreeNode node, NBTSource source, int offset) throws IOException {
+		new NBTTreeDecoder(source, true, null).decodeChildren(node, source.open(offset));
+	}
+
+	/**
+	 * Decodes root tags which directly follow each other until the end of the source, like the values in the world
+	 * database of Bedrock edition
+	 */
+	public static List<NBTTagTreeNode> decodeRoots(NBTSource source) throws IOException {
+		NBTTreeDecoder decoder = new NBTTreeDecoder(source, false, null);
+		NBTReader reader = source.open(0);
+		List<NBTTagTreeNode> roots = new ArrayList<>();
+		do {
+			int type = reader.readUnsignedByte();
+			if (type != 10 && type != 9)
+				throw new IOException("Invalid root type: " + type);
+			roots.add(decoder.createNode(type, reader.readString(decoder.strings), reader));
+		} while (reader.remaining() > 0);
+		return roots;
+	}
+
+	/**
+	 * Decodes the payload of a compound or list and adds the decoded tags to {@code node}
+	 */
+	public void decodeChildren(NBTTagTreeNode node, NBTReader reader) throws IOException {
+		if (node.getType() == NBTTagType.COMPOUND) {
+			loadNBTDataOfCompound(node, reader);
+		} else {
+			int listType = reader.readUnsignedByte();
+			int listSize = readListSize(reader);
+			for (int i = 0; i < listSize; i++)
+				node.add(createNode(listType, "", reader));
+		}
+	}
+
+	private void loadNBTDataOfCompound(DefaultMutableTreeNode root, NBTReader reader) throws IOException {
+		while (true) {
+			//Get tag id
+			int type = reader.readUnsignedByte();
+
+			if (type != 0)
+				root.add(createNode(type, reader.readString(this.strings), reader));
+			else
+				return;
+		}
+	}
+
+	/**
+	 * Decodes the payload of a single tag. If this decoder is lazy, the children of compounds and lists are only
+	 * skipped over.
+	 */
+	public NBTTagTreeNode createNode(int type, String name, NBTReader reader) throws IOException {
+		tagRead(reader);
+		int offset = reader.position();
+		NBTTagTreeNode node = decodePayload(type, name, reader);
+		//Primitives are cheaper to encode again than to remember where they came from
+		if (type == 7 || type >= 9)
+			node.setEncodedPayload(this.source, offset, reader.position() - offset);
+		return node;
+	}
+
+	private NBTTagTreeNode decodePayload(int type, String name, NBTReader reader) throws IOException {
+		switch (type) {
+			case 1:
+				return new NBTTagTreeNode(NBTTagType.BYTE, name, reader.readByte());
+			case 2:
+				return new NBTTagTreeNode(NBTTagType.SHORT, name, reader.readShort());
+			case 3:
+				return new NBTTagTreeNode(NBTTagType.INT, name, reader.readInt());
+			case 4:
+				return new NBTTagTreeNode(NBTTagType.LONG, name, reader.readLong());
+			case 5:
+				return new NBTTagTreeNode(NBTTagType.FLOAT, name, reader.readFloat());
+			case 6:
+				return new NBTTagTreeNode(NBTTagType.DOUBLE, name, reader.readDouble());
+			case 7:
+				byte[] byteArray = new byte[readArraySize(reader)];
+				reader.readBytes(byteArray);
+				return new NBTTagTreeNode(NBTTagType.BYTE_ARRAY, name, byteArray);
+			case 8:
+				return new NBTTagTreeNode(NBTTagType.STRING, name,
+						this.internStringValues ? reader.readString(this.strings) : reader.readString());
+			case 9:
+				if (this.lazy) {
+					int childCount = skipPayload(type, reader);
+					NBTTagTreeNode listNode = new NBTTagTreeNode(NBTTagType.LIST, name, childCount + " elements");
+					listNode.setLazyChildren(childCount);
+					return listNode;
+				}
+
+				int listType = reader.readUnsignedByte();
+				int listSize = readListSize(reader);
+				NBTTagTreeNode listNode = new NBTTagTreeNode(NBTTagType.LIST, name, listSize + " elements");
+				if (listSize >= PARALLEL_MIN_ELEMENTS && (listType == 9 || listType == 10)) {
+					decodeElements(listNode, listType, listSize, reader);
+				} else {
+					for (int i = 0; i < listSize; i++)
+						listNode.add(createNode(listType, "", reader));
+				}
+				return listNode;
+			case 10:
+				NBTTagTreeNode compoundNode = new NBTTagTreeNode(NBTTagType.COMPOUND, name, null);
+				if (this.lazy) {
+					compoundNode.setLazyChildren(skipPayload(type, reader));
+				} else {
+					loadNBTDataOfCompound(compoundNode, reader);
+				}
+				return compoundNode;
+			case 11:
+				int[] intArray = new int[readArraySize(reader)];
+				reader.readInts(intArray);
+				return new NBTTagTreeNode(NBTTagType.INT_ARRAY, name, intArray);
+			case 12:
+				long[] longArray = new long[readArraySize(reader)];
+				reader.readLongs(longArray);
+				return new NBTTagTreeNode(NBTTagType.LONG_ARRAY, name, longArray);
+			default:
+				throw new IOException("Unknown tag id found: " + type);
+		}
+	}
+
+	/**
+	 * Decodes the elements of a big list, in parallel if they are big enough
+	 */
+	private void decodeElements(NBTTagTreeNode listNode, int listType, int listSize, NBTReader reader) throws IOException {
+		//Find the start of every element. This only reads lengths and type ids, so it is a lot faster than decoding.
+		//The tags are counted once they are decoded.
+		NBTTreeDecoder scanner = new NBTTreeDecoder(this.source, true, null);
+		int[] offsets = new int[listSize + 1];
+		int start = reader.position();
+		for (int i = 0; i < listSize; i++) {
+			offsets[i] = reader.position();
+			scanner.skipPayload(listType, reader);
+		}
+		offsets[listSize] = reader.position();
+
+		if (offsets[listSize] - start < PARALLEL_MIN_BYTES) {
+			reader.position(start);
+			for (int i = 0; i < listSize; i++)
+				listNode.add(createNode(listType, "", reader));
+			return;
+		}
+
+		NBTTagTreeNode[] elements = new NBTTagTreeNode[listSize];
+		//The table of this decoder can change while the workers copy it, if the thread running this decode picks up
+		//other work while waiting, so they copy a snapshot of it
+		NBTStringTable strings = this.strings.copy();
+		Map<Thread, NBTTreeDecoder> decoders = new ConcurrentHashMap<>();
+		try {
+			new DecodeElementsTask(listType, offsets, elements, strings, decoders, 0, listSize).invoke();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		for (NBTTreeDecoder decoder : decoders.values()) {
+			this.tagCount.addAndGet(decoder.unreportedTagCount);
+			this.strings.addStatistics(decoder.strings);
+		}
+		for (NBTTagTreeNode element : elements)
+			listNode.add(element);
+	}
+
+	/**
+	 * Reads the size of an array and makes sure that the remaining data can actually hold that many elements, so
+	 * corrupted sizes do not end up allocating huge arrays
+	 */
+	private static int readArraySize(NBTReader reader) throws IOException {
+		int size = reader.readInt();
+		if (size < 0 || size > reader.remaining())
+			throw new IOException("Invalid array size: " + size);
+		return size;
+	}
+
+	/**
+	 * Reads the size of a list. Every element takes up at least one byte, so like with arrays, corrupted sizes are
+	 * rejected before they end up allocating the arrays for a parallel decode.
+	 */
+	private static int readListSize(NBTReader reader) throws IOException {
+		int size = reader.readInt();
+		if (size < 0 || size > reader.remaining())
+			throw new IOException("Invalid list size: " + size);
+		return size;
+	}
+
+	/**
+	 * Moves the reader past the payload of a tag without creating any nodes.
+	 *
+	 * @return The amount of direct children if the tag is a compound or list, {@code 0} otherwise
+	 */
+	private int skipPayload(int type, NBTReader reader) throws IOException {
+		switch (type) {
+			case 1:
+				reader.skip(1);
+				return 0;
+			case 2:
+				reader.skip(2);
+				return 0;
+			case 3:
+				reader.skipInts(1);
+				return 0;
+			case 4:
+				reader.skipLongs(1);
+				return 0;
+			case 5:
+				reader.skip(4);
+				return 0;
+			case 6:
+				reader.skip(8);
+				return 0;
+			case 7:
+				reader.skip(readArraySize(reader));
+				return 0;
+			case 8:
+				reader.skipString();
+				return 0;
+			case 9:
+				int listType = reader.readUnsignedByte();
+				int listSize = readListSize(reader);
+				for (int i = 0; i < listSize; i++) {
+					tagRead(reader);
+					skipPayload(listType, reader);
+				}
+				return listSize;
+			case 10:
+				int childCount = 0;
+				while (true) {
+					int childType = reader.readUnsignedByte();
+					if (childType == 0)
+						return childCount;
+					reader.skipString(); // Name
+					tagRead(reader);
+					skipPayload(childType, reader);
+					childCount++;
+				}
+			case 11:
+				reader.skipInts(readArraySize(reader));
+				return 0;
+			case 12:
+				reader.skipLongs(readArraySize(reader));
+				return 0;
+			default:
+				throw new IOException("Unknown tag id found: " + type);
+		}
+	}
+
+	/**
+	 * Decodes a range of list elements, splitting it in half until the range is small enough
+	 */
+	private class DecodeElementsTask extends RecursiveAction {
+
+		private final int listType;
+		private final int[] offsets;
+		private final NBTTagTreeNode[] elements;
+		/**
+		 * The strings known before the list was decoded, which is never changed
+		 */
+		private final NBTStringTable strings;
+		/**
+		 * One decoder for every thread taking part in decoding the list. Each of them copies the string table once
+		 * and keeps using it for all the ranges its thread decodes.
+		 */
+		private final Map<Thread, NBTTreeDecoder> decoders;
+		private final int from;
+		private final int to;
+
+		private DecodeElementsTask(int listType, int[] offsets, NBTTagTreeNode[] elements, NBTStringTable strings,
+		                           Map<Thread, NBTTreeDecoder> decoders, int from, int to) {
+			this.listType = listType;
+			this.offsets = offsets;
+			this.elements = elements;
+			this.strings = strings;
+			this.decoders = decoders;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > 1 && this.offsets[this.to] - this.offsets[this.from] > SPLIT_BYTES) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new DecodeElementsTask(this.listType, this.offsets, this.elements, this.strings, this.decoders, this.from, middle),
+						new DecodeElementsTask(this.listType, this.offsets, this.elements, this.strings, this.decoders, middle, this.to));
+				return;
+			}
+
+			//While waiting for a nested list, a thread can pick up another range and use its decoder again. That is
+			//fine, as a decoder only keeps the string table and the tag count between tags.
+			NBTTreeDecoder decoder = this.decoders.computeIfAbsent(Thread.currentThread(),
+					thread -> new NBTTreeDecoder(NBTTreeDecoder.this, this.strings.copy()));
+			NBTReader reader = NBTTreeDecoder.this.source.open(this.offsets[this.from]);
+			try {
+				for (int i = this.from; i < this.to; i++)
+					this.elements[i] = decoder.createNode(this.listType, "", reader);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	public interface ProgressListener {
+
+		/**
+		 * @param tagCount The amount of tags which were decoded or skipped so far
+		 * @param position The current position of the reader. When lists are decoded in parallel, this is the position
+		 *                 of one of the readers and can go back and forth.
+		 */
+		void onProgress(int tagCount, int position);
+	}
+}
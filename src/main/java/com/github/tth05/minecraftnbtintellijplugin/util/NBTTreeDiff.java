@@ -0,0 +1,323 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares two trees of tags and writes both of them as text for a diff viewer, in which only the differences are
+ * expanded. Subtrees are compared by their {@link NBTContentHash} first and only descended into if the hashes differ,
+ * so two big files which differ in a few tags are compared without decoding most of them. Trees loaded lazily only
+ * decode the compounds and lists on the way to the differences. The hash of every subtree is only computed once, no
+ * matter how deep the differences are.
+ * <p>
+ * Identical subtrees are a single line on both sides, and long runs of identical siblings share a line. Children of
+ * compounds are matched by their name, elements of lists by their index.
+ */
+public final class NBTTreeDiff {
+
+	private static final String INDENT = "  ";
+	/**
+	 * The most lines written for a tag which only exists on one side, the most elements listed for a changed array and
+	 * the most identical siblings in a row which are written one by one
+	 */
+	private static final int MAX_LINES = 100;
+
+	private final NBTContentHash hashes = new NBTContentHash();
+	private final StringBuilder left = new StringBuilder();
+	private final StringBuilder right = new StringBuilder();
+	@Nullable
+	private final ProgressIndicator indicator;
+	private int added;
+	private int removed;
+	private int changed;
+
+	private NBTTreeDiff(@Nullable ProgressIndicator indicator) {
+		this.indicator = indicator;
+	}
+
+	/**
+	 * @param indicator If not {@code null}, it is checked for cancellation
+	 */
+	public static NBTTreeDiff compare(NBTTagTreeNode left, NBTTagTreeNode right, @Nullable ProgressIndicator indicator) throws IOException {
+		NBTTreeDiff diff = new NBTTreeDiff(indicator);
+		if (diff.isIdentical(left, right)) {
+			line(diff.left, "", left.getName(), summarize(left));
+			line(diff.right, "", right.getName(), summarize(right));
+		} else {
+			diff.writeDifference(left, right, left.getName(), right.getName(), "");
+		}
+		return diff;
+	}
+
+	public String getLeftText() {
+		return this.left.toString();
+	}
+
+	public String getRightText() {
+		return this.right.toString();
+	}
+
+	/**
+	 * @return The amount of tags which only exist on the right side
+	 */
+	public int getAddedCount() {
+		return this.added;
+	}
+
+	/**
+	 * @return The amount of tags which only exist on the left side
+	 */
+	public int getRemovedCount() {
+		return this.removed;
+	}
+
+	/**
+	 * @return The amount of tags with a different value or type on both sides
+	 */
+	public int getChangedCount() {
+		return this.changed;
+	}
+
+	public boolean isIdentical() {
+		return this.added == 0 && this.removed == 0 && this.changed == 0;
+	}
+
+	/**
+	 * @return {@code true} if both tags have the same type and content
+	 */
+	private boolean isIdentical(NBTTagTreeNode left, NBTTagTreeNode right) throws IOException {
+		if (this.indicator != null)
+			this.indicator.checkCanceled();
+		return left.getType() == right.getType() && this.hashes.hash(left) == this.hashes.hash(right);
+	}
+
+	/**
+	 * Writes two tags which are not identical
+	 */
+	private void writeDifference(NBTTagTreeNode left, NBTTagTreeNode right, String leftName, String rightName, String indent) throws IOException {
+		NBTTagType type = left.getType();
+		if (type != right.getType()) {
+			//The values alone might look the same
+			this.changed++;
+			write(this.left, left, leftName + " (" + type + ")", indent, MAX_LINES);
+			write(this.right, right, rightName + " (" + right.getType() + ")", indent, MAX_LINES);
+			return;
+		}
+
+		switch (type) {
+			case COMPOUND:
+				compareCompounds(left, right, leftName, rightName, indent);
+				return;
+			case LIST:
+				compareLists(left, right, leftName, rightName, indent);
+				return;
+			case BYTE_ARRAY:
+			case INT_ARRAY:
+			case LONG_ARRAY:
+				compareArrays(left, right, leftName, rightName, indent);
+				return;
+			default:
+				this.changed++;
+				line(this.left, indent, leftName, left.getValueAsString());
+				line(this.right, indent, rightName, right.getValueAsString());
+		}
+	}
+
+	private void compareCompounds(NBTTagTreeNode left, NBTTagTreeNode right, String leftName, String rightName, String indent) throws IOException {
+		line(this.left, indent, leftName, "{");
+		line(this.right, indent, rightName, "{");
+
+		Map<String, NBTTagTreeNode> rightChildren = new HashMap<>();
+		for (int i = 0; i < right.getChildCount(); i++) {
+			NBTTagTreeNode child = (NBTTagTreeNode) right.getChildAt(i);
+			rightChildren.putIfAbsent(child.getName(), child);
+		}
+
+		//Children on both sides are written in the order of the left side, added ones at the end
+		String childIndent = indent + INDENT;
+		Set<NBTTagTreeNode> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+		int runStart = 0;
+		for (int i = 0; i < left.getChildCount(); i++) {
+			NBTTagTreeNode child = (NBTTagTreeNode) left.getChildAt(i);
+			NBTTagTreeNode other = rightChildren.get(child.getName());
+			boolean found = other != null && matched.add(other);
+			if (found && isIdentical(child, other))
+				continue;
+
+			writeIdenticalRun(left, false, runStart, i, childIndent);
+			runStart = i + 1;
+			if (found) {
+				writeDifference(child, other, child.getName(), other.getName(), childIndent);
+			} else {
+				this.removed++;
+				write(this.left, child, child.getName(), childIndent, MAX_LINES);
+			}
+		}
+		writeIdenticalRun(left, false, runStart, left.getChildCount(), childIndent);
+		for (int i = 0; i < right.getChildCount(); i++) {
+			NBTTagTreeNode child = (NBTTagTreeNode) right.getChildAt(i);
+			if (!matched.contains(child)) {
+				this.added++;
+				write(this.right, child, child.getName(), childIndent, MAX_LINES);
+			}
+		}
+
+		line(this.left, indent, null, "}");
+		line(this.right, indent, null, "}");
+	}
+
+	private void compareLists(NBTTagTreeNode left, NBTTagTreeNode right, String leftName, String rightName, String indent) throws IOException {
+		line(this.left, indent, leftName, "[");
+		line(this.right, indent, rightName, "[");
+
+		String childIndent = indent + INDENT;
+		int leftCount = left.getChildCount();
+		int rightCount = right.getChildCount();
+		int common = Math.min(leftCount, rightCount);
+		int runStart = 0;
+		for (int i = 0; i < common; i++) {
+			NBTTagTreeNode leftChild = (NBTTagTreeNode) left.getChildAt(i);
+			NBTTagTreeNode rightChild = (NBTTagTreeNode) right.getChildAt(i);
+			if (isIdentical(leftChild, rightChild))
+				continue;
+
+			writeIdenticalRun(left, true, runStart, i, childIndent);
+			runStart = i + 1;
+			String name = "[" + i + "]";
+			writeDifference(leftChild, rightChild, name, name, childIndent);
+		}
+		writeIdenticalRun(left, true, runStart, common, childIndent);
+		for (int i = rightCount; i < leftCount; i++) {
+			this.removed++;
+			write(this.left, (NBTTagTreeNode) left.getChildAt(i), "[" + i + "]", childIndent, MAX_LINES);
+		}
+		for (int i = leftCount; i < rightCount; i++) {
+			this.added++;
+			write(this.right, (NBTTagTreeNode) right.getChildAt(i), "[" + i + "]", childIndent, MAX_LINES);
+		}
+
+		line(this.left, indent, null, "]");
+		line(this.right, indent, null, "]");
+	}
+
+	/**
+	 * Writes the children which are identical on both sides, from the last difference up to the next one. Identical
+	 * children look the same on both sides, so they are written from the left side.
+	 *
+	 * @param from The index of the first identical child on the left side
+	 * @param to   The index after the last identical child on the left side
+	 */
+	private void writeIdenticalRun(NBTTagTreeNode left, boolean list, int from, int to, String indent) {
+		if (to - from > MAX_LINES) {
+			String text = (to - from) + " identical tags";
+			line(this.left, indent, list ? "[" + from + ".." + (to - 1) + "]" : null, text);
+			line(this.right, indent, list ? "[" + from + ".." + (to - 1) + "]" : null, text);
+			return;
+		}
+
+		for (int i = from; i < to; i++) {
+			NBTTagTreeNode child = (NBTTagTreeNode) left.getChildAt(i);
+			String name = list ? "[" + i + "]" : child.getName();
+			line(this.left, indent, name, summarize(child));
+			line(this.right, indent, name, summarize(child));
+		}
+	}
+
+	/**
+	 * Arrays are a single tag, only the elements which differ are listed below them
+	 */
+	private void compareArrays(NBTTagTreeNode left, NBTTagTreeNode right, String leftName, String rightName, String indent) {
+		this.changed++;
+		line(this.left, indent, leftName, summarize(left));
+		line(this.right, indent, rightName, summarize(right));
+
+		Object leftArray = left.getValue();
+		Object rightArray = right.getValue();
+		int leftLength = Array.getLength(leftArray);
+		int rightLength = Array.getLength(rightArray);
+		String elementIndent = indent + INDENT;
+		int listed = 0;
+		int unlisted = 0;
+		for (int i = 0; i < Math.max(leftLength, rightLength); i++) {
+			Object leftElement = i < leftLength ? Array.get(leftArray, i) : null;
+			Object rightElement = i < rightLength ? Array.get(rightArray, i) : null;
+			if (leftElement != null && leftElement.equals(rightElement))
+				continue;
+			if (listed == MAX_LINES) {
+				unlisted++;
+				continue;
+			}
+
+			listed++;
+			if (leftElement != null)
+				line(this.left, elementIndent, "[" + i + "]", NBTNumberFormat.format((Number) leftElement));
+			if (rightElement != null)
+				line(this.right, elementIndent, "[" + i + "]", NBTNumberFormat.format((Number) rightElement));
+		}
+		if (unlisted > 0) {
+			line(this.left, elementIndent, null, "... " + unlisted + " more differences");
+			line(this.right, elementIndent, null, "... " + unlisted + " more differences");
+		}
+	}
+
+	/**
+	 * Writes a tag which only exists on one side, or whose type changed, with everything below it
+	 *
+	 * @param budget The most lines to write
+	 * @return The amount of lines written
+	 */
+	private int write(StringBuilder text, NBTTagTreeNode node, String name, String indent, int budget) {
+		NBTTagType type = node.getType();
+		if (type != NBTTagType.COMPOUND && type != NBTTagType.LIST) {
+			line(text, indent, name, summarize(node));
+			return 1;
+		}
+
+		boolean compound = type == NBTTagType.COMPOUND;
+		line(text, indent, name, compound ? "{" : "[");
+		int lines = 2;
+		int count = node.getChildCount();
+		for (int i = 0; i < count; i++) {
+			if (lines >= budget) {
+				line(text, indent + INDENT, null, "... " + (count - i) + " more");
+				lines++;
+				break;
+			}
+			NBTTagTreeNode child = (NBTTagTreeNode) node.getChildAt(i);
+			lines += write(text, child, compound ? child.getName() : "[" + i + "]", indent + INDENT, budget - lines);
+		}
+		line(text, indent, null, compound ? "}" : "]");
+		return lines;
+	}
+
+	/**
+	 * @return The value of primitives, and a placeholder for anything else which is not expanded
+	 */
+	private static String summarize(NBTTagTreeNode node) {
+		switch (node.getType()) {
+			case COMPOUND:
+				return "{...}";
+			case LIST:
+				return "[...]";
+			default:
+				return node.getValueAsString();
+		}
+	}
+
+	private static void line(StringBuilder text, String indent, @Nullable String name, String value) {
+		text.append(indent);
+		if (name != null)
+			text.append(name).append(": ");
+		text.append(value).append('\n');
+	}
+}
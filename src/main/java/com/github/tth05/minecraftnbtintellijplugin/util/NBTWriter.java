@@ -0,0 +1,154 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes NBT primitives into a heap buffer which is flushed to the underlying stream whenever it is full
+ */
+public class NBTWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	protected final ByteBuffer buffer;
+	private final OutputStream out;
+	/**
+	 * Java edition encodes strings in modified UTF-8, Bedrock edition uses standard UTF-8
+	 */
+	private final NBTStringCodec strings;
+
+	public NBTWriter(OutputStream out, ByteOrder order, boolean modifiedUtf8) {
+		this.out = out;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE).order(order);
+		this.strings = new NBTStringCodec(modifiedUtf8);
+	}
+
+	/**
+	 * Makes sure that at least {@code amount} bytes fit into the buffer, {@code amount} must not be bigger than
+	 * the buffer itself
+	 */
+	protected void ensureCapacity(int amount) throws IOException {
+		if (this.buffer.remaining() < amount)
+			flushBuffer();
+	}
+
+	private void flushBuffer() throws IOException {
+		this.out.write(this.buffer.array(), 0, this.buffer.position());
+		this.buffer.clear();
+	}
+
+	public void writeByte(int value) throws IOException {
+		ensureCapacity(1);
+		this.buffer.put((byte) value);
+	}
+
+	public void writeShort(int value) throws IOException {
+		ensureCapacity(2);
+		this.buffer.putShort((short) value);
+	}
+
+	public void writeInt(int value) throws IOException {
+		ensureCapacity(4);
+		this.buffer.putInt(value);
+	}
+
+	public void writeLong(long value) throws IOException {
+		ensureCapacity(8);
+		this.buffer.putLong(value);
+	}
+
+	public void writeFloat(float value) throws IOException {
+		ensureCapacity(4);
+		this.buffer.putFloat(value);
+	}
+
+	public void writeDouble(double value) throws IOException {
+		ensureCapacity(8);
+		this.buffer.putDouble(value);
+	}
+
+	public void writeBytes(byte[] bytes) throws IOException {
+		if (bytes.length > this.buffer.remaining()) {
+			flushBuffer();
+			if (bytes.length > this.buffer.remaining()) {
+				this.out.write(bytes);
+				return;
+			}
+		}
+		this.buffer.put(bytes);
+	}
+
+	/**
+	 * Writes the remaining content of the given buffer as is, used to copy data which is already encoded in the
+	 * format of this writer
+	 */
+	public void writeBytes(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			if (!this.buffer.hasRemaining())
+				flushBuffer();
+			int length = Math.min(bytes.remaining(), this.buffer.remaining());
+			ByteBuffer chunk = bytes.slice();
+			chunk.limit(length);
+			this.buffer.put(chunk);
+			bytes.position(bytes.position() + length);
+		}
+	}
+
+	public void writeInts(int[] ints) throws IOException {
+		for (int offset = 0; offset < ints.length; ) {
+			ensureCapacity(4);
+			int count = Math.min(ints.length - offset, this.buffer.remaining() / 4);
+			this.buffer.asIntBuffer().put(ints, offset, count);
+			this.buffer.position(this.buffer.position() + count * 4);
+			offset += count;
+		}
+	}
+
+	public void writeLongs(long[] longs) throws IOException {
+		for (int offset = 0; offset < longs.length; ) {
+			ensureCapacity(8);
+			int count = Math.min(longs.length - offset, this.buffer.remaining() / 8);
+			this.buffer.asLongBuffer().put(longs, offset, count);
+			this.buffer.position(this.buffer.position() + count * 8);
+			offset += count;
+		}
+	}
+
+	public void writeString(String string) throws IOException {
+		int length = this.strings.encodedLength(string);
+		writeStringLength(length);
+		if (length <= BUFFER_SIZE) {
+			ensureCapacity(length);
+			this.strings.encode(string, this.buffer);
+		} else {
+			//Only strings of the network format can be this long
+			ByteBuffer bytes = ByteBuffer.allocate(length);
+			this.strings.encode(string, bytes);
+			writeBytes(bytes.flip());
+		}
+	}
+
+	protected void writeStringLength(int length) throws IOException {
+		if (length > 0xFFFF)
+			throw new UTFDataFormatException("String too long: " + length + " bytes");
+		writeShort(length);
+	}
+
+	/**
+	 * Writes all buffered bytes to the underlying stream
+	 */
+	public void flush() throws IOException {
+		flushBuffer();
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flushBuffer();
+		this.out.close();
+	}
+}
@@ -0,0 +1,49 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Little endian reader which reads ints, longs and string lengths as VarInts
+ */
+public class NetworkNBTReader extends NBTReader {
+
+	public NetworkNBTReader(ByteBuffer buffer) {
+		super(buffer, ByteOrder.LITTLE_ENDIAN, false);
+	}
+
+	@Override
+	public int readInt() {
+		return VarInts.readInt(this.buffer);
+	}
+
+	@Override
+	public long readLong() {
+		return VarInts.readLong(this.buffer);
+	}
+
+	@Override
+	public void readInts(int[] ints) {
+		VarInts.readInts(this.buffer, ints);
+	}
+
+	@Override
+	public void readLongs(long[] longs) {
+		VarInts.readLongs(this.buffer, longs);
+	}
+
+	@Override
+	protected int readStringLength() {
+		return VarInts.readUnsignedInt(this.buffer);
+	}
+
+	@Override
+	public void skipInts(int count) {
+		VarInts.skip(this.buffer, count);
+	}
+
+	@Override
+	public void skipLongs(int count) {
+		VarInts.skip(this.buffer, count);
+	}
+}
@@ -0,0 +1,49 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+
+/**
+ * Little endian writer which writes ints, longs and string lengths as VarInts
+ */
+public class NetworkNBTWriter extends NBTWriter {
+
+	public NetworkNBTWriter(OutputStream out) {
+		super(out, ByteOrder.LITTLE_ENDIAN, false);
+	}
+
+	@Override
+	public void writeInt(int value) throws IOException {
+		ensureCapacity(5);
+		VarInts.writeInt(this.buffer, value);
+	}
+
+	@Override
+	public void writeLong(long value) throws IOException {
+		ensureCapacity(10);
+		VarInts.writeLong(this.buffer, value);
+	}
+
+	@Override
+	public void writeInts(int[] ints) throws IOException {
+		for (int i = 0; i < ints.length; ) {
+			ensureCapacity(5);
+			i = VarInts.writeInts(this.buffer, ints, i);
+		}
+	}
+
+	@Override
+	public void writeLongs(long[] longs) throws IOException {
+		for (int i = 0; i < longs.length; ) {
+			ensureCapacity(10);
+			i = VarInts.writeLongs(this.buffer, longs, i);
+		}
+	}
+
+	@Override
+	protected void writeStringLength(int length) throws IOException {
+		ensureCapacity(5);
+		VarInts.writeUnsignedInt(this.buffer, length);
+	}
+}
@@ -0,0 +1,348 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The header of an Anvil (.mca) or McRegion (.mcr) file. A region holds 32x32 chunks, the header is made up of two
+ * tables with an entry for every chunk: the location of the chunk data in 4 KB sectors and the time it was last saved.
+ * Only the header is read when opening the region, the chunks themselves are read when they are needed.
+ */
+// https://minecraft.wiki/w/Region_file_format
+public class RegionFile {
+
+	public static final int CHUNK_COUNT = 1024;
+	public static final int SECTOR_SIZE = 4096;
+	private static final int HEADER_SIZE = 2 * SECTOR_SIZE;
+	/**
+	 * Set in the compression type if the chunk did not fit into the region and is stored in its own .mcc file
+	 */
+	private static final int EXTERNAL_FLAG = 128;
+	/**
+	 * The length and compression type in front of the data of every chunk
+	 */
+	private static final int CHUNK_HEADER_SIZE = 5;
+	/**
+	 * The sector count of a location is stored in a single byte, bigger chunks are stored in external files
+	 */
+	private static final int MAX_SECTOR_COUNT = 255;
+	private static final int DEFAULT_COMPRESSION_TYPE = 2;
+	private static final Pattern NAME_PATTERN = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mc[ar]");
+
+	private final VirtualFile file;
+	private final int regionX;
+	private final int regionZ;
+	private final int[] locations = new int[CHUNK_COUNT];
+	private final int[] timestamps = new int[CHUNK_COUNT];
+	/**
+	 * The compression type of every chunk which has been read, chunks are written back using the same compression
+	 */
+	private final byte[] compressionTypes = new byte[CHUNK_COUNT];
+	private final Object writeLock = new Object();
+
+	private RegionFile(VirtualFile file, ByteBuffer header) {
+		this(file, file.getName(), header);
+	}
+
+	/**
+	 * @param file {@code null} for regions which are only written to using {@link #writeChunks(Path, Map)}
+	 */
+	RegionFile(@Nullable VirtualFile file, String name, ByteBuffer header) {
+		this.file = file;
+		Matcher matcher = NAME_PATTERN.matcher(name);
+		this.regionX = matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+		this.regionZ = matcher.matches() ? Integer.parseInt(matcher.group(2)) : 0;
+		header.asIntBuffer().get(this.locations).get(this.timestamps);
+	}
+
+	public static boolean isRegionFile(VirtualFile file) {
+		return "mca".equals(file.getExtension()) || "mcr".equals(file.getExtension());
+	}
+
+	/**
+	 * Reads the header of the region file
+	 */
+	public static RegionFile read(VirtualFile file) throws IOException {
+		if (file.getLength() < HEADER_SIZE)
+			throw new IOException("Region file is too small: " + file.getLength() + " bytes");
+
+		ByteBuffer header = ByteBuffer.wrap(readBytes(file, 0, HEADER_SIZE));
+		return new RegionFile(file, header);
+	}
+
+	public synchronized boolean hasChunk(int index) {
+		return getSectorOffset(index) >= 2 && getSectorCount(index) > 0;
+	}
+
+	public synchronized int getSectorOffset(int index) {
+		return this.locations[index] >>> 8;
+	}
+
+	public synchronized int getSectorCount(int index) {
+		return this.locations[index] & 0xFF;
+	}
+
+	/**
+	 * @return The compression the chunk was read with, which is also used to write it
+	 */
+	public synchronized NBTCompression getCompression(int index) {
+		NBTCompression compression = getCompressionOfType(this.compressionTypes[index]);
+		return compression != null ? compression : getCompressionOfType(DEFAULT_COMPRESSION_TYPE);
+	}
+
+	/**
+	 * @return The x coordinate of the chunk in the world
+	 */
+	public int getChunkX(int index) {
+		return this.regionX * 32 + (index & 31);
+	}
+
+	/**
+	 * @return The z coordinate of the chunk in the world
+	 */
+	public int getChunkZ(int index) {
+		return this.regionZ * 32 + (index >> 5);
+	}
+
+	/**
+	 * Reads and decompresses the data of a chunk
+	 *
+	 * @return The source containing the uncompressed big endian NBT data of the chunk
+	 */
+	public NBTSource readChunk(int index) throws IOException {
+		int offset;
+		int count;
+		synchronized (this) {
+			if (!hasChunk(index))
+				throw new IOException("Chunk " + index + " does not exist");
+			offset = getSectorOffset(index);
+			count = getSectorCount(index);
+		}
+
+		ByteBuffer data = ByteBuffer.wrap(readBytes(this.file, (long) offset * SECTOR_SIZE, count * SECTOR_SIZE));
+		int length = data.getInt();
+		if (length <= 0 || length > data.remaining())
+			throw new IOException("Invalid chunk length: " + length);
+		int compressionType = data.get() & 0xFF;
+
+		InputStream compressed;
+		if ((compressionType & EXTERNAL_FLAG) != 0) {
+			VirtualFile external = this.file.getParent() == null ? null :
+					this.file.getParent().findChild("c." + getChunkX(index) + "." + getChunkZ(index) + ".mcc");
+			if (external == null)
+				throw new IOException("External chunk file is missing");
+			compressed = external.getInputStream();
+		} else {
+			compressed = new ByteArrayInputStream(data.array(), data.position(), length - 1);
+		}
+
+		NBTCompression compression = getCompressionOfType(compressionType & ~EXTERNAL_FLAG);
+		if (compression == null)
+			throw new IOException("Unsupported chunk compression: " + compressionType);
+		synchronized (this) {
+			this.compressionTypes[index] = (byte) (compressionType & ~EXTERNAL_FLAG);
+		}
+
+		try (InputStream in = compression.decompress(compressed)) {
+			return new NBTSource(ByteBuffer.wrap(in.readAllBytes()), NBTFormat.BIG_ENDIAN);
+		}
+	}
+
+	/**
+	 * Writes the given chunks into the region file in place, all other chunks are left untouched. A chunk is written
+	 * into the sectors it already occupies if it still fits into them, otherwise into the first free sectors which are
+	 * big enough or at the end of the file. Only the entries of the written chunks are updated in the header. The old
+	 * sectors of a chunk stay reserved until the header has been written, so that no other chunk of the batch can be
+	 * written into them while the header still points there. For the same reason the .mcc files of chunks which fit
+	 * into the region again are only deleted once the header has been written.
+	 *
+	 * @param chunks The data of the chunks by their index, compressed using {@link #getCompression(int)}
+	 */
+	public void writeChunks(Map<Integer, byte[]> chunks) throws IOException {
+		writeChunks(this.file.toNioPath(), chunks);
+	}
+
+	/**
+	 * @param path The region file this region was read from
+	 */
+	void writeChunks(Path path, Map<Integer, byte[]> chunks) throws IOException {
+		synchronized (this.writeLock) {
+			int timestamp = (int) (System.currentTimeMillis() / 1000);
+			int[] newLocations = new int[CHUNK_COUNT];
+			List<Path> obsoleteExternalFiles = new ArrayList<>();
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				BitSet usedSectors = getUsedSectors();
+				for (Map.Entry<Integer, byte[]> entry : chunks.entrySet()) {
+					int index = entry.getKey();
+					byte[] data = entry.getValue();
+					int compressionType = getCompressionType(getCompression(index));
+					Path external = path.resolveSibling("c." + getChunkX(index) + "." + getChunkZ(index) + ".mcc");
+
+					ByteBuffer buffer;
+					if (sectorsNeeded(data.length) > MAX_SECTOR_COUNT) {
+						Files.write(external, data);
+						buffer = ByteBuffer.allocate(SECTOR_SIZE).putInt(1).put((byte) (compressionType | EXTERNAL_FLAG));
+					} else {
+						if (isStoredExternally(channel, index))
+							obsoleteExternalFiles.add(external);
+						buffer = ByteBuffer.allocate(sectorsNeeded(data.length) * SECTOR_SIZE)
+								.putInt(data.length + 1).put((byte) compressionType).put(data);
+					}
+					buffer.clear();
+
+					int sectorCount = buffer.capacity() / SECTOR_SIZE;
+					int sectorOffset;
+					synchronized (this) {
+						sectorOffset = hasChunk(index) ?
+								allocateSectors(usedSectors, getSectorOffset(index), getSectorCount(index), sectorCount) :
+								allocateSectors(usedSectors, 0, 0, sectorCount);
+					}
+					usedSectors.set(sectorOffset, sectorOffset + sectorCount);
+					writeFully(channel, buffer, (long) sectorOffset * SECTOR_SIZE);
+					newLocations[index] = (sectorOffset << 8) | sectorCount;
+				}
+
+				//The header is only changed once all chunks have been written
+				channel.force(false);
+				ByteBuffer entry = ByteBuffer.allocate(4);
+				for (int index : chunks.keySet()) {
+					writeFully(channel, entry.clear().putInt(newLocations[index]).flip(), index * 4L);
+					writeFully(channel, entry.clear().putInt(timestamp).flip(), SECTOR_SIZE + index * 4L);
+				}
+			}
+
+			synchronized (this) {
+				for (int index : chunks.keySet()) {
+					this.locations[index] = newLocations[index];
+					this.timestamps[index] = timestamp;
+				}
+			}
+			for (Path external : obsoleteExternalFiles)
+				Files.deleteIfExists(external);
+		}
+	}
+
+	/**
+	 * Has to be called before the chunk is written, as it reads the compression type from the current data of the
+	 * chunk
+	 *
+	 * @return {@code true} if the data of the chunk is stored in a .mcc file
+	 */
+	private boolean isStoredExternally(FileChannel channel, int index) throws IOException {
+		long position;
+		synchronized (this) {
+			if (!hasChunk(index))
+				return false;
+			position = (long) getSectorOffset(index) * SECTOR_SIZE + 4;
+		}
+
+		ByteBuffer compressionType = ByteBuffer.allocate(1);
+		return channel.read(compressionType, position) == 1 && (compressionType.get(0) & EXTERNAL_FLAG) != 0;
+	}
+
+	private static int sectorsNeeded(int dataLength) {
+		return (dataLength + CHUNK_HEADER_SIZE + SECTOR_SIZE - 1) / SECTOR_SIZE;
+	}
+
+	private synchronized BitSet getUsedSectors() {
+		BitSet usedSectors = new BitSet();
+		usedSectors.set(0, HEADER_SIZE / SECTOR_SIZE);
+		for (int i = 0; i < CHUNK_COUNT; i++) {
+			if (hasChunk(i))
+				usedSectors.set(getSectorOffset(i), getSectorOffset(i) + getSectorCount(i));
+		}
+		return usedSectors;
+	}
+
+	/**
+	 * Finds the sectors to write a chunk into. The sectors of every chunk, including the old sectors of the chunk
+	 * itself, are expected to be marked as used.
+	 *
+	 * @param oldOffset The sector the chunk currently starts at, the chunk may only reuse its own old sectors
+	 * @param oldCount  The amount of sectors the chunk currently occupies, {@code 0} if it does not exist yet
+	 * @return The first sector of {@code sectorCount} sectors which can be written to
+	 */
+	static int allocateSectors(BitSet usedSectors, int oldOffset, int oldCount, int sectorCount) {
+		if (oldCount > 0 && sectorCount <= oldCount)
+			return oldOffset;
+
+		int start = usedSectors.nextClearBit(0);
+		while (true) {
+			int end = usedSectors.nextSetBit(start);
+			if (end < 0 || end - start >= sectorCount)
+				return start;
+			start = usedSectors.nextClearBit(end);
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	private static int getCompressionType(NBTCompression compression) {
+		switch (compression) {
+			case GZIP:
+				return 1;
+			case ZLIB:
+				return 2;
+			case LZ4:
+				return 4;
+			default:
+				return 3;
+		}
+	}
+
+	@Nullable
+	private static NBTCompression getCompressionOfType(int type) {
+		switch (type) {
+			case 1:
+				return NBTCompression.GZIP;
+			case 2:
+				return NBTCompression.ZLIB;
+			case 3:
+				return NBTCompression.NONE;
+			case 4:
+				return NBTCompression.LZ4;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Reads a part of the file. Local files are read using positional reads, everything else has to be streamed
+	 * through.
+	 */
+	private static byte[] readBytes(VirtualFile file, long position, int length) throws IOException {
+		if (file.isInLocalFileSystem()) {
+			try (FileChannel channel = FileChannel.open(file.toNioPath(), StandardOpenOption.READ)) {
+				ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - position)));
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, position + buffer.position()) < 0)
+						break;
+				}
+				return buffer.array();
+			}
+		}
+
+		try (InputStream in = file.getInputStream()) {
+			in.skipNBytes(position);
+			return in.readNBytes(length);
+		}
+	}
+}
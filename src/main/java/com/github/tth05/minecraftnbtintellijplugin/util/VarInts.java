@@ -1,49 +1,273 @@
 package com.github.tth05.minecraftnbtintellijplugin.util;
 
-import java.io.DataInput;
-import java.io.DataOutput;
-import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
+/**
+ * VarInts store 7 bits per byte and set the highest bit of every byte except the last one. Signed values are ZigZag
+ * encoded first, so small negative values stay short. Heap buffers are read from and written to through their
+ * backing array, as long as the longest possible VarInt fits into what is left of them.
+ */
 public final class VarInts {
 
-    public static void writeInt(DataOutput buffer, int integer) throws IOException {
-        encodeUnsigned(buffer, (integer << 1) ^ (integer >> 31));
+    private static final int MAX_INT_SIZE = 5;
+    private static final int MAX_LONG_SIZE = 10;
+    /**
+     * The encoded size of a value by its amount of leading zeros
+     */
+    private static final int[] SIZES = new int[65];
+
+    static {
+        for (int i = 0; i <= 64; i++)
+            SIZES[i] = Math.max(1, (64 - i + 6) / 7);
     }
 
-    public static int readInt(DataInput buffer) throws IOException {
-        int n = (int) decodeUnsigned(buffer);
-        return (n >>> 1) ^ -(n & 1);
+    public static void writeInt(ByteBuffer buffer, int integer) {
+        encodeUnsigned(buffer, zigZag(integer) & 0xFFFFFFFFL);
+    }
+
+    public static int readInt(ByteBuffer buffer) {
+        return unZigZag(readUnsignedInt(buffer));
     }
 
-    public static void writeUnsignedInt(DataOutput buffer, long integer) throws IOException {
+    public static void writeUnsignedInt(ByteBuffer buffer, long integer) {
         encodeUnsigned(buffer, integer);
     }
 
-    public static int readUnsignedInt(DataInput buffer) throws IOException {
+    public static int readUnsignedInt(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.remaining() >= MAX_INT_SIZE) {
+            int offset = buffer.arrayOffset();
+            long result = decodeUnsignedInt(buffer.array(), offset + buffer.position());
+            if (result != -1) {
+                buffer.position((int) (result >>> 32) - offset);
+                return (int) result;
+            }
+        }
         return (int) decodeUnsigned(buffer);
     }
 
-    public static void writeLong(DataOutput buffer, long longInteger) throws IOException {
-        encodeUnsigned(buffer, (longInteger << 1) ^ (longInteger >> 63));
+    public static void writeLong(ByteBuffer buffer, long longInteger) {
+        encodeUnsigned(buffer, zigZag(longInteger));
     }
 
-    public static long readLong(DataInput buffer) throws IOException {
-        long n = decodeUnsigned(buffer);
-        return (n >>> 1) ^ -(n & 1);
+    public static long readLong(ByteBuffer buffer) {
+        return unZigZag(decodeUnsigned(buffer));
     }
 
-    public static void writeUnsignedLong(DataOutput buffer, long longInteger) throws IOException {
+    public static void writeUnsignedLong(ByteBuffer buffer, long longInteger) {
         encodeUnsigned(buffer, longInteger);
     }
 
-    public static long readUnsignedLong(DataInput buffer) throws IOException {
+    public static long readUnsignedLong(ByteBuffer buffer) {
         return decodeUnsigned(buffer);
     }
 
-    private static long decodeUnsigned(DataInput buffer) throws IOException {
+    /**
+     * @return The amount of bytes {@link #writeInt(ByteBuffer, int)} writes for the value
+     */
+    public static int getIntSize(int integer) {
+        return SIZES[Long.numberOfLeadingZeros(zigZag(integer) & 0xFFFFFFFFL)];
+    }
+
+    /**
+     * @return The amount of bytes {@link #writeLong(ByteBuffer, long)} writes for the value
+     */
+    public static int getLongSize(long longInteger) {
+        return SIZES[Long.numberOfLeadingZeros(zigZag(longInteger))];
+    }
+
+    /**
+     * @return The amount of bytes {@link #writeUnsignedInt(ByteBuffer, long)} and
+     * {@link #writeUnsignedLong(ByteBuffer, long)} write for the value
+     */
+    public static int getUnsignedSize(long value) {
+        return SIZES[Long.numberOfLeadingZeros(value)];
+    }
+
+    /**
+     * Reads ZigZag encoded ints until the array is full
+     */
+    public static void readInts(ByteBuffer buffer, int[] ints) {
+        int i = 0;
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            int position = offset + buffer.position();
+            int end = offset + buffer.limit() - MAX_INT_SIZE;
+            for (; i < ints.length && position <= end; i++) {
+                long result = decodeUnsignedInt(array, position);
+                if (result == -1)
+                    break;
+                ints[i] = unZigZag((int) result);
+                position = (int) (result >>> 32);
+            }
+            buffer.position(position - offset);
+        }
+        //The last few values and overlong ones
+        for (; i < ints.length; i++)
+            ints[i] = readInt(buffer);
+    }
+
+    /**
+     * Reads ZigZag encoded longs until the array is full
+     */
+    public static void readLongs(ByteBuffer buffer, long[] longs) {
+        int i = 0;
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            int position = offset + buffer.position();
+            int end = offset + buffer.limit() - MAX_LONG_SIZE;
+            for (; i < longs.length && position <= end; i++) {
+                long result = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = array[position++];
+                    result |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0 && shift < 64);
+                if (b < 0)
+                    throw new ArithmeticException("Varint was too large");
+                longs[i] = unZigZag(result);
+            }
+            buffer.position(position - offset);
+        }
+        for (; i < longs.length; i++)
+            longs[i] = readLong(buffer);
+    }
+
+    /**
+     * Moves the buffer past {@code count} VarInts of any size
+     */
+    public static void skip(ByteBuffer buffer, int count) {
+        if (!buffer.hasArray()) {
+            for (int i = 0; i < count; i++)
+                decodeUnsigned(buffer);
+            return;
+        }
+
+        byte[] array = buffer.array();
+        int offset = buffer.arrayOffset();
+        int position = offset + buffer.position();
+        int end = offset + buffer.limit();
+        for (int i = 0; i < count; i++) {
+            //Only the last byte of a VarInt has the highest bit cleared
+            do {
+                if (position >= end)
+                    throw new BufferUnderflowException();
+            } while (array[position++] < 0);
+        }
+        buffer.position(position - offset);
+    }
+
+    /**
+     * Writes ZigZag encoded ints as long as they fit into the buffer
+     *
+     * @param from The index of the first int to write
+     * @return The index of the first int which was not written
+     */
+    public static int writeInts(ByteBuffer buffer, int[] ints, int from) {
+        if (!buffer.hasArray()) {
+            int i = from;
+            for (; i < ints.length && buffer.remaining() >= getIntSize(ints[i]); i++)
+                writeInt(buffer, ints[i]);
+            return i;
+        }
+
+        byte[] array = buffer.array();
+        int offset = buffer.arrayOffset();
+        int position = offset + buffer.position();
+        int end = offset + buffer.limit();
+        int i = from;
+        for (; i < ints.length; i++) {
+            long value = zigZag(ints[i]) & 0xFFFFFFFFL;
+            if (end - position < MAX_INT_SIZE && end - position < getUnsignedSize(value))
+                break;
+            position = encodeUnsigned(array, position, value);
+        }
+        buffer.position(position - offset);
+        return i;
+    }
+
+    /**
+     * Writes ZigZag encoded longs as long as they fit into the buffer
+     *
+     * @param from The index of the first long to write
+     * @return The index of the first long which was not written
+     */
+    public static int writeLongs(ByteBuffer buffer, long[] longs, int from) {
+        if (!buffer.hasArray()) {
+            int i = from;
+            for (; i < longs.length && buffer.remaining() >= getLongSize(longs[i]); i++)
+                writeLong(buffer, longs[i]);
+            return i;
+        }
+
+        byte[] array = buffer.array();
+        int offset = buffer.arrayOffset();
+        int position = offset + buffer.position();
+        int end = offset + buffer.limit();
+        int i = from;
+        for (; i < longs.length; i++) {
+            long value = zigZag(longs[i]);
+            if (end - position < MAX_LONG_SIZE && end - position < getUnsignedSize(value))
+                break;
+            position = encodeUnsigned(array, position, value);
+        }
+        buffer.position(position - offset);
+        return i;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static long unZigZag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * Decodes a VarInt of at most 5 bytes straight from the array, there have to be at least 5 bytes left
+     *
+     * @return The position after the VarInt in the upper 32 bits and the value in the lower ones, or {@code -1} if
+     * the VarInt is longer than 5 bytes
+     */
+    private static long decodeUnsignedInt(byte[] array, int position) {
+        int b = array[position++];
+        if (b >= 0)
+            return pack(position, b);
+        int result = b & 0x7F;
+        if ((b = array[position++]) >= 0)
+            return pack(position, result | b << 7);
+        result |= (b & 0x7F) << 7;
+        if ((b = array[position++]) >= 0)
+            return pack(position, result | b << 14);
+        result |= (b & 0x7F) << 14;
+        if ((b = array[position++]) >= 0)
+            return pack(position, result | b << 21);
+        result |= (b & 0x7F) << 21;
+        if ((b = array[position++]) >= 0)
+            return pack(position, result | b << 28);
+        return -1;
+    }
+
+    private static long pack(int position, int value) {
+        return (long) position << 32 | (value & 0xFFFFFFFFL);
+    }
+
+    private static long decodeUnsigned(ByteBuffer buffer) {
         long result = 0;
         for (int shift = 0; shift < 64; shift += 7) {
-            final byte b = buffer.readByte();
+            final byte b = buffer.get();
             result |= (long) (b & 0x7F) << shift;
             if ((b & 0x80) == 0) {
                 return result;
@@ -52,16 +276,30 @@ public final class VarInts {
         throw new ArithmeticException("Varint was too large");
     }
 
-    private static void encodeUnsigned(DataOutput buffer, long value) throws IOException {
-        while (true) {
-            if ((value & ~0x7FL) == 0) {
-                buffer.writeByte((int) value);
-                return;
-            } else {
-                buffer.writeByte((byte) (((int) value & 0x7F) | 0x80));
-                value >>>= 7;
-            }
+    private static void encodeUnsigned(ByteBuffer buffer, long value) {
+        if (buffer.hasArray() && buffer.remaining() >= MAX_LONG_SIZE) {
+            int offset = buffer.arrayOffset();
+            buffer.position(encodeUnsigned(buffer.array(), offset + buffer.position(), value) - offset);
+            return;
+        }
+
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (((int) value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * @return The position after the written VarInt
+     */
+    private static int encodeUnsigned(byte[] array, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            array[position++] = (byte) (((int) value & 0x7F) | 0x80);
+            value >>>= 7;
         }
+        array[position++] = (byte) value;
+        return position;
     }
 
     private VarInts() {
@@ -0,0 +1,139 @@
+package com.github.tth05.minecraftnbtintellijplugin.util.leveldb;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the keys of a Bedrock edition world database into readable text and back. Most keys are either plain text,
+ * like {@code ~local_player}, or chunk keys made up of the little endian chunk coordinates, an optional dimension, a
+ * tag byte and, for sub chunks, their y index.
+ */
+// https://minecraft.wiki/w/Bedrock_Edition_level_format#Chunk_key_format
+public final class BedrockKeys {
+
+	private static final Map<Integer, String> CHUNK_TAGS = Map.ofEntries(
+			Map.entry(43, "Data3D"),
+			Map.entry(44, "Version"),
+			Map.entry(45, "Data2D"),
+			Map.entry(46, "Data2DLegacy"),
+			Map.entry(47, "SubChunkPrefix"),
+			Map.entry(48, "LegacyTerrain"),
+			Map.entry(49, "BlockEntity"),
+			Map.entry(50, "Entity"),
+			Map.entry(51, "PendingTicks"),
+			Map.entry(52, "LegacyBlockExtraData"),
+			Map.entry(53, "BiomeState"),
+			Map.entry(54, "FinalizedState"),
+			Map.entry(56, "BorderBlocks"),
+			Map.entry(57, "HardcodedSpawners"),
+			Map.entry(58, "RandomTicks"),
+			Map.entry(59, "Checksums"),
+			Map.entry(61, "MetaDataHash"),
+			Map.entry(118, "LegacyVersion")
+	);
+	private static final Pattern CHUNK_PATTERN = Pattern.compile(
+			"chunk\\((-?\\d+), *(-?\\d+)(?:, *dim (\\d+))?\\)(?: +(\\w+)(?: +(-?\\d+))?)?");
+	private static final String HEX_PREFIX = "0x";
+
+	/**
+	 * @return A readable representation of the key which {@link #parse(String)} turns back into the key
+	 */
+	public static String format(byte[] key) {
+		if (isPrintable(key)) {
+			String text = new String(key, StandardCharsets.US_ASCII);
+			//Text which looks like one of the other representations is shown in hex instead
+			if (!text.startsWith(HEX_PREFIX) && !CHUNK_PATTERN.matcher(text).matches())
+				return text;
+		}
+
+		String chunkKey = formatChunkKey(key);
+		if (chunkKey != null)
+			return chunkKey;
+
+		StringBuilder builder = new StringBuilder(HEX_PREFIX);
+		for (byte b : key)
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return builder.toString();
+	}
+
+	/**
+	 * Parses text, chunk keys in the form of {@code chunk(x, z[, dim d])[ tag[ y]]} and hex keys starting with
+	 * {@code 0x}. Chunk keys without a tag are the common prefix of all keys of the chunk.
+	 */
+	public static byte[] parse(String text) {
+		Matcher matcher = CHUNK_PATTERN.matcher(text);
+		if (matcher.matches()) {
+			ByteBuffer buffer = ByteBuffer.allocate(14).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(Integer.parseInt(matcher.group(1))).putInt(Integer.parseInt(matcher.group(2)));
+			if (matcher.group(3) != null)
+				buffer.putInt(Integer.parseInt(matcher.group(3)));
+			if (matcher.group(4) != null) {
+				buffer.put((byte) parseTag(matcher.group(4)));
+				if (matcher.group(5) != null)
+					buffer.put((byte) Integer.parseInt(matcher.group(5)));
+			}
+
+			byte[] key = new byte[buffer.position()];
+			buffer.flip().get(key);
+			return key;
+		}
+
+		if (text.startsWith(HEX_PREFIX) && text.length() % 2 == 0 && text.substring(2).matches("[0-9a-fA-F]*")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			for (int i = HEX_PREFIX.length(); i < text.length(); i += 2)
+				out.write(Integer.parseInt(text.substring(i, i + 2), 16));
+			return out.toByteArray();
+		}
+
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Nullable
+	private static String formatChunkKey(byte[] key) {
+		boolean hasDimension = key.length == 13 || key.length == 14;
+		if (key.length != 9 && key.length != 10 && !hasDimension)
+			return null;
+
+		ByteBuffer buffer = ByteBuffer.wrap(key).order(ByteOrder.LITTLE_ENDIAN);
+		int x = buffer.getInt();
+		int z = buffer.getInt();
+		int dimension = hasDimension ? buffer.getInt() : 0;
+		String tag = CHUNK_TAGS.get(buffer.get() & 0xFF);
+		if (tag == null || (hasDimension && (dimension < 1 || dimension > 2)))
+			return null;
+
+		StringBuilder builder = new StringBuilder("chunk(").append(x).append(", ").append(z);
+		if (hasDimension)
+			builder.append(", dim ").append(dimension);
+		builder.append(") ").append(tag);
+		if (buffer.hasRemaining())
+			builder.append(' ').append(buffer.get());
+		return builder.toString();
+	}
+
+	private static int parseTag(String tag) {
+		for (Map.Entry<Integer, String> entry : CHUNK_TAGS.entrySet()) {
+			if (entry.getValue().equalsIgnoreCase(tag))
+				return entry.getKey();
+		}
+		return Integer.parseInt(tag);
+	}
+
+	private static boolean isPrintable(byte[] key) {
+		for (byte b : key) {
+			if (b < 0x20 || b > 0x7E)
+				return false;
+		}
+		return true;
+	}
+
+	private BedrockKeys() {
+	}
+}
@@ -0,0 +1,26 @@
+package com.github.tth05.minecraftnbtintellijplugin.util.leveldb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Iterates over entries sorted by their internal key, which is the user key followed by the sequence number and type
+ * of the entry
+ */
+interface InternalIterator {
+
+	void seekToFirst() throws IOException;
+
+	/**
+	 * Positions the iterator at the first entry whose key is not less than {@code target}
+	 */
+	void seek(byte[] target) throws IOException;
+
+	boolean isValid();
+
+	void next() throws IOException;
+
+	byte[] key();
+
+	ByteBuffer value();
+}
@@ -0,0 +1,62 @@
+package com.github.tth05.minecraftnbtintellijplugin.util.leveldb;
+
+import java.util.Arrays;
+
+/**
+ * Internal keys are the user key followed by 8 little endian bytes holding the sequence number of the entry shifted
+ * left by 8 and its type in the lowest byte. They are sorted by the user key first and the newest entry comes first.
+ */
+final class InternalKeys {
+
+	static final int TYPE_DELETION = 0;
+	static final int TYPE_VALUE = 1;
+	private static final int TAG_LENGTH = 8;
+	private static final long MAX_SEQUENCE = (1L << 56) - 1;
+
+	static int compare(byte[] a, byte[] b) {
+		int result = Arrays.compareUnsigned(a, 0, a.length - TAG_LENGTH, b, 0, b.length - TAG_LENGTH);
+		if (result != 0)
+			return result;
+		return Long.compareUnsigned(getTag(b), getTag(a));
+	}
+
+	static int compareUserKeys(byte[] internalKey, byte[] userKey) {
+		return Arrays.compareUnsigned(internalKey, 0, internalKey.length - TAG_LENGTH, userKey, 0, userKey.length);
+	}
+
+	static byte[] getUserKey(byte[] internalKey) {
+		return Arrays.copyOf(internalKey, internalKey.length - TAG_LENGTH);
+	}
+
+	static int getType(byte[] internalKey) {
+		return internalKey[internalKey.length - TAG_LENGTH] & 0xFF;
+	}
+
+	/**
+	 * @return The internal key for an entry of the given user key
+	 */
+	static byte[] create(byte[] userKey, long sequence, int type) {
+		byte[] key = Arrays.copyOf(userKey, userKey.length + TAG_LENGTH);
+		long tag = (sequence << 8) | type;
+		for (int i = 0; i < TAG_LENGTH; i++)
+			key[userKey.length + i] = (byte) (tag >>> (i * 8));
+		return key;
+	}
+
+	/**
+	 * @return The smallest internal key of the given user key, seeking to it finds the newest entry of that key
+	 */
+	static byte[] createSeekKey(byte[] userKey) {
+		return create(userKey, MAX_SEQUENCE, TYPE_VALUE);
+	}
+
+	private static long getTag(byte[] internalKey) {
+		long tag = 0;
+		for (int i = 0; i < TAG_LENGTH; i++)
+			tag |= (internalKey[internalKey.length - TAG_LENGTH + i] & 0xFFL) << (i * 8);
+		return tag;
+	}
+
+	private InternalKeys() {
+	}
+}
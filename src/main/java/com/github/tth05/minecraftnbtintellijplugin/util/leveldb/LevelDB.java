@@ -0,0 +1,476 @@
+package com.github.tth05.minecraftnbtintellijplugin.util.leveldb;
+
+import com.github.tth05.minecraftnbtintellijplugin.util.VarInts;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A read-only view of a LevelDB database, like the {@code db} folder of a Bedrock edition world. Opening the database
+ * only reads the manifest, which lists the tables and the key range of each one, and the write-ahead logs. Tables are
+ * opened when a lookup needs them and only the blocks containing the requested keys are read.
+ */
+public class LevelDB implements Closeable {
+
+	private static final int LEVEL_COUNT = 7;
+	private static final Pattern LOG_FILE_PATTERN = Pattern.compile("(\\d+)\\.log");
+
+	//Tags of the fields of a version edit in the manifest
+	private static final int COMPARATOR = 1;
+	private static final int LOG_NUMBER = 2;
+	private static final int NEXT_FILE_NUMBER = 3;
+	private static final int LAST_SEQUENCE = 4;
+	private static final int COMPACT_POINTER = 5;
+	private static final int DELETED_FILE = 6;
+	private static final int NEW_FILE = 7;
+	private static final int PREV_LOG_NUMBER = 9;
+
+	private final Path directory;
+	/**
+	 * The files of level 0 may overlap and are sorted from newest to oldest. The files of all other levels are
+	 * sorted by their keys and do not overlap.
+	 */
+	private final List<List<FileMetaData>> levels;
+	/**
+	 * The entries of the write-ahead logs which were not written into a table yet, sorted by their internal key
+	 */
+	private final List<byte[]> logKeys;
+	private final List<byte[]> logValues;
+	private final Map<Long, LevelDBTable> openTables = new HashMap<>();
+
+	private LevelDB(Path directory, List<List<FileMetaData>> levels, List<byte[]> logKeys, List<byte[]> logValues) {
+		this.directory = directory;
+		this.levels = levels;
+		this.logKeys = logKeys;
+		this.logValues = logValues;
+	}
+
+	public static boolean isLevelDB(Path directory) {
+		return Files.isRegularFile(directory.resolve("CURRENT"));
+	}
+
+	public static LevelDB open(Path directory) throws IOException {
+		String manifest = Files.readString(directory.resolve("CURRENT"), StandardCharsets.US_ASCII).trim();
+		Manifest state = readManifest(directory.resolve(manifest));
+
+		List<List<FileMetaData>> levels = new ArrayList<>();
+		for (int level = 0; level < LEVEL_COUNT; level++) {
+			List<FileMetaData> levelFiles = new ArrayList<>(state.files.get(level).values());
+			if (level == 0)
+				levelFiles.sort(Comparator.comparingLong((FileMetaData file) -> file.number).reversed());
+			else
+				levelFiles.sort((a, b) -> InternalKeys.compare(a.smallest, b.smallest));
+			levels.add(levelFiles);
+		}
+
+		TreeMap<byte[], byte[]> logEntries = new TreeMap<>(InternalKeys::compare);
+		for (Path log : findLogs(directory, state.logNumber))
+			readLog(log, logEntries);
+
+		return new LevelDB(directory, levels, new ArrayList<>(logEntries.keySet()), new ArrayList<>(logEntries.values()));
+	}
+
+	/**
+	 * Applies all version edits in the manifest
+	 */
+	private static Manifest readManifest(Path path) throws IOException {
+		Manifest manifest = new Manifest();
+
+		for (ByteBuffer edit : LevelDBLogReader.readRecords(path)) {
+			while (edit.hasRemaining()) {
+				int tag = VarInts.readUnsignedInt(edit);
+				switch (tag) {
+					case COMPARATOR:
+						readLengthPrefixed(edit);
+						break;
+					case LOG_NUMBER:
+						manifest.logNumber = VarInts.readUnsignedLong(edit);
+						break;
+					case NEXT_FILE_NUMBER:
+					case LAST_SEQUENCE:
+					case PREV_LOG_NUMBER:
+						VarInts.readUnsignedLong(edit);
+						break;
+					case COMPACT_POINTER:
+						VarInts.readUnsignedInt(edit);
+						readLengthPrefixed(edit);
+						break;
+					case DELETED_FILE:
+						manifest.getFiles(VarInts.readUnsignedInt(edit)).remove(VarInts.readUnsignedLong(edit));
+						break;
+					case NEW_FILE:
+						Map<Long, FileMetaData> files = manifest.getFiles(VarInts.readUnsignedInt(edit));
+						long number = VarInts.readUnsignedLong(edit);
+						VarInts.readUnsignedLong(edit);
+						files.put(number, new FileMetaData(number, readLengthPrefixed(edit), readLengthPrefixed(edit)));
+						break;
+					default:
+						throw new IOException("Unknown manifest entry: " + tag);
+				}
+			}
+		}
+
+		return manifest;
+	}
+
+	private static byte[] readLengthPrefixed(ByteBuffer buffer) {
+		byte[] bytes = new byte[VarInts.readUnsignedInt(buffer)];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * @return The logs which are not older than {@code minimumNumber}, from oldest to newest
+	 */
+	private static List<Path> findLogs(Path directory, long minimumNumber) throws IOException {
+		TreeMap<Long, Path> logs = new TreeMap<>();
+		try (Stream<Path> stream = Files.list(directory)) {
+			stream.forEach(path -> {
+				Matcher matcher = LOG_FILE_PATTERN.matcher(path.getFileName().toString());
+				if (matcher.matches() && Long.parseLong(matcher.group(1)) >= minimumNumber)
+					logs.put(Long.parseLong(matcher.group(1)), path);
+			});
+		}
+		return new ArrayList<>(logs.values());
+	}
+
+	/**
+	 * Every record of the log is a batch of writes. A batch starts with the sequence number of its first write and
+	 * the amount of writes in it.
+	 */
+	private static void readLog(Path log, Map<byte[], byte[]> entries) throws IOException {
+		for (ByteBuffer batch : LevelDBLogReader.readRecords(log)) {
+			batch.order(ByteOrder.LITTLE_ENDIAN);
+			long sequence = batch.getLong();
+			int count = batch.getInt();
+			for (int i = 0; i < count; i++) {
+				int type = batch.get() & 0xFF;
+				byte[] key = readLengthPrefixed(batch);
+				if (type == InternalKeys.TYPE_VALUE)
+					entries.put(InternalKeys.create(key, sequence + i, type), readLengthPrefixed(batch));
+				else if (type == InternalKeys.TYPE_DELETION)
+					entries.put(InternalKeys.create(key, sequence + i, type), new byte[0]);
+				else
+					throw new IOException("Unknown write type: " + type);
+			}
+		}
+	}
+
+	/**
+	 * @return The value of {@code key} or {@code null} if the key does not exist
+	 */
+	@Nullable
+	public synchronized byte[] get(byte[] key) throws IOException {
+		InternalIterator iterator = createIterator();
+		iterator.seek(InternalKeys.createSeekKey(key));
+		if (!iterator.isValid() || InternalKeys.compareUserKeys(iterator.key(), key) != 0 ||
+				InternalKeys.getType(iterator.key()) != InternalKeys.TYPE_VALUE)
+			return null;
+
+		ByteBuffer value = iterator.value();
+		byte[] bytes = new byte[value.remaining()];
+		value.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Lists the keys in the database in order, starting at a given key. Only the blocks which contain the listed keys
+	 * are read.
+	 *
+	 * @param from      The key to start at, {@code null} to start at the first key
+	 * @param inclusive If {@code false}, {@code from} itself is not listed
+	 * @param limit     The maximum amount of keys to list
+	 */
+	public synchronized List<byte[]> listKeys(@Nullable byte[] from, boolean inclusive, int limit) throws IOException {
+		InternalIterator iterator = createIterator();
+		if (from == null)
+			iterator.seekToFirst();
+		else
+			iterator.seek(InternalKeys.createSeekKey(from));
+
+		List<byte[]> keys = new ArrayList<>();
+		byte[] userKey = null;
+		for (; iterator.isValid() && keys.size() < limit; iterator.next()) {
+			byte[] key = iterator.key();
+			//Only the newest entry of a key counts, which might be a deletion
+			if (userKey != null && InternalKeys.compareUserKeys(key, userKey) == 0)
+				continue;
+
+			userKey = InternalKeys.getUserKey(key);
+			if (InternalKeys.getType(key) == InternalKeys.TYPE_VALUE && (inclusive || from == null || !Arrays.equals(userKey, from)))
+				keys.add(userKey);
+		}
+		return keys;
+	}
+
+	private InternalIterator createIterator() {
+		List<InternalIterator> iterators = new ArrayList<>();
+		iterators.add(new LogIterator(this.logKeys, this.logValues));
+		for (FileMetaData file : this.levels.get(0))
+			iterators.add(new LevelIterator(List.of(file)));
+		for (int level = 1; level < LEVEL_COUNT; level++) {
+			if (!this.levels.get(level).isEmpty())
+				iterators.add(new LevelIterator(this.levels.get(level)));
+		}
+		return new MergingIterator(iterators);
+	}
+
+	private LevelDBTable getTable(long number) throws IOException {
+		LevelDBTable table = this.openTables.get(number);
+		if (table == null) {
+			Path path = this.directory.resolve(String.format("%06d.ldb", number));
+			if (!Files.exists(path))
+				path = this.directory.resolve(String.format("%06d.sst", number));
+			table = new LevelDBTable(path);
+			this.openTables.put(number, table);
+		}
+		return table;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		IOException exception = null;
+		for (LevelDBTable table : this.openTables.values()) {
+			try {
+				table.close();
+			} catch (IOException e) {
+				exception = e;
+			}
+		}
+		this.openTables.clear();
+		if (exception != null)
+			throw exception;
+	}
+
+	/**
+	 * The state of the database described by the manifest
+	 */
+	private static class Manifest {
+
+		private final List<Map<Long, FileMetaData>> files = new ArrayList<>();
+		/**
+		 * Logs older than this were already written into tables
+		 */
+		private long logNumber;
+
+		private Manifest() {
+			for (int level = 0; level < LEVEL_COUNT; level++)
+				this.files.add(new HashMap<>());
+		}
+
+		private Map<Long, FileMetaData> getFiles(int level) throws IOException {
+			if (level < 0 || level >= LEVEL_COUNT)
+				throw new IOException("Invalid level: " + level);
+			return this.files.get(level);
+		}
+	}
+
+	private static class FileMetaData {
+
+		private final long number;
+		private final byte[] smallest;
+		private final byte[] largest;
+
+		private FileMetaData(long number, byte[] smallest, byte[] largest) {
+			this.number = number;
+			this.smallest = smallest;
+			this.largest = largest;
+		}
+	}
+
+	/**
+	 * Iterates over the entries of the logs
+	 */
+	private static class LogIterator implements InternalIterator {
+
+		private final List<byte[]> keys;
+		private final List<byte[]> values;
+		private int index;
+
+		private LogIterator(List<byte[]> keys, List<byte[]> values) {
+			this.keys = keys;
+			this.values = values;
+		}
+
+		@Override
+		public void seekToFirst() {
+			this.index = 0;
+		}
+
+		@Override
+		public void seek(byte[] target) {
+			int index = Collections.binarySearch(this.keys, target, InternalKeys::compare);
+			this.index = index >= 0 ? index : -index - 1;
+		}
+
+		@Override
+		public boolean isValid() {
+			return this.index < this.keys.size();
+		}
+
+		@Override
+		public void next() {
+			this.index++;
+		}
+
+		@Override
+		public byte[] key() {
+			return this.keys.get(this.index);
+		}
+
+		@Override
+		public ByteBuffer value() {
+			return ByteBuffer.wrap(this.values.get(this.index));
+		}
+	}
+
+	/**
+	 * Iterates over the tables of a level one after another. As the tables do not overlap, seeking only has to look
+	 * at the one table whose key range contains the target.
+	 */
+	private class LevelIterator implements InternalIterator {
+
+		private final List<FileMetaData> files;
+		private int fileIndex;
+		private InternalIterator tableIterator;
+
+		private LevelIterator(List<FileMetaData> files) {
+			this.files = files;
+		}
+
+		@Override
+		public void seekToFirst() throws IOException {
+			openTable(0);
+			if (this.tableIterator != null)
+				this.tableIterator.seekToFirst();
+			skipEmptyTables();
+		}
+
+		@Override
+		public void seek(byte[] target) throws IOException {
+			//Find the first table whose largest key is not less than the target
+			int low = 0;
+			int high = this.files.size();
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (InternalKeys.compare(this.files.get(mid).largest, target) < 0)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+
+			openTable(low);
+			if (this.tableIterator != null)
+				this.tableIterator.seek(target);
+			skipEmptyTables();
+		}
+
+		@Override
+		public boolean isValid() {
+			return this.tableIterator != null && this.tableIterator.isValid();
+		}
+
+		@Override
+		public void next() throws IOException {
+			this.tableIterator.next();
+			skipEmptyTables();
+		}
+
+		private void skipEmptyTables() throws IOException {
+			while (this.tableIterator != null && !this.tableIterator.isValid()) {
+				openTable(this.fileIndex + 1);
+				if (this.tableIterator != null)
+					this.tableIterator.seekToFirst();
+			}
+		}
+
+		private void openTable(int index) throws IOException {
+			this.fileIndex = index;
+			this.tableIterator = index < this.files.size() ? getTable(this.files.get(index).number).iterator() : null;
+		}
+
+		@Override
+		public byte[] key() {
+			return this.tableIterator.key();
+		}
+
+		@Override
+		public ByteBuffer value() {
+			return this.tableIterator.value();
+		}
+	}
+
+	/**
+	 * Merges the sorted entries of multiple iterators
+	 */
+	private static class MergingIterator implements InternalIterator {
+
+		private final List<InternalIterator> iterators;
+		private final PriorityQueue<InternalIterator> queue = new PriorityQueue<>((a, b) -> InternalKeys.compare(a.key(), b.key()));
+
+		private MergingIterator(List<InternalIterator> iterators) {
+			this.iterators = iterators;
+		}
+
+		@Override
+		public void seekToFirst() throws IOException {
+			this.queue.clear();
+			for (InternalIterator iterator : this.iterators) {
+				iterator.seekToFirst();
+				if (iterator.isValid())
+					this.queue.add(iterator);
+			}
+		}
+
+		@Override
+		public void seek(byte[] target) throws IOException {
+			this.queue.clear();
+			for (InternalIterator iterator : this.iterators) {
+				iterator.seek(target);
+				if (iterator.isValid())
+					this.queue.add(iterator);
+			}
+		}
+
+		@Override
+		public boolean isValid() {
+			return !this.queue.isEmpty();
+		}
+
+		@Override
+		public void next() throws IOException {
+			InternalIterator iterator = this.queue.poll();
+			iterator.next();
+			if (iterator.isValid())
+				this.queue.add(iterator);
+		}
+
+		@Override
+		public byte[] key() {
+			return this.queue.peek().key();
+		}
+
+		@Override
+		public ByteBuffer value() {
+			return this.queue.peek().value();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.github.tth05.minecraftnbtintellijplugin.util.leveldb;
+
+import com.github.tth05.minecraftnbtintellijplugin.util.VarInts;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A block of sorted entries in a table. Keys are prefix compressed against the previous key, except for the keys at
+ * the restart points which are stored completely. The offsets of the restart points at the end of the block allow
+ * seeking with a binary search.
+ */
+class LevelDBBlock {
+
+	private final ByteBuffer data;
+	private final int restartsOffset;
+	private final int restartCount;
+
+	LevelDBBlock(ByteBuffer data) {
+		this.data = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+		this.restartCount = this.data.getInt(this.data.limit() - 4);
+		this.restartsOffset = this.data.limit() - 4 - this.restartCount * 4;
+	}
+
+	InternalIterator iterator() {
+		return new BlockIterator();
+	}
+
+	private class BlockIterator implements InternalIterator {
+
+		private final ByteBuffer buffer = LevelDBBlock.this.data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		private byte[] key;
+		private ByteBuffer value;
+		/**
+		 * The offset of the entry after the current one
+		 */
+		private int nextOffset;
+
+		@Override
+		public void seekToFirst() {
+			this.key = null;
+			this.nextOffset = 0;
+			next();
+		}
+
+		@Override
+		public void seek(byte[] target) {
+			//Find the last restart point whose key is less than the target
+			int low = 0;
+			int high = LevelDBBlock.this.restartCount - 1;
+			while (low < high) {
+				int mid = (low + high + 1) >>> 1;
+				this.key = null;
+				this.nextOffset = getRestartOffset(mid);
+				next();
+				if (InternalKeys.compare(this.key, target) < 0)
+					low = mid;
+				else
+					high = mid - 1;
+			}
+
+			this.key = null;
+			this.nextOffset = LevelDBBlock.this.restartCount > 0 ? getRestartOffset(low) : LevelDBBlock.this.restartsOffset;
+			next();
+			while (isValid() && InternalKeys.compare(this.key, target) < 0)
+				next();
+		}
+
+		private int getRestartOffset(int index) {
+			return this.buffer.getInt(LevelDBBlock.this.restartsOffset + index * 4);
+		}
+
+		@Override
+		public boolean isValid() {
+			return this.value != null;
+		}
+
+		@Override
+		public void next() {
+			if (this.nextOffset >= LevelDBBlock.this.restartsOffset) {
+				this.value = null;
+				return;
+			}
+
+			this.buffer.position(this.nextOffset);
+			int shared = VarInts.readUnsignedInt(this.buffer);
+			int nonShared = VarInts.readUnsignedInt(this.buffer);
+			int valueLength = VarInts.readUnsignedInt(this.buffer);
+
+			byte[] key = this.key == null ? new byte[shared + nonShared] : Arrays.copyOf(this.key, shared + nonShared);
+			this.buffer.get(key, shared, nonShared);
+			this.key = key;
+			this.value = this.buffer.slice().limit(valueLength);
+			this.nextOffset = this.buffer.position() + valueLength;
+		}
+
+		@Override
+		public byte[] key() {
+			return this.key;
+		}
+
+		@Override
+		public ByteBuffer value() {
+			return this.value.duplicate();
+		}
+	}
+}
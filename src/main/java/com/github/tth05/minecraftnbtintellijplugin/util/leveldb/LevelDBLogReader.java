@@ -0,0 +1,86 @@
+package com.github.tth05.minecraftnbtintellijplugin.util.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the records of a log file, which is the format of both the manifest and the write-ahead log. Records are
+ * split into fragments which do not cross the boundaries of the 32 KB blocks of the file.
+ */
+// https://github.com/google/leveldb/blob/main/doc/log_format.md
+final class LevelDBLogReader {
+
+	private static final int BLOCK_SIZE = 32 * 1024;
+	private static final int HEADER_LENGTH = 7;
+
+	private static final int FULL = 1;
+	private static final int FIRST = 2;
+	private static final int MIDDLE = 3;
+	private static final int LAST = 4;
+
+	/**
+	 * @return All complete records of the log. A record which was cut off by a crash while it was written is
+	 * ignored, just like LevelDB does when recovering.
+	 */
+	static List<ByteBuffer> readRecords(Path path) throws IOException {
+		ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+		List<ByteBuffer> records = new ArrayList<>();
+		ByteArrayOutputStream fragments = null;
+
+		while (log.remaining() >= HEADER_LENGTH) {
+			int blockRemaining = BLOCK_SIZE - log.position() % BLOCK_SIZE;
+			if (blockRemaining < HEADER_LENGTH) {
+				//The rest of the block is padding
+				log.position(log.position() + blockRemaining);
+				continue;
+			}
+
+			//Checksums are not verified, the database is only read
+			log.getInt();
+			int length = log.getShort() & 0xFFFF;
+			int type = log.get() & 0xFF;
+			if (length > log.remaining() || type == 0)
+				break;
+
+			ByteBuffer fragment = log.slice().limit(length);
+			log.position(log.position() + length);
+			switch (type) {
+				case FULL:
+					records.add(fragment);
+					fragments = null;
+					break;
+				case FIRST:
+					fragments = new ByteArrayOutputStream();
+					write(fragments, fragment);
+					break;
+				case MIDDLE:
+					if (fragments != null)
+						write(fragments, fragment);
+					break;
+				case LAST:
+					if (fragments != null) {
+						write(fragments, fragment);
+						records.add(ByteBuffer.wrap(fragments.toByteArray()));
+					}
+					fragments = null;
+					break;
+				default:
+					throw new IOException("Unknown log record type: " + type);
+			}
+		}
+		return records;
+	}
+
+	private static void write(ByteArrayOutputStream out, ByteBuffer fragment) {
+		out.write(fragment.array(), fragment.arrayOffset() + fragment.position(), fragment.remaining());
+	}
+
+	private LevelDBLogReader() {
+	}
+}
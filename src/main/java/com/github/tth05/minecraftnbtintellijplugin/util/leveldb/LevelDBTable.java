@@ -0,0 +1,184 @@
+package com.github.tth05.minecraftnbtintellijplugin.util.leveldb;
+
+import com.github.tth05.minecraftnbtintellijplugin.util.VarInts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A sorted table file (.ldb or .sst). Only the index block is read when opening the table, it holds the last key and
+ * the location of every data block. Seeking to a key therefore only reads the single data block it can be in.
+ */
+// https://github.com/google/leveldb/blob/main/doc/table_format.md
+class LevelDBTable implements Closeable {
+
+	private static final int FOOTER_LENGTH = 48;
+	private static final long MAGIC = 0xdb4775248b80fb57L;
+	/**
+	 * The compression type and the checksum after every block
+	 */
+	private static final int BLOCK_TRAILER_LENGTH = 5;
+
+	private static final int NO_COMPRESSION = 0;
+	private static final int SNAPPY_COMPRESSION = 1;
+	private static final int ZLIB_COMPRESSION = 2;
+	/**
+	 * Added by Mojang's fork of LevelDB, used by all current versions of Bedrock edition
+	 */
+	private static final int ZLIB_RAW_COMPRESSION = 4;
+
+	private final FileChannel channel;
+	private final LevelDBBlock index;
+
+	LevelDBTable(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = this.channel.size();
+			if (size < FOOTER_LENGTH)
+				throw new IOException("Table is too small: " + path);
+
+			ByteBuffer footer = read(size - FOOTER_LENGTH, FOOTER_LENGTH);
+			if (footer.order(ByteOrder.LITTLE_ENDIAN).getLong(FOOTER_LENGTH - 8) != MAGIC)
+				throw new IOException("Not a table: " + path);
+			//Skip the handle of the meta index block, filters are not used for reading
+			VarInts.readUnsignedLong(footer);
+			VarInts.readUnsignedLong(footer);
+			this.index = readBlock(footer);
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	InternalIterator iterator() {
+		return new TableIterator();
+	}
+
+	/**
+	 * Reads the block whose handle, an offset and a size, is at the position of {@code handle}
+	 */
+	private LevelDBBlock readBlock(ByteBuffer handle) throws IOException {
+		long offset = VarInts.readUnsignedLong(handle);
+		int size = (int) VarInts.readUnsignedLong(handle);
+		ByteBuffer block = read(offset, size + BLOCK_TRAILER_LENGTH);
+		int compression = block.get(size) & 0xFF;
+		block.limit(size);
+
+		switch (compression) {
+			case NO_COMPRESSION:
+				return new LevelDBBlock(block);
+			case ZLIB_COMPRESSION:
+				return new LevelDBBlock(inflate(block, false));
+			case ZLIB_RAW_COMPRESSION:
+				return new LevelDBBlock(inflate(block, true));
+			case SNAPPY_COMPRESSION:
+				throw new IOException("Snappy compressed blocks are not supported");
+			default:
+				throw new IOException("Unknown block compression: " + compression);
+		}
+	}
+
+	private static ByteBuffer inflate(ByteBuffer compressed, boolean raw) throws IOException {
+		Inflater inflater = new Inflater(raw);
+		try {
+			inflater.setInput(compressed);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.remaining() * 4);
+			byte[] buffer = new byte[8192];
+			while (!inflater.finished()) {
+				int length = inflater.inflate(buffer);
+				if (length == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				out.write(buffer, 0, length);
+			}
+			return ByteBuffer.wrap(out.toByteArray());
+		} catch (DataFormatException e) {
+			throw new IOException("Invalid compressed block", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (this.channel.read(buffer, position + buffer.position()) < 0)
+				throw new IOException("Unexpected end of table");
+		}
+		return buffer.flip();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	/**
+	 * Iterates over the index block and the data block the current index entry points to
+	 */
+	private class TableIterator implements InternalIterator {
+
+		private final InternalIterator indexIterator = LevelDBTable.this.index.iterator();
+		private InternalIterator dataIterator;
+
+		@Override
+		public void seekToFirst() throws IOException {
+			this.indexIterator.seekToFirst();
+			openDataBlock();
+			if (this.dataIterator != null)
+				this.dataIterator.seekToFirst();
+			skipEmptyBlocks();
+		}
+
+		@Override
+		public void seek(byte[] target) throws IOException {
+			//The key of an index entry is at least as big as every key in its block
+			this.indexIterator.seek(target);
+			openDataBlock();
+			if (this.dataIterator != null)
+				this.dataIterator.seek(target);
+			skipEmptyBlocks();
+		}
+
+		@Override
+		public boolean isValid() {
+			return this.dataIterator != null && this.dataIterator.isValid();
+		}
+
+		@Override
+		public void next() throws IOException {
+			this.dataIterator.next();
+			skipEmptyBlocks();
+		}
+
+		private void skipEmptyBlocks() throws IOException {
+			while (this.dataIterator != null && !this.dataIterator.isValid()) {
+				this.indexIterator.next();
+				openDataBlock();
+				if (this.dataIterator != null)
+					this.dataIterator.seekToFirst();
+			}
+		}
+
+		private void openDataBlock() throws IOException {
+			this.dataIterator = this.indexIterator.isValid() ? readBlock(this.indexIterator.value()).iterator() : null;
+		}
+
+		@Override
+		public byte[] key() {
+			return this.dataIterator.key();
+		}
+
+		@Override
+		public ByteBuffer value() {
+			return this.dataIterator.value();
+		}
+	}
+}
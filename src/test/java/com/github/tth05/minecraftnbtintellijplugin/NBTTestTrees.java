@@ -0,0 +1,86 @@
+package com.github.tth05.minecraftnbtintellijplugin;
+
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTCompression;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTEncoder;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTFormat;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTReader;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTSource;
+import com.github.tth05.minecraftnbtintellijplugin.util.NBTTreeDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Builds, encodes and decodes the trees used by the tests
+ */
+public final class NBTTestTrees {
+
+	public static NBTTagTreeNode tag(NBTTagType type, String name, Object value) {
+		return new NBTTagTreeNode(type, name, value);
+	}
+
+	public static NBTTagTreeNode compound(String name, NBTTagTreeNode... children) {
+		NBTTagTreeNode compound = new NBTTagTreeNode(NBTTagType.COMPOUND, name, null);
+		for (NBTTagTreeNode child : children)
+			compound.add(child);
+		return compound;
+	}
+
+	/**
+	 * @return A root compound with a single list, which looks like the inventories and sections of real files
+	 */
+	public static NBTTagTreeNode createListTree(String listName, int count, IntFunction<NBTTagTreeNode> element) {
+		NBTTagTreeNode list = new NBTTagTreeNode(NBTTagType.LIST, listName, null);
+		for (int i = 0; i < count; i++)
+			list.add(element.apply(i));
+		return compound("", list);
+	}
+
+	/**
+	 * @return The uncompressed tree in the given format
+	 */
+	public static byte[] encode(NBTTagTreeNode root, NBTFormat format) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		NBTEncoder.encode(NBTTag.of(root), format, NBTCompression.NONE, out);
+		return out.toByteArray();
+	}
+
+	public static NBTTagTreeNode decode(byte[] data, NBTFormat format, boolean lazy) throws IOException {
+		NBTSource source = new NBTSource(ByteBuffer.wrap(data), format);
+		NBTReader reader = source.open(0);
+		int type = reader.readUnsignedByte();
+		String name = reader.readString();
+		NBTTreeDecoder decoder = new NBTTreeDecoder(source, lazy, null);
+		decoder.setInternStringValues(true);
+		return decoder.createNode(type, name, reader);
+	}
+
+	/**
+	 * Compares the types, names and values of both trees
+	 */
+	public static void assertSameTree(NBTTagTreeNode expected, NBTTagTreeNode actual) {
+		assertEquals(expected.getType(), actual.getType());
+		assertEquals(expected.getName(), actual.getName());
+		if (expected.isArray()) {
+			assertTrue(actual.getName(), Objects.deepEquals(expected.getValue(), actual.getValue()));
+			return;
+		}
+		if (expected.getType() != NBTTagType.LIST && expected.getType() != NBTTagType.COMPOUND) {
+			assertEquals(expected.getValue(), actual.getValue());
+			return;
+		}
+
+		assertEquals(expected.getChildCount(), actual.getChildCount());
+		for (int i = 0; i < expected.getChildCount(); i++)
+			assertSameTree((NBTTagTreeNode) expected.getChildAt(i), (NBTTagTreeNode) actual.getChildAt(i));
+	}
+
+	private NBTTestTrees() {
+	}
+}
@@ -0,0 +1,120 @@
+package com.github.tth05.minecraftnbtintellijplugin.editor;
+
+import org.junit.Test;
+
+import javax.swing.JTree;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class NBTFileEditorStateTest {
+
+	@Test
+	public void expandedNodesSurviveSerialization() {
+		DefaultTreeModel model = new DefaultTreeModel(createTree(3, 4));
+		JTree tree = new JTree(model);
+		expand(tree, 1);
+		expand(tree, 1, 2);
+		expand(tree, 1, 3);
+		expand(tree, 3, 0, 1);
+		List<String> expanded = getExpanded(tree);
+
+		String text = NBTFileEditorState.capture(tree).serialize();
+		JTree restored = new JTree(model);
+		NBTFileEditorState.deserialize(text).restore(restored);
+		assertEquals(expanded, getExpanded(restored));
+	}
+
+	@Test
+	public void collapsedRootIsEmpty() {
+		JTree tree = new JTree(new DefaultTreeModel(createTree(2, 3)));
+		expand(tree, 1);
+		tree.collapsePath(new TreePath(tree.getModel().getRoot()));
+
+		assertSame(NBTFileEditorState.EMPTY, NBTFileEditorState.capture(tree));
+		assertEquals("", NBTFileEditorState.EMPTY.serialize());
+
+		JTree restored = new JTree(new DefaultTreeModel(createTree(2, 3)));
+		NBTFileEditorState.deserialize("").restore(restored);
+		assertEquals(Collections.singletonList(""), getExpanded(restored));
+	}
+
+	@Test
+	public void missingNodesAreSkippedWithEverythingBelowThem() {
+		JTree tree = new JTree(new DefaultTreeModel(createTree(3, 4)));
+		expand(tree, 1, 1);
+		expand(tree, 3, 0);
+		expand(tree, 3, 1, 2);
+		String text = NBTFileEditorState.capture(tree).serialize();
+
+		DefaultMutableTreeNode root = createTree(3, 4);
+		root.remove(3);
+		JTree restored = new JTree(new DefaultTreeModel(root));
+		NBTFileEditorState.deserialize(text).restore(restored);
+		assertEquals(Arrays.asList("", "/1", "/1/1"), getExpanded(restored));
+	}
+
+	@Test
+	public void invalidTextIsEmpty() {
+		assertSame(NBTFileEditorState.EMPTY, NBTFileEditorState.deserialize("not Base64!"));
+		//A VarInt which is cut off
+		assertSame(NBTFileEditorState.EMPTY, NBTFileEditorState.deserialize(encode(0x80)));
+		//Two expanded children, but only one of them is there
+		assertSame(NBTFileEditorState.EMPTY, NBTFileEditorState.deserialize(encode(2, 1, 0)));
+		//More values than the trie holds
+		assertSame(NBTFileEditorState.EMPTY, NBTFileEditorState.deserialize(encode(0, 0)));
+	}
+
+	private static String encode(int... bytes) {
+		byte[] data = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; i++)
+			data[i] = (byte) bytes[i];
+		return Base64.getEncoder().encodeToString(data);
+	}
+
+	/**
+	 * @return A tree in which every node down to the given depth has the given amount of children
+	 */
+	private static DefaultMutableTreeNode createTree(int depth, int width) {
+		DefaultMutableTreeNode node = new DefaultMutableTreeNode();
+		if (depth > 0) {
+			for (int i = 0; i < width; i++)
+				node.add(createTree(depth - 1, width));
+		}
+		return node;
+	}
+
+	private static void expand(JTree tree, int... indices) {
+		TreePath path = new TreePath(tree.getModel().getRoot());
+		for (int index : indices)
+			path = path.pathByAddingChild(tree.getModel().getChild(path.getLastPathComponent(), index));
+		tree.expandPath(path);
+	}
+
+	/**
+	 * @return The paths of all expanded nodes as their child indices, sorted
+	 */
+	private static List<String> getExpanded(JTree tree) {
+		List<String> expanded = new ArrayList<>();
+		collectExpanded(tree, new TreePath(tree.getModel().getRoot()), "", expanded);
+		Collections.sort(expanded);
+		return expanded;
+	}
+
+	private static void collectExpanded(JTree tree, TreePath path, String name, List<String> expanded) {
+		if (!tree.isExpanded(path))
+			return;
+		expanded.add(name);
+		Object node = path.getLastPathComponent();
+		for (int i = 0; i < tree.getModel().getChildCount(node); i++)
+			collectExpanded(tree, path.pathByAddingChild(tree.getModel().getChild(node, i)), name + "/" + i, expanded);
+	}
+}
@@ -0,0 +1,132 @@
+package com.github.tth05.minecraftnbtintellijplugin.editor.ui;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.junit.Test;
+
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.createListTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.tag;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NBTTreeModelTest {
+
+	@Test
+	public void childrenOfBigNodesArePaged() {
+		NBTTagTreeNode root = createTree(2500);
+		NBTTreeModel model = new NBTTreeModel(root);
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+
+		assertEquals(3, model.getChildCount(list));
+		NBTTreeModel.Range range = (NBTTreeModel.Range) model.getChild(list, 2);
+		assertSame(range, model.getChild(list, 2));
+		assertEquals(2000, range.getFrom());
+		assertEquals(500, model.getChildCount(range));
+		assertEquals(2, model.getIndexOfChild(list, range));
+
+		TreeNode child = list.getChildAt(2005);
+		assertSame(child, model.getChild(range, 5));
+		assertEquals(5, model.getIndexOfChild(range, child));
+		assertEquals(-1, model.getIndexOfChild(list, child));
+		assertEquals(new TreePath(new Object[]{root, list, range, child}), model.getTreePath(child));
+	}
+
+	@Test
+	public void changedChildrenArePassedOnPerPage() {
+		NBTTagTreeNode root = createTree(2500);
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog tagLog = new TreeModelEventLog();
+		TreeModelEventLog treeLog = new TreeModelEventLog();
+		model.addTagListener(tagLog);
+		model.addTreeModelListener(treeLog);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		model.nodesChanged(list, new int[]{5, 6, 1500});
+
+		assertEquals(1, tagLog.size());
+		assertArrayEquals(new int[]{5, 6, 1500}, tagLog.changed.get(0).getChildIndices());
+		assertEquals(2, treeLog.size());
+		assertSame(model.getChild(list, 0), treeLog.changed.get(0).getTreePath().getLastPathComponent());
+		assertArrayEquals(new int[]{5, 6}, treeLog.changed.get(0).getChildIndices());
+		assertSame(model.getChild(list, 1), treeLog.changed.get(1).getTreePath().getLastPathComponent());
+		assertArrayEquals(new int[]{500}, treeLog.changed.get(1).getChildIndices());
+	}
+
+	@Test
+	public void insertionChangesThePagesFromTheFirstChangedOn() {
+		NBTTagTreeNode root = createTree(2500);
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog tagLog = new TreeModelEventLog();
+		TreeModelEventLog treeLog = new TreeModelEventLog();
+		model.addTagListener(tagLog);
+		model.addTreeModelListener(treeLog);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		list.insert(tag(NBTTagType.INT, "", -1), 1200);
+		model.nodesWereInserted(list, new int[]{1200});
+
+		assertEquals(1, tagLog.size());
+		assertArrayEquals(new int[]{1200}, tagLog.inserted.get(0).getChildIndices());
+		assertEquals(2, treeLog.size());
+		assertEquals(2, treeLog.structureChanged.size());
+		assertSame(model.getChild(list, 1), treeLog.structureChanged.get(0).getTreePath().getLastPathComponent());
+		assertSame(model.getChild(list, 2), treeLog.structureChanged.get(1).getTreePath().getLastPathComponent());
+	}
+
+	@Test
+	public void crossingThePageSizeChangesTheWholeNode() {
+		NBTTagTreeNode root = createTree(NBTTreeModel.PAGE_SIZE);
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog tagLog = new TreeModelEventLog();
+		TreeModelEventLog treeLog = new TreeModelEventLog();
+		model.addTagListener(tagLog);
+		model.addTreeModelListener(treeLog);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		list.insert(tag(NBTTagType.INT, "", -1), NBTTreeModel.PAGE_SIZE);
+		model.nodesWereInserted(list, new int[]{NBTTreeModel.PAGE_SIZE});
+		assertEquals(1, tagLog.inserted.size());
+		assertEquals(1, treeLog.size());
+		assertSame(list, treeLog.structureChanged.get(0).getTreePath().getLastPathComponent());
+		assertTrue(model.getChild(list, 1) instanceof NBTTreeModel.Range);
+
+		tagLog.clear();
+		treeLog.clear();
+		model.removeChildren(list, new int[]{NBTTreeModel.PAGE_SIZE});
+		assertEquals(1, tagLog.removed.size());
+		assertEquals(1, treeLog.size());
+		assertSame(list, treeLog.structureChanged.get(0).getTreePath().getLastPathComponent());
+		assertSame(list.getChildAt(1), model.getChild(list, 1));
+	}
+
+	@Test
+	public void removedChildrenShareOneEvent() {
+		NBTTagTreeNode root = createTree(10);
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog tagLog = new TreeModelEventLog();
+		TreeModelEventLog treeLog = new TreeModelEventLog();
+		model.addTagListener(tagLog);
+		model.addTreeModelListener(treeLog);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		Object[] removed = {list.getChildAt(1), list.getChildAt(3), list.getChildAt(7)};
+		model.removeChildren(list, new int[]{7, 1, 3});
+
+		assertEquals(7, list.getChildCount());
+		for (TreeModelEventLog log : new TreeModelEventLog[]{tagLog, treeLog}) {
+			assertEquals(1, log.size());
+			assertArrayEquals(new int[]{1, 3, 7}, log.removed.get(0).getChildIndices());
+			for (int i = 0; i < removed.length; i++)
+				assertSame(removed[i], log.removed.get(0).getChildren()[i]);
+		}
+	}
+
+	private static NBTTagTreeNode createTree(int count) {
+		return createListTree("list", count, i -> tag(NBTTagType.INT, "", i));
+	}
+}
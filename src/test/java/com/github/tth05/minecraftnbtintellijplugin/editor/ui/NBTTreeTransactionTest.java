@@ -0,0 +1,214 @@
+package com.github.tth05.minecraftnbtintellijplugin.editor.ui;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.junit.Test;
+
+import javax.swing.event.TreeModelEvent;
+
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.assertSameTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.compound;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.createListTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.tag;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class NBTTreeTransactionTest {
+
+	@Test
+	public void removalsOfAParentShareOneEvent() {
+		NBTTagTreeNode root = createTree();
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog log = new TreeModelEventLog();
+		model.addTagListener(log);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		NBTTreeTransaction transaction = new NBTTreeTransaction(model, null);
+		transaction.remove(getItem(root, 7));
+		transaction.remove(getItem(root, 2));
+		transaction.remove(getItem(root, 5));
+		transaction.commit();
+
+		assertEquals(1, log.size());
+		TreeModelEvent event = log.removed.get(0);
+		assertSame(list, event.getTreePath().getLastPathComponent());
+		assertArrayEquals(new int[]{2, 5, 7}, event.getChildIndices());
+		assertEquals(7, list.getChildCount());
+	}
+
+	@Test
+	public void revertInsertsTheRemovedChildrenInOnePass() {
+		NBTTagTreeNode root = createTree();
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog log = new TreeModelEventLog();
+		model.addTagListener(log);
+
+		NBTTagTreeNode[] removed = {getItem(root, 2), getItem(root, 5), getItem(root, 7)};
+		NBTTreeTransaction transaction = new NBTTreeTransaction(model, null);
+		transaction.remove(removed[2]);
+		transaction.remove(removed[0]);
+		transaction.remove(removed[1]);
+		transaction.commit();
+		log.clear();
+		transaction.revert();
+
+		assertEquals(1, log.size());
+		assertArrayEquals(new int[]{2, 5, 7}, log.inserted.get(0).getChildIndices());
+		assertSame(removed[0], getItem(root, 2));
+		assertSame(removed[1], getItem(root, 5));
+		assertSame(removed[2], getItem(root, 7));
+		assertSameTree(createTree(), root);
+	}
+
+	@Test
+	public void insertionsAreAnnouncedOncePerParent() {
+		NBTTagTreeNode root = createTree();
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog log = new TreeModelEventLog();
+		model.addTagListener(log);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		NBTTreeTransaction transaction = new NBTTreeTransaction(model, null);
+		transaction.insert(list, createItem(10), 0);
+		transaction.insert(list, createItem(11), 3);
+		transaction.insert(root, tag(NBTTagType.LONG, "seed", 5L), 1);
+		transaction.commit();
+
+		assertEquals(2, log.size());
+		assertSame(list, log.inserted.get(0).getTreePath().getLastPathComponent());
+		assertArrayEquals(new int[]{0, 3}, log.inserted.get(0).getChildIndices());
+		assertSame(root, log.inserted.get(1).getTreePath().getLastPathComponent());
+		assertArrayEquals(new int[]{1}, log.inserted.get(1).getChildIndices());
+
+		log.clear();
+		transaction.revert();
+		assertEquals(2, log.removed.size());
+		assertEquals(2, log.size());
+		assertSameTree(createTree(), root);
+	}
+
+	@Test
+	public void nodeInsertedAndRemovedAgainIsNotAnnounced() {
+		NBTTagTreeNode root = createTree();
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog log = new TreeModelEventLog();
+		model.addTagListener(log);
+
+		NBTTagTreeNode item = createItem(10);
+		NBTTreeTransaction transaction = new NBTTreeTransaction(model, null);
+		transaction.insert((NBTTagTreeNode) root.getChildAt(0), item, 4);
+		transaction.remove(item);
+		transaction.commit();
+		assertEquals(0, log.size());
+		assertSameTree(createTree(), root);
+
+		transaction.revert();
+		assertEquals(0, log.size());
+		assertSameTree(createTree(), root);
+	}
+
+	@Test
+	public void undoAndRedoReplayTheEdits() {
+		NBTTagTreeNode edited = createTree();
+		NBTTreeTransaction expected = new NBTTreeTransaction(new NBTTreeModel(edited), null);
+		edit(expected, edited);
+		expected.commit();
+
+		NBTTagTreeNode root = createTree();
+		NBTTreeTransaction transaction = new NBTTreeTransaction(new NBTTreeModel(root), null);
+		edit(transaction, root);
+		transaction.commit();
+		assertSameTree(edited, root);
+
+		NBTTreeTransaction undo = transaction.revert();
+		assertSameTree(createTree(), root);
+		NBTTreeTransaction redo = undo.revert();
+		assertSameTree(edited, root);
+		redo.revert();
+		assertSameTree(createTree(), root);
+	}
+
+	@Test
+	public void revertOfSetTypeRestoresTheChildren() {
+		NBTTagTreeNode root = createTree();
+		NBTTreeModel model = new NBTTreeModel(root);
+		TreeModelEventLog log = new TreeModelEventLog();
+		model.addTagListener(log);
+
+		NBTTagTreeNode item = getItem(root, 4);
+		NBTTagTreeNode id = (NBTTagTreeNode) item.getChildAt(0);
+		NBTTreeTransaction transaction = new NBTTreeTransaction(model, null);
+		transaction.setType(item, NBTTagType.INT);
+		transaction.commit();
+
+		assertEquals(0, item.getChildCount());
+		assertEquals(1, log.structureChanged.size());
+		assertSame(item, log.structureChanged.get(0).getTreePath().getLastPathComponent());
+		assertEquals(1, log.changed.size());
+
+		transaction.revert();
+		assertSame(id, item.getChildAt(0));
+		assertSameTree(createTree(), root);
+	}
+
+	@Test
+	public void revertOfArrayEditsRestoresTheArray() {
+		NBTTagTreeNode root = createTree();
+		NBTTreeModel model = new NBTTreeModel(root);
+		NBTTagTreeNode ints = (NBTTagTreeNode) root.getChildAt(1);
+
+		NBTTreeTransaction transaction = new NBTTreeTransaction(model, null);
+		transaction.remove((NBTTagTreeNode) ints.getChildAt(2));
+		transaction.remove((NBTTagTreeNode) ints.getChildAt(0));
+		transaction.commit();
+		assertArrayEquals(new int[]{2, 4}, (int[]) ints.getValue());
+
+		NBTTreeTransaction undo = transaction.revert();
+		assertArrayEquals(new int[]{1, 2, 3, 4}, (int[]) ints.getValue());
+		undo.revert();
+		assertArrayEquals(new int[]{2, 4}, (int[]) ints.getValue());
+
+		transaction = new NBTTreeTransaction(model, null);
+		transaction.insert(ints, tag(NBTTagType.INT, "", 9), 1);
+		transaction.commit();
+		assertArrayEquals(new int[]{2, 9, 4}, (int[]) ints.getValue());
+		transaction.revert();
+		assertArrayEquals(new int[]{2, 4}, (int[]) ints.getValue());
+	}
+
+	/**
+	 * Makes one edit of every kind
+	 */
+	private static void edit(NBTTreeTransaction transaction, NBTTagTreeNode root) {
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		NBTTagTreeNode renamed = (NBTTagTreeNode) getItem(root, 1).getChildAt(0);
+		NBTTagTreeNode slot = (NBTTagTreeNode) getItem(root, 2).getChildAt(1);
+		NBTTagTreeNode removed = getItem(root, 3);
+		NBTTagTreeNode retyped = getItem(root, 4);
+		NBTTagTreeNode ints = (NBTTagTreeNode) root.getChildAt(1);
+
+		transaction.setName(renamed, "key");
+		transaction.setValue(slot, (byte) 42);
+		transaction.insert(list, createItem(10), 0);
+		transaction.remove(removed);
+		transaction.setType(retyped, NBTTagType.STRING);
+		transaction.insert(ints, tag(NBTTagType.INT, "", 9), 2);
+	}
+
+	private static NBTTagTreeNode getItem(NBTTagTreeNode root, int index) {
+		return (NBTTagTreeNode) root.getChildAt(0).getChildAt(index);
+	}
+
+	private static NBTTagTreeNode createTree() {
+		NBTTagTreeNode root = createListTree("Items", 10, NBTTreeTransactionTest::createItem);
+		root.add(tag(NBTTagType.INT_ARRAY, "ints", new int[]{1, 2, 3, 4}));
+		return root;
+	}
+
+	private static NBTTagTreeNode createItem(int slot) {
+		return compound("",
+				tag(NBTTagType.STRING, "id", "minecraft:diamond"),
+				tag(NBTTagType.BYTE, "Slot", (byte) slot));
+	}
+}
@@ -0,0 +1,48 @@
+package com.github.tth05.minecraftnbtintellijplugin.editor.ui;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Remembers the events of a tree model by their kind
+ */
+class TreeModelEventLog implements TreeModelListener {
+
+	final List<TreeModelEvent> changed = new ArrayList<>();
+	final List<TreeModelEvent> inserted = new ArrayList<>();
+	final List<TreeModelEvent> removed = new ArrayList<>();
+	final List<TreeModelEvent> structureChanged = new ArrayList<>();
+
+	@Override
+	public void treeNodesChanged(TreeModelEvent event) {
+		this.changed.add(event);
+	}
+
+	@Override
+	public void treeNodesInserted(TreeModelEvent event) {
+		this.inserted.add(event);
+	}
+
+	@Override
+	public void treeNodesRemoved(TreeModelEvent event) {
+		this.removed.add(event);
+	}
+
+	@Override
+	public void treeStructureChanged(TreeModelEvent event) {
+		this.structureChanged.add(event);
+	}
+
+	int size() {
+		return this.changed.size() + this.inserted.size() + this.removed.size() + this.structureChanged.size();
+	}
+
+	void clear() {
+		this.changed.clear();
+		this.inserted.clear();
+		this.removed.clear();
+		this.structureChanged.clear();
+	}
+}
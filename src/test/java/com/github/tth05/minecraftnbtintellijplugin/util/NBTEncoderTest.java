@@ -0,0 +1,74 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTag;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.compound;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.createListTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.decode;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.encode;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.tag;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NBTEncoderTest {
+
+	@Test
+	public void unchangedTreeIsCopiedAsItIs() throws IOException {
+		for (NBTFormat format : NBTFormat.values()) {
+			byte[] data = encode(createTree(), format);
+			NBTTagTreeNode root = decode(data, format, true);
+
+			assertTrue(NBTTag.of(root).isEncoded());
+			assertArrayEquals(data, encode(root, format));
+			//Loading the children does not change the tree
+			root.getChildAt(0).getChildAt(0).getChildCount();
+			assertArrayEquals(data, encode(root, format));
+		}
+	}
+
+	@Test
+	public void unchangedTreeIsTranscodedIntoOtherFormats() throws IOException {
+		byte[] data = encode(createTree(), NBTFormat.BIG_ENDIAN);
+		NBTTagTreeNode root = decode(data, NBTFormat.BIG_ENDIAN, true);
+
+		for (NBTFormat format : NBTFormat.values())
+			assertArrayEquals(encode(createTree(), format), encode(root, format));
+	}
+
+	@Test
+	public void changedTagIsEncodedAgain() throws IOException {
+		NBTTagTreeNode expected = createTree();
+		NBTTagTreeNode root = decode(encode(expected, NBTFormat.BIG_ENDIAN), NBTFormat.BIG_ENDIAN, true);
+
+		setValue(expected, 5, 42);
+		setValue(root, 5, 42);
+		assertFalse(NBTTag.of(root).isEncoded());
+		assertArrayEquals(encode(expected, NBTFormat.BIG_ENDIAN), encode(root, NBTFormat.BIG_ENDIAN));
+
+		//Saved nodes are encoded from their values from now on, changes after saving are not lost
+		root.markSaved();
+		setValue(expected, 6, 43);
+		setValue(root, 6, 43);
+		assertArrayEquals(encode(expected, NBTFormat.BIG_ENDIAN), encode(root, NBTFormat.BIG_ENDIAN));
+	}
+
+	private static void setValue(NBTTagTreeNode root, int element, int value) {
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		((NBTTagTreeNode) list.getChildAt(element).getChildAt(0)).setValue(value);
+	}
+
+	private static NBTTagTreeNode createTree() {
+		NBTTagTreeNode root = createListTree("sections", 16, i -> compound("",
+				tag(NBTTagType.INT, "y", i),
+				tag(NBTTagType.LONG_ARRAY, "states", new long[]{i, Long.MIN_VALUE, -1}),
+				tag(NBTTagType.STRING, "name", "section \u00E9" + i)));
+		root.add(tag(NBTTagType.DOUBLE, "time", 0.25));
+		return root;
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.compound;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.createListTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.encode;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.tag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NBTFormatDetectorTest {
+
+	@Test
+	public void smallFilesAreDetectedInEveryFormat() throws IOException {
+		for (NBTFormat format : NBTFormat.values()) {
+			byte[] data = encode(createSmallTree(), format);
+			NBTFormatDetector.Result result = NBTFormatDetector.detect(ByteBuffer.wrap(data), data.length, NBTCompression.NONE);
+			assertEquals(format, result.getFormat());
+			assertFalse(result.isLevelDat());
+		}
+	}
+
+	@Test
+	public void bigFilesAreDetectedFromTheirHead() throws IOException {
+		for (NBTFormat format : NBTFormat.values()) {
+			byte[] data = encode(createBigTree(), format);
+			ByteBuffer head = ByteBuffer.wrap(data, 0, NBTFormatDetector.HEAD_SIZE);
+			assertEquals(format, NBTFormatDetector.detect(head, data.length, NBTCompression.NONE).getFormat());
+			//The length of compressed data is not known
+			head = ByteBuffer.wrap(data, 0, NBTFormatDetector.HEAD_SIZE);
+			assertEquals(format, NBTFormatDetector.detect(head, -1, NBTCompression.GZIP).getFormat());
+		}
+	}
+
+	@Test
+	public void levelDatHeaderIsDetected() throws IOException {
+		byte[] data = encode(createSmallTree(), NBTFormat.LITTLE_ENDIAN);
+		ByteBuffer file = ByteBuffer.allocate(data.length + 8).order(ByteOrder.LITTLE_ENDIAN);
+		file.putInt(10).putInt(data.length).put(data).flip();
+
+		NBTFormatDetector.Result result = NBTFormatDetector.detect(file, file.limit(), NBTCompression.NONE);
+		assertEquals(NBTFormat.LITTLE_ENDIAN, result.getFormat());
+		assertTrue(result.isLevelDat());
+	}
+
+	@Test
+	public void tooLongVarIntIsNoMatch() {
+		//A compound whose name length is a VarInt of more than 10 bytes
+		byte[] data = new byte[NBTFormatDetector.HEAD_SIZE];
+		Arrays.fill(data, (byte) 0xFF);
+		data[0] = 10;
+		assertNull(NBTFormatDetector.detect(ByteBuffer.wrap(data), data.length, NBTCompression.NONE));
+	}
+
+	@Test
+	public void negativeVarIntLengthIsNoMatch() {
+		byte[] data = {10, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 'a', 'b', 0};
+		assertNull(NBTFormatDetector.detect(ByteBuffer.wrap(data), data.length, NBTCompression.NONE));
+	}
+
+	@Test
+	public void randomDataDoesNotThrow() {
+		Random random = new Random(0);
+		byte[] data = new byte[NBTFormatDetector.HEAD_SIZE];
+		for (int i = 0; i < 10_000; i++) {
+			random.nextBytes(data);
+			//Most of the time the data should at least start like NBT
+			data[0] = (byte) (random.nextBoolean() ? 10 : 9);
+			NBTFormatDetector.detect(ByteBuffer.wrap(data), random.nextBoolean() ? data.length : -1, NBTCompression.NONE);
+		}
+	}
+
+	private static NBTTagTreeNode createSmallTree() {
+		return compound("",
+				tag(NBTTagType.STRING, "id", "minecraft:stone"),
+				tag(NBTTagType.BYTE, "Count", (byte) 1));
+	}
+
+	private static NBTTagTreeNode createBigTree() {
+		NBTTagTreeNode root = createListTree("Inventory", 100, i -> compound("",
+				tag(NBTTagType.BYTE, "Slot", (byte) i),
+				tag(NBTTagType.STRING, "id", "minecraft:diamond_sword")));
+		root.insert(tag(NBTTagType.INT, "DataVersion", 3700), 0);
+		return root;
+	}
+}
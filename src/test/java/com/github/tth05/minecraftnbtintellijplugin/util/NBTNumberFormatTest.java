@@ -0,0 +1,65 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class NBTNumberFormatTest {
+
+	@Test
+	public void superfluousDigitsAreRemoved() {
+		//Printed as 9.999999999999999E22 and 1.9999999999999998E23 before Java 19
+		assertEquals("1.0E23", NBTNumberFormat.formatDouble(1e23));
+		assertEquals("2.0E23", NBTNumberFormat.formatDouble(2e23));
+		assertEquals("0.30000000000000004", NBTNumberFormat.formatDouble(0.1 + 0.2));
+		assertEquals("0.3", NBTNumberFormat.formatFloat(0.1f + 0.2f));
+	}
+
+	@Test
+	public void subnormalValuesAreShortened() {
+		assertEquals("5.0E-324", NBTNumberFormat.formatDouble(Double.MIN_VALUE));
+		assertEquals("1.5E-323", NBTNumberFormat.formatDouble(Double.MIN_VALUE * 3));
+		assertEquals("1.0E-45", NBTNumberFormat.formatFloat(Float.MIN_VALUE));
+		assertEquals("3.0E-44", NBTNumberFormat.formatFloat(3e-44f));
+		assertEquals("2.2250738585072014E-308", NBTNumberFormat.formatDouble(Double.MIN_NORMAL));
+		assertEquals("1.1754944E-38", NBTNumberFormat.formatFloat(Float.MIN_NORMAL));
+	}
+
+	@Test
+	public void zerosKeepTheirSign() {
+		assertEquals("0", NBTNumberFormat.formatDouble(0.0));
+		assertEquals("-0", NBTNumberFormat.formatDouble(-0.0));
+		assertEquals("0", NBTNumberFormat.formatFloat(0.0f));
+		assertEquals("-0", NBTNumberFormat.formatFloat(-0.0f));
+	}
+
+	@Test
+	public void exponentIsOnlyUsedForVerySmallAndBigValues() {
+		assertEquals("0.0000001", NBTNumberFormat.formatDouble(1e-7));
+		assertEquals("1.0E-8", NBTNumberFormat.formatDouble(1e-8));
+		assertEquals("100000000000000000000", NBTNumberFormat.formatDouble(1e20));
+		assertEquals("1.0E21", NBTNumberFormat.formatDouble(1e21));
+		assertEquals("-0.0000001", NBTNumberFormat.formatFloat(-1e-7f));
+		assertEquals("-1.0E-8", NBTNumberFormat.formatFloat(-1e-8f));
+		assertEquals("1", NBTNumberFormat.formatDouble(1.0));
+		assertEquals("0.25", NBTNumberFormat.formatFloat(0.25f));
+	}
+
+	@Test
+	public void formattedValuesParseBackToTheSameValue() {
+		Random random = new Random(0);
+		for (int i = 0; i < 100_000; i++) {
+			double value = Double.longBitsToDouble(random.nextLong());
+			if (!Double.isNaN(value))
+				assertEquals(Double.doubleToLongBits(value),
+						Double.doubleToLongBits(Double.parseDouble(NBTNumberFormat.formatDouble(value))));
+
+			float floatValue = Float.intBitsToFloat(random.nextInt());
+			if (!Float.isNaN(floatValue))
+				assertEquals(Float.floatToIntBits(floatValue),
+						Float.floatToIntBits(Float.parseFloat(NBTNumberFormat.formatFloat(floatValue))));
+		}
+	}
+}
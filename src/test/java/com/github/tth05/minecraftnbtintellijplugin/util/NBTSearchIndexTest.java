@@ -0,0 +1,108 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.compound;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.createListTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.tag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NBTSearchIndexTest {
+
+	@Test
+	public void namesAndValuesAreFoundIgnoringCase() {
+		NBTTagTreeNode root = createTree(10);
+		NBTSearchIndex index = new NBTSearchIndex(root);
+		assertTrue(index.indexNext(Integer.MAX_VALUE));
+
+		assertEquals(10, index.search("DIAMOND").size());
+		assertEquals(1, index.search("item 7").size());
+		assertTrue(index.search("emerald").isEmpty());
+	}
+
+	@Test
+	public void removedChildrenDoNotMakeTheWalkSkipTheirSiblings() {
+		NBTTagTreeNode root = createTree(10);
+		NBTSearchIndex index = new NBTSearchIndex(root);
+		//The list, the first three items with their two children each and the fourth item
+		index.indexNext(11);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		NBTTagTreeNode removed = (NBTTagTreeNode) list.getChildAt(1);
+		list.remove(1);
+		index.removeSubtree(removed);
+		index.childrenRemoved(list, new int[]{1});
+
+		while (!index.indexNext(1)) {
+		}
+		assertEquals(9, index.search("diamond").size());
+		for (int i = 0; i < 10; i++)
+			assertEquals(i == 1 ? 0 : 1, index.search("item " + i).size());
+	}
+
+	@Test
+	public void removedSubtreeIsNotWalkedAnymore() {
+		NBTTagTreeNode root = createTree(10);
+		NBTSearchIndex index = new NBTSearchIndex(root);
+		//Stops inside of the list
+		index.indexNext(3);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		root.remove(0);
+		index.removeSubtree(list);
+		index.childrenRemoved(root, new int[]{0});
+
+		assertTrue(index.indexNext(Integer.MAX_VALUE));
+		assertTrue(index.search("diamond").isEmpty());
+	}
+
+	@Test
+	public void insertedChildrenAreIndexedOnce() {
+		NBTTagTreeNode root = createTree(10);
+		NBTSearchIndex index = new NBTSearchIndex(root);
+		index.indexNext(5);
+
+		NBTTagTreeNode list = (NBTTagTreeNode) root.getChildAt(0);
+		NBTTagTreeNode inserted = createItem(42);
+		list.insert(inserted, 0);
+		index.addSubtree(inserted);
+
+		assertTrue(index.indexNext(Integer.MAX_VALUE));
+		List<NBTTagTreeNode> hits = index.search("item 42");
+		assertEquals(1, hits.size());
+		assertSame(inserted.getChildAt(1), hits.get(0));
+		assertEquals(11, index.search("diamond").size());
+	}
+
+	@Test
+	public void changedValuesAreFoundByTheirNewValue() {
+		NBTTagTreeNode root = createTree(3);
+		NBTSearchIndex index = new NBTSearchIndex(root);
+		index.indexNext(Integer.MAX_VALUE);
+
+		NBTTagTreeNode id = (NBTTagTreeNode) root.getChildAt(0).getChildAt(0).getChildAt(0);
+		id.setValue("minecraft:emerald");
+		index.update(id);
+
+		assertEquals(1, index.search("emerald").size());
+		assertEquals(2, index.search("diamond").size());
+		assertFalse(index.search("EMERALD").isEmpty());
+	}
+
+	private static NBTTagTreeNode createTree(int itemCount) {
+		return createListTree("Items", itemCount, NBTSearchIndexTest::createItem);
+	}
+
+	private static NBTTagTreeNode createItem(int number) {
+		return compound("",
+				tag(NBTTagType.STRING, "id", "minecraft:diamond"),
+				tag(NBTTagType.STRING, "Name", "Item " + number));
+	}
+}
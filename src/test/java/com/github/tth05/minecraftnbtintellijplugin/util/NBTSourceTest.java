@@ -0,0 +1,72 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NBTSourceTest {
+
+	@Test
+	public void unchangedFileKeepsTheSourceValid() throws IOException {
+		Path file = createFile(new byte[]{1, 2, 3});
+		NBTSource source = map(file);
+
+		assertTrue(source.checkFile());
+		assertTrue(source.checkFile());
+		assertTrue(source.isMapped());
+	}
+
+	@Test
+	public void fileWrittenInPlaceMakesTheSourceStale() throws IOException {
+		Path file = createFile(new byte[]{1, 2, 3});
+		NBTSource source = map(file);
+
+		Files.write(file, new byte[]{4, 5, 6, 7});
+		//The modification time might not have a fine enough resolution to show the change
+		Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+
+		assertFalse(source.checkFile());
+		assertTrue(source.isStale());
+	}
+
+	@Test
+	public void replacedFileKeepsTheMapping() throws IOException {
+		Path file = createFile(new byte[]{1, 2, 3});
+		NBTSource source = map(file);
+		if (Files.readAttributes(file, BasicFileAttributes.class).fileKey() == null)
+			return;
+
+		Path temp = createFile(new byte[]{4, 5, 6, 7});
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		assertTrue(source.checkFile());
+		assertTrue(source.isMapped());
+		assertEquals(3, source.length());
+		assertEquals(2, source.open(1).readByte());
+	}
+
+	private static Path createFile(byte[] content) throws IOException {
+		Path file = Files.createTempFile("nbt-source", ".dat");
+		file.toFile().deleteOnExit();
+		return Files.write(file, content);
+	}
+
+	private static NBTSource map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			return new NBTSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), NBTFormat.BIG_ENDIAN,
+					file, attributes);
+		}
+	}
+}
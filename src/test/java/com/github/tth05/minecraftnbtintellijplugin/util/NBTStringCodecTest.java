@@ -0,0 +1,108 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class NBTStringCodecTest {
+
+	private static final String[] STRINGS = {
+			"",
+			"minecraft:diamond_sword",
+			"a string which is longer than eight bytes",
+			"\0",
+			"null \0 in between",
+			"Gr\u00FC\u00DFe, \u00E7a va?",
+			"\u2603 snowman",
+			"\uD83D\uDE00 outside of the BMP"
+	};
+
+	@Test
+	public void modifiedUtf8IsEncodedLikeDataOutput() throws IOException {
+		NBTStringCodec codec = new NBTStringCodec(true);
+		for (String string : STRINGS) {
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			new DataOutputStream(expected).writeUTF(string);
+
+			ByteBuffer buffer = ByteBuffer.allocate(codec.encodedLength(string) + 2);
+			buffer.putShort((short) codec.encodedLength(string));
+			codec.encode(string, buffer);
+			assertArrayEquals(expected.toByteArray(), buffer.array());
+		}
+	}
+
+	@Test
+	public void modifiedUtf8IsDecodedLikeDataInput() throws IOException {
+		NBTStringCodec codec = new NBTStringCodec(true);
+		for (String string : STRINGS) {
+			ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+			new DataOutputStream(encoded).writeUTF(string);
+			byte[] bytes = encoded.toByteArray();
+
+			String expected = new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+			ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+			assertEquals(expected, codec.decode(buffer, bytes.length - 2));
+			assertEquals(0, buffer.remaining());
+		}
+	}
+
+	@Test
+	public void standardUtf8RoundTrips() throws IOException {
+		NBTStringCodec codec = new NBTStringCodec(false);
+		for (String string : STRINGS) {
+			byte[] expected = string.getBytes(StandardCharsets.UTF_8);
+			assertEquals(expected.length, codec.encodedLength(string));
+
+			ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+			codec.encode(string, buffer);
+			assertArrayEquals(expected, buffer.array());
+			assertEquals(string, codec.decode(buffer.flip(), expected.length));
+		}
+	}
+
+	@Test
+	public void directBuffersAreDecoded() throws IOException {
+		NBTStringCodec codec = new NBTStringCodec(true);
+		for (String string : STRINGS) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(codec.encodedLength(string));
+			codec.encode(string, buffer);
+			assertEquals(string, codec.decode(buffer.flip(), buffer.limit()));
+		}
+	}
+
+	@Test
+	public void malformedModifiedUtf8IsReplaced() throws IOException {
+		//A lead byte of two bytes without the second one
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[]{'a', (byte) 0xC3});
+		assertEquals("a\uFFFD", new NBTStringCodec(true).decode(buffer, 2));
+	}
+
+	@Test
+	public void negativeLengthIsRejected() {
+		assertThrows(IOException.class, () -> new NBTStringCodec(false).decode(ByteBuffer.allocate(8), -1));
+	}
+
+	@Test
+	public void lengthLongerThanTheBufferUnderflows() {
+		assertThrows(BufferUnderflowException.class, () -> new NBTStringCodec(true).decode(ByteBuffer.allocate(8), 9));
+	}
+
+	@Test
+	public void negativeVarIntLengthIsRejectedByTheReader() {
+		//0xFFFFFFFF as a 5 byte VarInt, which is -1 as an int, followed by a few bytes of data
+		byte[] bytes = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 'a', 'b', 'c'};
+		assertThrows(IOException.class, () -> NBTFormat.NETWORK.createReader(ByteBuffer.wrap(bytes)).readString());
+		assertThrows(IOException.class, () -> NBTFormat.NETWORK.createReader(ByteBuffer.wrap(bytes)).readString(new NBTStringTable()));
+	}
+}
@@ -0,0 +1,64 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class NBTStringTableTest {
+
+	@Test
+	public void sameBytesGiveTheSameInstance() {
+		NBTStringTable table = new NBTStringTable();
+		ByteBuffer buffer = encode("idCountid");
+		String id = new String("id");
+		table.put(buffer, 0, 2, id);
+
+		assertSame(id, table.get(buffer, 7, 2));
+		assertNull(table.get(buffer, 2, 5));
+		assertEquals(2, table.getLookups());
+		assertEquals(1, table.getHits());
+
+		//Copies count their own lookups
+		NBTStringTable copy = table.copy();
+		assertSame(id, copy.get(buffer, 0, 2));
+		assertEquals(1, copy.getHits());
+		assertEquals(2, table.getLookups());
+	}
+
+	@Test
+	public void stringsWithTheSameHashAreTold() {
+		//Both have the same hash
+		ByteBuffer first = encode("cmRGyrO");
+		ByteBuffer second = encode("vHBLXf");
+		NBTStringTable table = new NBTStringTable();
+		table.put(first, 0, 7, "cmRGyrO");
+		table.put(second, 0, 6, "vHBLXf");
+
+		assertEquals("cmRGyrO", table.get(first, 0, 7));
+		assertEquals("vHBLXf", table.get(second, 0, 6));
+	}
+
+	@Test
+	public void longerStringWithTheSameHashAsItsPrefixIsNotFound() {
+		//Both have the same hash and the shorter one is a prefix of the longer one
+		ByteBuffer longer = encode("NzBvLAw");
+		ByteBuffer shorter = encode("NzBvLA");
+		NBTStringTable table = new NBTStringTable();
+		table.put(shorter, 0, 6, "NzBvLA");
+		assertNull(table.get(longer, 0, 7));
+
+		table = new NBTStringTable();
+		table.put(longer, 0, 7, "NzBvLAw");
+		//The string ends at the end of the buffer, the longer key must not be compared past it
+		assertNull(table.get(shorter, 0, 6));
+	}
+
+	private static ByteBuffer encode(String string) {
+		return ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,55 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.assertSameTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.compound;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.createListTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.decode;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.encode;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.tag;
+import static org.junit.Assert.assertThrows;
+
+public class NBTTreeDecoderTest {
+
+	@Test
+	public void bigListsAreDecodedInParallelLikeSequentially() throws IOException {
+		//Well above the size at which lists are split up
+		NBTTagTreeNode root = createListTree("entries", 4096, i -> compound("",
+				tag(NBTTagType.STRING, "id", "minecraft:stone"),
+				tag(NBTTagType.INT, "index", i),
+				tag(NBTTagType.BYTE_ARRAY, "data", new byte[512])));
+
+		for (NBTFormat format : NBTFormat.values())
+			assertSameTree(root, decode(encode(root, format), format, false));
+	}
+
+	@Test
+	public void lazyDecodingDecodesTheSameTree() throws IOException {
+		NBTTagTreeNode root = createListTree("list", 10, i -> compound("",
+				tag(NBTTagType.LONG_ARRAY, "longs", new long[]{i, -i, Long.MAX_VALUE}),
+				tag(NBTTagType.DOUBLE, "value", i * 0.5)));
+
+		for (NBTFormat format : NBTFormat.values())
+			assertSameTree(root, decode(encode(root, format), format, true));
+	}
+
+	@Test
+	public void listSizeLongerThanTheDataIsRejected() {
+		//A root compound with a list of compounds which claims to have Integer.MAX_VALUE elements
+		byte[] data = {10, 0, 0, 9, 0, 1, 'l', 10, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0};
+		assertThrows(IOException.class, () -> decode(data, NBTFormat.BIG_ENDIAN, false));
+		assertThrows(IOException.class, () -> decode(data, NBTFormat.BIG_ENDIAN, true));
+	}
+
+	@Test
+	public void negativeListSizeIsRejected() {
+		byte[] data = {10, 0, 0, 9, 0, 1, 'l', 9, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0};
+		assertThrows(IOException.class, () -> decode(data, NBTFormat.BIG_ENDIAN, false));
+		assertThrows(IOException.class, () -> decode(data, NBTFormat.BIG_ENDIAN, true));
+	}
+}
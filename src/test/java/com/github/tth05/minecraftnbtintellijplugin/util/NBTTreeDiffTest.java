@@ -0,0 +1,88 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagTreeNode;
+import com.github.tth05.minecraftnbtintellijplugin.NBTTagType;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.compound;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.createListTree;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.decode;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.encode;
+import static com.github.tth05.minecraftnbtintellijplugin.NBTTestTrees.tag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NBTTreeDiffTest {
+
+	@Test
+	public void sameTagsInDifferentFormatsAreIdentical() throws IOException {
+		NBTTagTreeNode left = load(-1, NBTFormat.BIG_ENDIAN);
+		NBTTagTreeNode right = load(-1, NBTFormat.LITTLE_ENDIAN);
+
+		NBTTreeDiff diff = NBTTreeDiff.compare(left, right, null);
+		assertTrue(diff.isIdentical());
+		assertEquals(diff.getLeftText(), diff.getRightText());
+	}
+
+	@Test
+	public void deepChangeIsFoundInLazyTrees() throws IOException {
+		NBTTagTreeNode left = load(-1, NBTFormat.BIG_ENDIAN);
+		NBTTagTreeNode right = load(7, NBTFormat.BIG_ENDIAN);
+
+		NBTTreeDiff diff = NBTTreeDiff.compare(left, right, null);
+		assertEquals(1, diff.getChangedCount());
+		assertEquals(0, diff.getAddedCount());
+		assertEquals(0, diff.getRemovedCount());
+		assertTrue(diff.getRightText().contains("value: 8"));
+	}
+
+	@Test
+	public void rememberedHashesMatchFreshHashes() throws IOException {
+		NBTTagTreeNode encoded = load(3, NBTFormat.LITTLE_ENDIAN);
+		NBTTagTreeNode decoded = createTree(3);
+
+		NBTContentHash hashes = new NBTContentHash();
+		long hash = hashes.hash(encoded);
+		assertEquals(new NBTContentHash().hash(decoded), hash);
+
+		//The hashes of the children were remembered while hashing the payload of the root
+		NBTTagTreeNode list = (NBTTagTreeNode) encoded.getChildAt(0);
+		NBTTagTreeNode decodedList = (NBTTagTreeNode) decoded.getChildAt(0);
+		assertEquals(new NBTContentHash().hash(decodedList), hashes.hash(list));
+		for (int i = 0; i < list.getChildCount(); i++)
+			assertEquals(new NBTContentHash().hash((NBTTagTreeNode) decodedList.getChildAt(i)), hashes.hash((NBTTagTreeNode) list.getChildAt(i)));
+		assertEquals(hash, hashes.hash(encoded));
+	}
+
+	@Test
+	public void reorderedCompoundIsIdentical() throws IOException {
+		NBTTagTreeNode left = new NBTTagTreeNode(NBTTagType.COMPOUND, "", null);
+		left.add(new NBTTagTreeNode(NBTTagType.INT, "a", 1));
+		left.add(new NBTTagTreeNode(NBTTagType.STRING, "b", "text"));
+		NBTTagTreeNode right = new NBTTagTreeNode(NBTTagType.COMPOUND, "", null);
+		right.add(new NBTTagTreeNode(NBTTagType.STRING, "b", "text"));
+		right.add(new NBTTagTreeNode(NBTTagType.INT, "a", 1));
+
+		assertTrue(NBTTreeDiff.compare(left, right, null).isIdentical());
+		right.add(new NBTTagTreeNode(NBTTagType.INT, "c", 2));
+		assertFalse(NBTTreeDiff.compare(left, right, null).isIdentical());
+	}
+
+	private static NBTTagTreeNode load(int changed, NBTFormat format) throws IOException {
+		return decode(encode(createTree(changed), format), format, true);
+	}
+
+	/**
+	 * @param changed The index of the element whose value is one higher, or {@code -1}
+	 */
+	private static NBTTagTreeNode createTree(int changed) {
+		return createListTree("list", 20, i -> compound("",
+				compound("nested",
+						tag(NBTTagType.INT, "value", i == changed ? i + 1 : i),
+						tag(NBTTagType.INT_ARRAY, "ints", new int[]{i, i * 2})),
+				tag(NBTTagType.STRING, "id", "entry" + i)));
+	}
+}
@@ -0,0 +1,108 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RegionFileTest {
+
+	@Test
+	public void chunkWhichStillFitsIsWrittenIntoItsOwnSectors() {
+		BitSet usedSectors = sectors(0, 5);
+
+		assertEquals(2, RegionFile.allocateSectors(usedSectors, 2, 2, 2));
+		assertEquals(2, RegionFile.allocateSectors(usedSectors, 2, 2, 1));
+	}
+
+	@Test
+	public void grownChunkIsWrittenIntoFreeSectors() {
+		//Header in 0-1, chunk A in 2-3, a gap in 4-6 and chunk B in 7
+		BitSet usedSectors = sectors(0, 4);
+		usedSectors.set(7);
+
+		assertEquals(4, RegionFile.allocateSectors(usedSectors, 2, 2, 3));
+		assertEquals(8, RegionFile.allocateSectors(usedSectors, 2, 2, 4));
+	}
+
+	@Test
+	public void newChunkIsAppendedIfNoGapIsBigEnough() {
+		BitSet usedSectors = sectors(0, 4);
+		usedSectors.set(5, 7);
+
+		assertEquals(4, RegionFile.allocateSectors(usedSectors, 0, 0, 1));
+		assertEquals(7, RegionFile.allocateSectors(usedSectors, 0, 0, 2));
+	}
+
+	@Test
+	public void chunkDoesNotReuseTheOldSectorsOfAnotherChunkInTheBatch() {
+		//Chunk A in 2-3 and chunk B in 4, both are written in the same batch
+		BitSet usedSectors = sectors(0, 5);
+
+		//A grows and moves to the end of the file, its old sectors stay reserved until the header has been written
+		int offsetA = RegionFile.allocateSectors(usedSectors, 2, 2, 3);
+		assertEquals(5, offsetA);
+		usedSectors.set(offsetA, offsetA + 3);
+
+		int offsetB = RegionFile.allocateSectors(usedSectors, 4, 1, 2);
+		assertEquals(8, offsetB);
+	}
+
+	@Test
+	public void externalFileIsDeletedOnceTheChunkFitsIntoTheRegion() throws IOException {
+		Path directory = Files.createTempDirectory("region");
+		Path path = directory.resolve("r.0.0.mca");
+		Path external = directory.resolve("c.1.0.mcc");
+		//Chunk 1 is in sector 2, its data only points to the .mcc file
+		Files.write(path, createRegion(1, (byte) (2 | 128)));
+		Files.write(external, new byte[]{1, 2, 3});
+
+		RegionFile region = new RegionFile(null, path.getFileName().toString(), ByteBuffer.wrap(Files.readAllBytes(path)));
+		region.writeChunks(path, Collections.singletonMap(1, new byte[]{4, 5, 6}));
+
+		assertFalse(Files.exists(external));
+		assertEquals(2, region.getSectorOffset(1));
+		ByteBuffer chunk = ByteBuffer.wrap(Files.readAllBytes(path), 2 * RegionFile.SECTOR_SIZE, 5);
+		assertEquals(4, chunk.getInt());
+		assertEquals(2, chunk.get());
+	}
+
+	@Test
+	public void externalFileOfAChunkInTheRegionIsKept() throws IOException {
+		Path directory = Files.createTempDirectory("region");
+		Path path = directory.resolve("r.0.0.mca");
+		Path external = directory.resolve("c.1.0.mcc");
+		Files.write(path, createRegion(1, (byte) 2));
+		Files.write(external, new byte[]{1, 2, 3});
+
+		RegionFile region = new RegionFile(null, path.getFileName().toString(), ByteBuffer.wrap(Files.readAllBytes(path)));
+		region.writeChunks(path, Collections.singletonMap(1, new byte[]{4, 5, 6}));
+
+		assertTrue(Files.exists(external));
+	}
+
+	/**
+	 * @return A region with a single chunk in the first sector after the header
+	 */
+	private static byte[] createRegion(int index, byte compressionType) {
+		ByteBuffer region = ByteBuffer.allocate(3 * RegionFile.SECTOR_SIZE);
+		region.putInt(index * 4, 2 << 8 | 1);
+		region.position(2 * RegionFile.SECTOR_SIZE);
+		region.putInt(1).put(compressionType);
+		return region.array();
+	}
+
+	private static BitSet sectors(int from, int to) {
+		BitSet sectors = new BitSet();
+		sectors.set(from, to);
+		return sectors;
+	}
+}
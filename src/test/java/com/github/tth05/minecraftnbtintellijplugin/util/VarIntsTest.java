@@ -0,0 +1,137 @@
+package com.github.tth05.minecraftnbtintellijplugin.util;
+
+import org.junit.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class VarIntsTest {
+
+	private static final int[] INTS = {0, 1, -1, 63, -64, 64, -65, 8191, -8192, 8192, 1 << 20, -(1 << 27),
+			Integer.MAX_VALUE, Integer.MIN_VALUE};
+	private static final long[] LONGS = {0, 1, -1, 1L << 34, -(1L << 48), 1L << 55, Long.MAX_VALUE, Long.MIN_VALUE};
+
+	@Test
+	public void intsRoundTripInEveryKindOfBuffer() {
+		for (ByteBuffer buffer : createBuffers(INTS.length * 5)) {
+			for (int value : INTS) {
+				int position = buffer.position();
+				VarInts.writeInt(buffer, value);
+				assertEquals(VarInts.getIntSize(value), buffer.position() - position);
+			}
+			buffer.flip();
+			for (int value : INTS)
+				assertEquals(value, VarInts.readInt(buffer));
+			assertEquals(0, buffer.remaining());
+		}
+	}
+
+	@Test
+	public void longsRoundTripInEveryKindOfBuffer() {
+		for (ByteBuffer buffer : createBuffers(LONGS.length * 10)) {
+			for (long value : LONGS) {
+				int position = buffer.position();
+				VarInts.writeLong(buffer, value);
+				assertEquals(VarInts.getLongSize(value), buffer.position() - position);
+			}
+			buffer.flip();
+			for (long value : LONGS)
+				assertEquals(value, VarInts.readLong(buffer));
+			assertEquals(0, buffer.remaining());
+		}
+	}
+
+	@Test
+	public void unsignedIntsUpToThirtyTwoBitsRoundTrip() {
+		for (ByteBuffer buffer : createBuffers(64)) {
+			VarInts.writeUnsignedInt(buffer, 0xFFFFFFFFL);
+			VarInts.writeUnsignedInt(buffer, 300);
+			assertEquals(VarInts.getUnsignedSize(0xFFFFFFFFL) + VarInts.getUnsignedSize(300), buffer.position());
+			buffer.flip();
+			assertEquals(-1, VarInts.readUnsignedInt(buffer));
+			assertEquals(300, VarInts.readUnsignedInt(buffer));
+		}
+	}
+
+	@Test
+	public void arraysRoundTripUpToTheEndOfTheBuffer() {
+		Random random = new Random(7);
+		int[] ints = new int[500];
+		long[] longs = new long[500];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = random.nextInt() >> random.nextInt(32);
+			longs[i] = random.nextLong() >> random.nextInt(64);
+		}
+
+		//Exactly as big as needed, so the last values are written and read without the fast path
+		int size = 0;
+		for (int i = 0; i < ints.length; i++)
+			size += VarInts.getIntSize(ints[i]) + VarInts.getLongSize(longs[i]);
+		for (ByteBuffer buffer : createBuffers(size)) {
+			buffer.limit(buffer.position() + size);
+			assertEquals(ints.length, VarInts.writeInts(buffer, ints, 0));
+			assertEquals(longs.length, VarInts.writeLongs(buffer, longs, 0));
+			assertEquals(0, buffer.remaining());
+
+			buffer.flip();
+			int[] readInts = new int[ints.length];
+			long[] readLongs = new long[longs.length];
+			VarInts.readInts(buffer, readInts);
+			VarInts.readLongs(buffer, readLongs);
+			assertArrayEquals(ints, readInts);
+			assertArrayEquals(longs, readLongs);
+			assertEquals(0, buffer.remaining());
+		}
+	}
+
+	@Test
+	public void writingArraysStopsAtTheFirstValueWhichDoesNotFit() {
+		int[] ints = {1, 2, Integer.MIN_VALUE, 3};
+		for (ByteBuffer buffer : createBuffers(4)) {
+			buffer.limit(buffer.position() + 4);
+			assertEquals(2, VarInts.writeInts(buffer, ints, 0));
+			assertEquals(2, buffer.remaining());
+		}
+	}
+
+	@Test
+	public void skipMovesPastValuesOfAnySize() {
+		for (ByteBuffer buffer : createBuffers(LONGS.length * 10 + 5)) {
+			for (long value : LONGS)
+				VarInts.writeLong(buffer, value);
+			VarInts.writeInt(buffer, 12345);
+			buffer.flip();
+
+			VarInts.skip(buffer, LONGS.length);
+			assertEquals(12345, VarInts.readInt(buffer));
+			assertThrows(BufferUnderflowException.class, () -> VarInts.skip(buffer, 1));
+		}
+	}
+
+	@Test
+	public void overlongValueIsRejected() {
+		for (ByteBuffer buffer : createBuffers(11)) {
+			for (int i = 0; i < 11; i++)
+				buffer.put((byte) 0x80);
+			buffer.flip();
+			assertThrows(ArithmeticException.class, () -> VarInts.readLong(buffer.duplicate()));
+			assertThrows(ArithmeticException.class, () -> VarInts.readInts(buffer.duplicate(), new int[1]));
+			assertThrows(ArithmeticException.class, () -> VarInts.readLongs(buffer.duplicate(), new long[1]));
+		}
+	}
+
+	/**
+	 * @return A heap buffer, a heap buffer with an array offset and a direct buffer, which can each hold the given
+	 * amount of bytes
+	 */
+	private static ByteBuffer[] createBuffers(int size) {
+		ByteBuffer sliced = ByteBuffer.allocate(size + 3);
+		sliced.position(3);
+		return new ByteBuffer[]{ByteBuffer.allocate(size), sliced.slice(), ByteBuffer.allocateDirect(size)};
+	}
+}